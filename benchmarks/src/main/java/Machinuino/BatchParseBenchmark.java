@@ -0,0 +1,69 @@
+package Machinuino;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per file latency of parsing a batch of different sources, as the batch mode of the compiler
+ * does, with a new full LL parser for each file against the reused {@link TwoStageParser}. Run
+ * with {@code -t} to parse on many threads at once
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchParseBenchmark {
+
+    private static final int FILES = 64;
+
+    @Param({"20", "200"})
+    private int states;
+
+    private String[] sources;
+
+    @Setup
+    public void generate() {
+        sources = new String[FILES];
+        for (int i = 0; i < FILES; i++) {
+            sources[i] = new SpecGenerator.Builder().states(states).inputPins(6)
+                    .transitionsPerState(4).commentDensity(0.2).seed(i).build().generate();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public void freshParserLL(Blackhole blackhole) {
+        for (String source : sources) {
+            blackhole.consume(new MachinuinoParser(new CommonTokenStream(
+                    new MachinuinoLexer(new ANTLRInputStream(source)))).moore());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILES)
+    public void twoStage(Blackhole blackhole) {
+        TwoStageParser parser = TwoStageParser.forCurrentThread();
+        BaseErrorListener listener = new BaseErrorListener();
+        for (String source : sources) {
+            blackhole.consume(parser.parse(new ANTLRInputStream(source), listener));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package Machinuino;
+
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Transition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filling a {@link MooreMachine.Builder} with every state, pin and transition of a synthetic
+ * machine, which is dominated by the nondeterminism check of
+ * {@link MooreMachine.Builder#addTransition}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuilderBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int states;
+
+    @Param({"8"})
+    private int inputs;
+
+    @Param({"4", "16", "64"})
+    private int transitions;
+
+    private MooreMachine machine;
+    private List<Transition> allTransitions;
+
+    @Setup
+    public void build() {
+        machine = SyntheticSpecs.machineOf(SyntheticSpecs.generate(states, inputs, 1, transitions));
+        allTransitions = new ArrayList<>();
+        for (int state = 0; state < machine.getStateCount(); state++) {
+            allTransitions.addAll(machine.getTransitionsOfState(state));
+        }
+    }
+
+    @Benchmark
+    public MooreMachine.Builder addTransitions() {
+        MooreMachine.Builder builder = new MooreMachine.Builder(machine.getName());
+        for (int state = 0; state < machine.getStateCount(); state++) {
+            builder.addState(machine.getStateOfId(state));
+        }
+        for (int id = 0; id < machine.getInputPinCount(); id++) {
+            builder.addInputPin(machine.getInputPinOfId(id));
+        }
+        for (Transition transition : allTransitions) builder.addTransition(transition);
+        return builder;
+    }
+}
@@ -0,0 +1,55 @@
+package Machinuino;
+
+import Machinuino.model.MooreMachine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Graphviz file of a synthetic machine built on setup
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DotGeneratorBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int states;
+
+    @Param({"8"})
+    private int inputs;
+
+    @Param({"4"})
+    private int outputs;
+
+    @Param({"4", "16"})
+    private int transitions;
+
+    private MooreMachine machine;
+    private DotGenerator dotGenerator;
+
+    @Setup
+    public void build() {
+        machine = SyntheticSpecs.machineOf(
+                SyntheticSpecs.generate(states, inputs, outputs, transitions));
+        dotGenerator = new DotGenerator();
+    }
+
+    @Benchmark
+    public String generateImage() {
+        return dotGenerator.generateImage(machine);
+    }
+}
@@ -0,0 +1,69 @@
+package Machinuino;
+
+import org.antlr.v4.runtime.ANTLRFileStream;
+import org.antlr.v4.runtime.CharStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a synthetic source written to a temporary file, read through a Reader into a char
+ * array against memory mapped, and lexed to its end so both are compared on the whole source
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InputBenchmark {
+
+    @Param({"1000", "100000"})
+    private int states;
+
+    private Path file;
+
+    @Setup
+    public void write() throws IOException {
+        file = Files.createTempFile("synthetic", ".moore");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new SpecGenerator.Builder().states(states).inputPins(8).transitionsPerState(8)
+                    .commentDensity(0.2).build().generate(writer);
+        }
+    }
+
+    @TearDown
+    public void delete() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public int fileStream() throws IOException {
+        return lex(new ANTLRFileStream(file.toString(), "UTF-8"));
+    }
+
+    @Benchmark
+    public int mapped() throws IOException {
+        return lex(CodePointCharStream.fromFile(file));
+    }
+
+    private static int lex(CharStream input) {
+        return new MachinuinoLexer(input).getAllTokens().size();
+    }
+}
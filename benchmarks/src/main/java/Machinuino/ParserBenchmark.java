@@ -0,0 +1,71 @@
+package Machinuino;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexing alone and lexing with parsing of a synthetic source, from the characters in memory
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int states;
+
+    @Param({"8"})
+    private int inputs;
+
+    @Param({"4"})
+    private int outputs;
+
+    @Param({"4", "16"})
+    private int transitions;
+
+    private String source;
+
+    @Setup
+    public void generate() {
+        source = SyntheticSpecs.generate(states, inputs, outputs, transitions);
+    }
+
+    @Benchmark
+    public int lex() {
+        return new MachinuinoLexer(new ANTLRInputStream(source)).getAllTokens().size();
+    }
+
+    @Benchmark
+    public MachinuinoParser.MooreContext parse() {
+        CompilationUnit unit = CompilationUnit.fromString("Synthetic.moore", source);
+        String errors = SyntacticAnalyzer.analyze(unit);
+        if (!errors.isEmpty()) throw new IllegalStateException(errors);
+        return unit.parse();
+    }
+
+    /**
+     * A new lexer and parser with full LL prediction, as each file was parsed before the
+     * {@link TwoStageParser}
+     */
+    @Benchmark
+    public MachinuinoParser.MooreContext parseLL() {
+        return new MachinuinoParser(new CommonTokenStream(
+                new MachinuinoLexer(new ANTLRInputStream(source)))).moore();
+    }
+}
@@ -0,0 +1,79 @@
+package Machinuino;
+
+import Machinuino.model.MooreMachine;
+import Machinuino.sim.BytecodeCompiler;
+import Machinuino.sim.CompiledMachine;
+import Machinuino.sim.Simulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same input trace replayed on the table interpreter and on the class compiled for a
+ * synthetic machine, both keeping the outputs and the visited states as the replay of a trace
+ * file does
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReplayBenchmark {
+
+    private static final long SEED = 1;
+    private static final int TRACE_LENGTH = 1 << 16;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int states;
+
+    @Param({"4", "12"})
+    private int inputs;
+
+    @Param({"4"})
+    private int outputs;
+
+    @Param({"8"})
+    private int transitions;
+
+    private Simulator simulator;
+    private CompiledMachine compiled;
+    private int[] trace;
+    private int[] outputWords;
+    private long[] visits;
+
+    @Setup
+    public void build() {
+        MooreMachine machine = SyntheticSpecs.machineOf(
+                SyntheticSpecs.generate(states, inputs, outputs, transitions));
+        simulator = Simulator.ofMachine(machine);
+        compiled = BytecodeCompiler.compile(machine);
+        Random random = new Random(SEED);
+        trace = new int[TRACE_LENGTH];
+        for (int i = 0; i < trace.length; i++) trace[i] = random.nextInt(1 << inputs);
+        outputWords = new int[TRACE_LENGTH];
+        visits = new long[machine.getStateCount()];
+    }
+
+    @Benchmark
+    public int table() {
+        return simulator.run(simulator.getInitialState(), trace, outputWords, visits);
+    }
+
+    @Benchmark
+    public int bytecode() {
+        compiled.reset();
+        return compiled.run(trace, outputWords, visits);
+    }
+}
@@ -0,0 +1,66 @@
+package Machinuino;
+
+import Machinuino.model.Fault;
+import Machinuino.model.MooreMachine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The visit of the semantic analyzer over a tree parsed once on setup, the analyzer being reused
+ * as the pool of the compiler does. The visit looks the names of a rule up by index, which
+ * takes time quadratic on the states, so bigger machines are left to {@code -p states=10000}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SemanticAnalyzerBenchmark {
+
+    @Param({"100", "1000"})
+    private int states;
+
+    @Param({"8"})
+    private int inputs;
+
+    @Param({"4"})
+    private int outputs;
+
+    @Param({"4", "16"})
+    private int transitions;
+
+    private CompilationUnit unit;
+    private SemanticAnalyzer analyzer;
+
+    @Setup
+    public void parse() {
+        unit = CompilationUnit.fromString("Synthetic.moore",
+                SyntheticSpecs.generate(states, inputs, outputs, transitions));
+        String errors = SyntacticAnalyzer.analyze(unit);
+        if (!errors.isEmpty()) throw new IllegalStateException(errors);
+        analyzer = new SemanticAnalyzer();
+    }
+
+    @Benchmark
+    public Fault analyze() {
+        return analyzer.analyze(unit);
+    }
+
+    @Benchmark
+    public MooreMachine analyzeAndBuild() {
+        analyzer.analyze(unit);
+        return analyzer.buildMachine();
+    }
+}
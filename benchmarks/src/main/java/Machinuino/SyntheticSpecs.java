@@ -0,0 +1,52 @@
+package Machinuino;
+
+import Machinuino.model.Fault;
+import Machinuino.model.MooreMachine;
+
+/**
+ * Valid .moore sources of any size for the benchmarks, generated by {@link SpecGenerator} with a
+ * fixed seed so the same sizes always give the same source
+ */
+final class SyntheticSpecs {
+
+    private static final long SEED = 1;
+
+    private SyntheticSpecs() {
+    }
+
+    /**
+     * @param states number of states, at least 1
+     * @param inputs number of input pins besides the clock
+     * @param outputs number of output pins
+     * @param transitions number of transitions of each state, at most 2 to the inputs
+     * @return the source of a deterministic machine, each guard testing the fewest pins that
+     * tell the transitions of its state apart
+     * @throws IllegalStateException if the inputs can not tell the transitions apart
+     */
+    static String generate(int states, int inputs, int outputs, int transitions) {
+        return new SpecGenerator.Builder()
+                .states(states)
+                .inputPins(inputs)
+                .outputPins(outputs)
+                .transitionsPerState(transitions)
+                .seed(SEED)
+                .build()
+                .generate();
+    }
+
+    /**
+     * Parses and analyzes a source generated by {@link #generate}
+     *
+     * @return the machine of the source
+     * @throws IllegalStateException if the source has errors
+     */
+    static MooreMachine machineOf(String source) {
+        CompilationUnit unit = CompilationUnit.fromString("Synthetic.moore", source);
+        String syntacticErrors = SyntacticAnalyzer.analyze(unit);
+        if (!syntacticErrors.isEmpty()) throw new IllegalStateException(syntacticErrors);
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        Fault fault = analyzer.analyze(unit);
+        if (fault.hasErrors()) throw new IllegalStateException(fault.getErrors());
+        return analyzer.buildMachine();
+    }
+}
@@ -4,10 +4,30 @@ options {
     language = Java;
 }
 
-@members {
+@lexer::members {
+    private boolean recovering = false;
+
+    /**
+     * In recovering mode an invalid symbol is reported to the error listeners of the lexer and
+     * skipped, instead of stopping the lexer on the first one
+     */
+    public void setRecovering(boolean recovering) {
+        this.recovering = recovering;
+    }
+
     public void stop(String msg) {
         throw new ParseCancellationException(msg);
     }
+
+    private void invalidSymbol() {
+        if (!recovering) {
+            stop(getLine() + ": Lexical Error: " + getText() + " - invalid symbol" +
+                    System.lineSeparator());
+        }
+        getErrorListenerDispatch().syntaxError(this, null, _tokenStartLine,
+                _tokenStartCharPositionInLine, getText(), null);
+        skip();
+    }
 }
 
 moore           : 'moore' NAME '{' states input output '}' EOF;
@@ -51,5 +71,4 @@ LETTER          : ('a' .. 'z')
 fragment
 DIGIT           : ('0' .. '9');
 
-ERROR           : . {stop(getLine() + ": Lexical Error: " + getText() + " - invalid symbol" +
-                            System.lineSeparator());};
+ERROR           : . {invalidSymbol();};
@@ -0,0 +1,176 @@
+package Machinuino;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many .moore files on one JVM, spreading the files over a work-stealing pool with one
+ * worker per available core
+ */
+class BatchCompiler {
+
+    private static final String NAME_TAG = "BatchCompiler";
+    private static final String GLOB_CHARACTERS = "*?[{";
+    private final MooreCompiler compiler;
+    private final int parallelism;
+
+    BatchCompiler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    BatchCompiler(int parallelism) {
+        this(parallelism, new MooreCompiler());
+    }
+
+    BatchCompiler(int parallelism, MooreCompiler compiler) {
+        Utils.verifyNullity(NAME_TAG + "#BatchCompiler", "compiler", compiler);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(NAME_TAG + "#BatchCompiler: parallelism must be " +
+                    "positive!");
+        }
+        this.compiler = compiler;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Expands the arguments into the .moore files they refer to. An argument may be a file, a
+     * directory, which is searched recursively, or a glob such as {@code specs/**.moore}
+     *
+     * @param arguments files, directories or globs
+     * @return the .moore files found, in the order of the arguments and without duplicates
+     * @throws IOException if a directory could not be read
+     */
+    static List<String> collectSources(List<String> arguments) throws IOException {
+        Utils.verifyCollectionNullity(NAME_TAG + "#collectSources", "arguments", arguments);
+        Set<String> sources = new LinkedHashSet<>();
+        for (String argument : arguments) {
+            if (isGlob(argument)) {
+                sources.addAll(expandGlob(argument));
+            } else if (Files.isDirectory(Paths.get(argument))) {
+                sources.addAll(walk(Paths.get(argument),
+                        path -> path.toString().endsWith(MooreCompiler.MOORE_EXTENSION)));
+            } else {
+                sources.add(argument);
+            }
+        }
+        return new ArrayList<>(sources);
+    }
+
+    private static boolean isGlob(String argument) {
+        return argument.chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0);
+    }
+
+    private static List<String> expandGlob(String glob) throws IOException {
+        // Walks from the deepest directory free of glob characters
+        int firstGlobCharacter = 0;
+        while (GLOB_CHARACTERS.indexOf(glob.charAt(firstGlobCharacter)) < 0) firstGlobCharacter++;
+        String prefix = glob.substring(0, firstGlobCharacter);
+        int lastSeparator = Math.max(prefix.lastIndexOf('/'), prefix.lastIndexOf(
+                FileSystems.getDefault().getSeparator()));
+        Path base = Paths.get(lastSeparator < 0 ? "" : prefix.substring(0, lastSeparator + 1));
+        if (!Files.isDirectory(base.toAbsolutePath())) return new ArrayList<>();
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        return walk(base, matcher::matches);
+    }
+
+    private static List<String> walk(Path base, PathMatcher matcher) throws IOException {
+        try (Stream<Path> paths = Files.walk(base)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(matcher::matches)
+                    .map(Path::toString)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Compiles every file passed, each file is compiled independently of the others
+     *
+     * @param files paths to .moore files
+     * @return the result of each file, in the same order as {@code files}
+     */
+    List<CompilationResult> compileAll(List<String> files) {
+        Utils.verifyCollectionNullity(NAME_TAG + "#compileAll", "files", files);
+        ExecutorService pool = Executors.newWorkStealingPool(parallelism);
+        try {
+            List<Future<CompilationResult>> futures = new ArrayList<>();
+            for (String file : files) futures.add(pool.submit(() -> compileSafely(file)));
+
+            List<CompilationResult> results = new ArrayList<>();
+            for (Future<CompilationResult> future : futures) results.add(join(future));
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A file the compiler fails on unexpectedly is reported as failed, so the other files of the
+     * batch are still compiled
+     */
+    private CompilationResult compileSafely(String file) {
+        try {
+            return compiler.compile(file);
+        } catch (RuntimeException e) {
+            CompilationResult result = new CompilationResult(file);
+            result.log("Compiling file " + file);
+            result.log("Compilation failed unexpectedly: " + e);
+            return result;
+        }
+    }
+
+    private CompilationResult join(Future<CompilationResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(NAME_TAG + "#compileAll: interrupted!", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(NAME_TAG + "#compileAll: compilation failed " +
+                    "unexpectedly!", e.getCause());
+        }
+    }
+
+    /**
+     * Aggregates the results of a batch into a single report, the report of each file followed
+     * by a summary of the whole batch
+     *
+     * @param results results of {@link #compileAll}
+     * @param nanos wall time spent compiling the batch
+     * @return the report of the batch
+     */
+    static String report(List<CompilationResult> results, long nanos) {
+        String lineSeparator = System.lineSeparator();
+        StringBuilder builder = new StringBuilder();
+        for (CompilationResult result : results) {
+            builder.append(result.getReport()).append(lineSeparator);
+        }
+
+        List<String> failed = results.stream()
+                .filter(result -> !result.succeeded())
+                .map(CompilationResult::getFile)
+                .collect(Collectors.toList());
+        builder.append("Compiled ").append(results.size()).append(" files in ")
+                .append(String.format("%.3f", nanos / 1e6)).append(" ms: ")
+                .append(results.size() - failed.size()).append(" succeeded, ")
+                .append(failed.size()).append(" failed.").append(lineSeparator);
+        for (String file : failed) builder.append(" Failed: ").append(file).append(lineSeparator);
+
+        return builder.toString();
+    }
+}
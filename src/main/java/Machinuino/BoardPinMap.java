@@ -0,0 +1,173 @@
+package Machinuino;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where each pin number of an Arduino board is on the I/O ports of its microcontroller. The maps
+ * are data files on boards/&lt;board&gt;.pins, each line being a pin number, a port letter and a
+ * bit of that port, optionally followed by {@code ext} if the pin has an external interrupt and by
+ * {@code pcint=group.bit} if the pin has a pin change interrupt
+ * Immutable
+ */
+public class BoardPinMap {
+
+    public static final List<String> BOARDS =
+            Collections.unmodifiableList(Arrays.asList("uno", "nano", "mega"));
+    private static final String NAME_TAG = "BoardPinMap";
+    private final String board;
+    private final Map<Integer, Character> ports;
+    private final Map<Integer, Integer> bits;
+    private final Set<Integer> externalInterrupts;
+    // Group of the pin change interrupt times 8 plus the bit of the pin on the group's mask
+    private final Map<Integer, Integer> pinChanges;
+
+    private BoardPinMap(String board, Map<Integer, Character> ports, Map<Integer, Integer> bits,
+                        Set<Integer> externalInterrupts, Map<Integer, Integer> pinChanges) {
+        this.board = board;
+        this.ports = ports;
+        this.bits = bits;
+        this.externalInterrupts = externalInterrupts;
+        this.pinChanges = pinChanges;
+    }
+
+    /**
+     * Reads the pin map of a board
+     *
+     * @param board one of {@link #BOARDS}, case insensitive, can not be null
+     * @return the pin map of the board
+     * @throws IllegalArgumentException if the board is unknown
+     */
+    public static BoardPinMap forBoard(String board) {
+        Utils.verifyNullity(NAME_TAG + "#forBoard", "board", board);
+        String name = board.toLowerCase(Locale.ROOT);
+        if (!BOARDS.contains(name)) {
+            throw new IllegalArgumentException(NAME_TAG + "#forBoard: unknown board " + board +
+                    ", known boards are " + BOARDS);
+        }
+
+        Map<Integer, Character> ports = new HashMap<>();
+        Map<Integer, Integer> bits = new HashMap<>();
+        Set<Integer> externalInterrupts = new HashSet<>();
+        Map<Integer, Integer> pinChanges = new HashMap<>();
+        try (InputStream stream = BoardPinMap.class.getResourceAsStream("boards/" + name + ".pins");
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split("\\s+");
+                int pin = Integer.parseInt(fields[0]);
+                ports.put(pin, fields[1].charAt(0));
+                bits.put(pin, Integer.parseInt(fields[2]));
+                for (int i = 3; i < fields.length; i++) {
+                    if (fields[i].equals("ext")) {
+                        externalInterrupts.add(pin);
+                    } else if (fields[i].startsWith("pcint=")) {
+                        String[] groupAndBit = fields[i].substring("pcint=".length()).split("\\.");
+                        pinChanges.put(pin, Integer.parseInt(groupAndBit[0]) * Byte.SIZE +
+                                Integer.parseInt(groupAndBit[1]));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the pin map of " + name, e);
+        }
+        return new BoardPinMap(name, ports, bits, externalInterrupts, pinChanges);
+    }
+
+    public String getBoard() {
+        return board;
+    }
+
+    public boolean hasPin(int pin) {
+        return ports.containsKey(pin);
+    }
+
+    /**
+     * @return the letter of the port of the pin, as in PORTB
+     * @throws IllegalArgumentException if the pin is not on the board
+     */
+    public char getPort(int pin) {
+        verifyPin("#getPort", pin);
+        return ports.get(pin);
+    }
+
+    /**
+     * @return the bit of the pin on its port
+     * @throws IllegalArgumentException if the pin is not on the board
+     */
+    public int getBit(int pin) {
+        verifyPin("#getBit", pin);
+        return bits.get(pin);
+    }
+
+    /**
+     * @return the mask of the pin on its port
+     * @throws IllegalArgumentException if the pin is not on the board
+     */
+    public int getMask(int pin) {
+        return 1 << getBit(pin);
+    }
+
+    /**
+     * @return true if attachInterrupt can be used on the pin
+     * @throws IllegalArgumentException if the pin is not on the board
+     */
+    public boolean hasExternalInterrupt(int pin) {
+        verifyPin("#hasExternalInterrupt", pin);
+        return externalInterrupts.contains(pin);
+    }
+
+    /**
+     * @return the pin change interrupt group of the pin, as in PCINT0_vect and PCMSK0, or -1 if
+     * the pin has no pin change interrupt
+     * @throws IllegalArgumentException if the pin is not on the board
+     */
+    public int getPinChangeGroup(int pin) {
+        verifyPin("#getPinChangeGroup", pin);
+        Integer pinChange = pinChanges.get(pin);
+        return pinChange == null ? -1 : pinChange / Byte.SIZE;
+    }
+
+    /**
+     * @return the mask of the pin on the mask register of its pin change interrupt group
+     * @throws IllegalArgumentException if the pin is not on the board or has no pin change
+     * interrupt
+     */
+    public int getPinChangeMask(int pin) {
+        if (getPinChangeGroup(pin) < 0) {
+            throw new IllegalArgumentException(NAME_TAG + "#getPinChangeMask: pin " + pin +
+                    " of " + board + " has no pin change interrupt");
+        }
+        return 1 << pinChanges.get(pin) % Byte.SIZE;
+    }
+
+    private void verifyPin(String method, int pin) {
+        if (!hasPin(pin)) {
+            throw new IllegalArgumentException(NAME_TAG + method + ": pin " + pin +
+                    " is not a digital pin of " + board);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BoardPinMap {" +
+                "board='" + board + '\'' +
+                ", pins=" + ports.size() +
+                '}';
+    }
+}
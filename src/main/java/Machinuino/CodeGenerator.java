@@ -2,68 +2,339 @@ package Machinuino;
 
 import Machinuino.model.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class CodeGenerator {
 
-    private static CodeGenerator instance;
     private static final String PIN_START_SYMBOL = "_";
     private static final String STATE_START_SYMBOL = "__";
     private static final int INDENTATION_SPACE = 4;
+    /**
+     * Most input pins besides the clock the sketch samples, the input word being an unsigned long
+     */
+    public static final int MAX_INPUT_BITS = Long.SIZE / 2;
+    private final Backend backend;
+    private final BoardPinMap board;
+    private final ClockMode clockMode;
+    private final Edge edge;
+    private final boolean sleep;
+
+    /**
+     * How the transitions and outputs of the machine are evaluated on the board
+     */
+    public enum Backend {
+        /**
+         * A switch over the current state comparing the sampled inputs against the guard of each
+         * transition in turn, the first transition accepting them is taken
+         */
+        SWITCH,
+        /**
+         * One read of the input pins packed into an index of a transition table on flash, which
+         * takes the same time on every clock edge. Stays on the current state when no transition
+         * accepts the inputs
+         *
+         * @see TransitionTable
+         */
+        TABLE
+    }
+
+    /**
+     * How the sketch waits for the clock
+     */
+    public enum ClockMode {
+        /**
+         * loop() spins reading the clock until the edge
+         */
+        POLLING,
+        /**
+         * An interrupt on the clock samples the inputs on the edge and flags it, loop() runs the
+         * cycle when it finds the flag set. Edges arriving before the previous one was handled
+         * are counted on missedEdges
+         */
+        INTERRUPT
+    }
+
+    /**
+     * The edge of the clock on which the inputs are sampled and the machine steps
+     */
+    public enum Edge {
+        RISING,
+        FALLING
+    }
+
+    /**
+     * Builder for the CodeGenerator, every method of this class will throw
+     * {@link NullPointerException} if null is passed as parameter
+     */
+    public static class Builder {
+
+        private static final String NAME_TAG = "CodeGenerator.Builder";
+        private Backend backend;
+        private BoardPinMap board;
+        private ClockMode clockMode;
+        private Edge edge;
+        private boolean sleep;
+
+        public Builder() {
+            this.backend = Backend.SWITCH;
+            this.board = null;
+            this.clockMode = ClockMode.POLLING;
+            this.edge = Edge.RISING;
+            this.sleep = false;
+        }
+
+        public Builder backend(Backend backend) {
+            Utils.verifyNullity(NAME_TAG + "#backend", "backend", backend);
+            this.backend = backend;
+            return this;
+        }
+
+        /**
+         * Makes the sketch read and write the port registers of the board directly instead of
+         * calling digitalRead, digitalWrite and pinMode, so writing the outputs of a state is at
+         * most one read-modify-write per port. Without a board the sketch runs on any Arduino
+         *
+         * @param board the pin map of the board the sketch is for
+         * @return this builder
+         */
+        public Builder board(BoardPinMap board) {
+            Utils.verifyNullity(NAME_TAG + "#board", "board", board);
+            this.board = board;
+            return this;
+        }
+
+        /**
+         * The {@link ClockMode#INTERRUPT} clock mode needs a board, the pins able to raise an
+         * interrupt depending on it
+         *
+         * @param clockMode how the sketch waits for the clock
+         * @return this builder
+         */
+        public Builder clockMode(ClockMode clockMode) {
+            Utils.verifyNullity(NAME_TAG + "#clockMode", "clockMode", clockMode);
+            this.clockMode = clockMode;
+            return this;
+        }
+
+        public Builder edge(Edge edge) {
+            Utils.verifyNullity(NAME_TAG + "#edge", "edge", edge);
+            this.edge = edge;
+            return this;
+        }
+
+        /**
+         * Makes the board sleep on idle mode between clock edges, which needs the
+         * {@link ClockMode#INTERRUPT} clock mode to wake it up
+         *
+         * @param sleep whether the board sleeps between edges
+         * @return this builder
+         */
+        public Builder sleep(boolean sleep) {
+            this.sleep = sleep;
+            return this;
+        }
+
+        /**
+         * @return a code generator with the options of this builder
+         * @throws IllegalStateException if sleeping between edges without the interrupt clock mode
+         * or if the interrupt clock mode is used without a board
+         */
+        public CodeGenerator build() {
+            if (clockMode == ClockMode.INTERRUPT && board == null) {
+                throw new IllegalStateException(NAME_TAG + "#build: the interrupt clock mode " +
+                        "needs a board");
+            }
+            if (sleep && clockMode != ClockMode.INTERRUPT) {
+                throw new IllegalStateException(NAME_TAG + "#build: sleeping between edges needs " +
+                        "the interrupt clock mode");
+            }
+            return new CodeGenerator(this);
+        }
+    }
 
-    private CodeGenerator() {
+    public CodeGenerator() {
+        this(new Builder());
     }
 
-    public static CodeGenerator getInstance() {
-        if (instance == null) instance = new CodeGenerator();
-        return instance;
+    private CodeGenerator(Builder builder) {
+        this.backend = builder.backend;
+        this.board = builder.board;
+        this.clockMode = builder.clockMode;
+        this.edge = builder.edge;
+        this.sleep = builder.sleep;
     }
 
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return the board whose ports are accessed directly, or null if the sketch is portable
+     */
+    public BoardPinMap getBoard() {
+        return board;
+    }
+
+    public ClockMode getClockMode() {
+        return clockMode;
+    }
+
+    public Edge getEdge() {
+        return edge;
+    }
+
+    public boolean sleepsBetweenEdges() {
+        return sleep;
+    }
+
+    /**
+     * Translates the machine into an Arduino sketch. The input pins other than the clock are
+     * sampled once per clock edge into an input word, bit i being the i-th of them by id, and the
+     * transitions are evaluated on that word only, so every guard of a cycle sees the same inputs.
+     * The machine stays on the current state when no transition accepts the inputs
+     *
+     * @param machine the machine to be translated, can not be null
+     * @return the Arduino sketch running the machine
+     * @throws IllegalArgumentException if the machine has more than {@link #MAX_INPUT_BITS} input
+     * pins besides the clock, if the backend is {@link Backend#TABLE} and the machine has too
+     * many pins to be tabulated, if there is a board and a pin of the machine is not on it or if
+     * the clock can not raise an interrupt on the board
+     */
     public String generateCode(MooreMachine machine) {
+        Utils.verifyNullity("CodeGenerator#generateCode", "machine", machine);
+        List<Pin> inputBits = inputBits(machine);
+        if (board != null) {
+            machine.getInputPins().forEach(pin -> board.getPort(pin.getNumber()));
+            machine.getOutputPins().forEach(pin -> board.getPort(pin.getNumber()));
+        }
+        if (clockMode == ClockMode.INTERRUPT) verifyClockInterrupt(machine);
         String lineSeparator = System.lineSeparator();
-        return definePinsAndState(machine) +
+        if (backend == Backend.TABLE) {
+            TransitionTable table = TransitionTable.ofMachine(machine, clockHigh());
+            return defineIncludes() +
+                    definePinsAndStates(machine, inputBits) +
+                    lineSeparator +
+                    defineTables(table, machine) +
+                    lineSeparator +
+                    defineReadInputsFunction(inputBits) +
+                    lineSeparator +
+                    defineTableTransitionFunction(table, inputBits) +
+                    lineSeparator +
+                    defineTableOutputFunction(table, machine) +
+                    lineSeparator +
+                    defineLogicVariablesAndFunction(machine, inputBits);
+        }
+
+        return defineIncludes() +
+                definePinsAndStates(machine, inputBits) +
                 lineSeparator +
-                defineIsHighFunction() +
+                defineReadInputsFunction(inputBits) +
                 lineSeparator +
-                defineTransitionFunction(machine) +
+                defineTransitionFunction(machine, inputBits) +
                 lineSeparator +
                 defineOutputFunction(machine) +
                 lineSeparator +
-                defineLogicVariablesAndFunction(machine);
+                defineLogicVariablesAndFunction(machine, inputBits);
+    }
+
+    /**
+     * @return the input pins other than the clock, by id, which are the bits of the input word
+     */
+    private static List<Pin> inputBits(MooreMachine machine) {
+        List<Pin> inputBits = InputWord.inputBits(machine);
+        if (inputBits.size() > MAX_INPUT_BITS) {
+            throw new IllegalArgumentException("CodeGenerator#generateCode: " + machine.getName() +
+                    " has " + inputBits.size() + " input pins, at most " + MAX_INPUT_BITS +
+                    " fit on an input word");
+        }
+        return inputBits;
+    }
+
+    private static boolean isWideWord(List<Pin> inputBits) {
+        return inputBits.size() > Integer.SIZE / 2;
+    }
+
+    private static String inputType(List<Pin> inputBits) {
+        return isWideWord(inputBits) ? "unsigned long" : "unsigned int";
     }
 
-    private String definePinsAndState(MooreMachine machine) {
+    private static String inputLiteral(long value, List<Pin> inputBits) {
+        return "0x" + Long.toHexString(value) + (isWideWord(inputBits) ? "UL" : "u");
+    }
+
+    private static String hex(int value) {
+        return "0x" + (value < 0x10 ? "0" : "") + Integer.toHexString(value);
+    }
+
+    /**
+     * @return the mask of the pins on each port of the board, by port letter
+     */
+    private Map<Character, Integer> portMasks(List<Pin> pins) {
+        Map<Character, Integer> masks = new TreeMap<>();
+        for (Pin pin : pins) {
+            masks.merge(board.getPort(pin.getNumber()), board.getMask(pin.getNumber()),
+                    (first, second) -> first | second);
+        }
+        return masks;
+    }
+
+    private static Pin clockPin(MooreMachine machine) {
+        return machine.getInputPins().filter(InputWord::isClock).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("CodeGenerator#generateCode: " +
+                        machine.getName() + " has no clock"));
+    }
+
+    /**
+     * @return the level of the clock right after the edge, when the inputs are sampled
+     */
+    private boolean clockHigh() {
+        return edge == Edge.RISING;
+    }
+
+    private String defineIncludes() {
+        if (!sleep) return "";
+        return "#include <avr/sleep.h>" + System.lineSeparator() + System.lineSeparator();
+    }
+
+    /**
+     * @return a condition holding while the clock is on the level passed
+     */
+    private String clockIs(MooreMachine machine, boolean high) {
+        if (board == null) return "digitalRead(clock) == " + (high ? "HIGH" : "LOW");
+        int number = clockPin(machine).getNumber();
+        String read = "PIN" + board.getPort(number) + " & " + hex(board.getMask(number));
+        return high ? read : "!(" + read + ")";
+    }
+
+    private String definePinsAndStates(MooreMachine machine, List<Pin> inputBits) {
         String lineSeparator = System.lineSeparator();
-        return defineInputPins(machine) +
+        return defineInputPins(machine, inputBits) +
                 lineSeparator +
                 defineOutputPins(machine) +
                 lineSeparator +
                 defineStates(machine);
     }
 
-    private String defineInputPins(MooreMachine machine) {
+    private String defineInputPins(MooreMachine machine, List<Pin> inputBits) {
         StringBuilder builder = new StringBuilder();
         builder.append("/* Input */")
                 .append(System.lineSeparator());
-        Map<Boolean, Set<Pin>> clockPinOrNot = machine.getInputPins()
-                .collect(Collectors.partitioningBy(pin -> pin.getName().equals("clock"),
-                        Collectors.toSet()));
-
-        Optional<Integer> optional = clockPinOrNot.get(Boolean.TRUE).stream()
-                .map(Pin::getNumber)
-                .findFirst();
         // Impossible to get -1 in clockNumber, by construction, MooreMachine always has clock
-        int clockNumber = optional.isPresent() ? optional.get() : -1;
+        int clockNumber = machine.getInputPins()
+                .filter(InputWord::isClock)
+                .mapToInt(Pin::getNumber)
+                .findFirst()
+                .orElse(-1);
         builder.append("const int clock = ")
                 .append(clockNumber)
                 .append(";")
                 .append(System.lineSeparator());
 
-        builder.append(definePins(clockPinOrNot.get(Boolean.FALSE).stream()));
+        builder.append(definePins(inputBits));
 
         return builder.toString();
     }
@@ -71,13 +342,21 @@ public class CodeGenerator {
     private String defineOutputPins(MooreMachine machine) {
         return "/* Output */" +
                 System.lineSeparator() +
-                definePins(machine.getOutputPins());
+                definePins(outputPins(machine));
     }
 
-    private String definePins(Stream<Pin> pinStream) {
+    private static List<Pin> outputPins(MooreMachine machine) {
+        List<Pin> outputPins = new ArrayList<>();
+        for (int id = 0; id < machine.getOutputPinCount(); id++) {
+            outputPins.add(machine.getOutputPinOfId(id));
+        }
+        return outputPins;
+    }
+
+    private String definePins(List<Pin> pins) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
-        for (Pin pin : pinStream.collect(Collectors.toSet())) {
+        for (Pin pin : pins) {
             builder.append("const int ")
                     .append(PIN_START_SYMBOL)
                     .append(pin.getName())
@@ -94,16 +373,14 @@ public class CodeGenerator {
         String lineSeparator = System.lineSeparator();
         builder.append("/* States */")
                 .append(lineSeparator);
-        int i = 0;
-        for (String state : machine.getStates().collect(Collectors.toSet())) {
+        for (int id = 0; id < machine.getStateCount(); id++) {
             builder.append("const int ")
                     .append(STATE_START_SYMBOL)
-                    .append(state)
+                    .append(machine.getStateOfId(id))
                     .append(" = ")
-                    .append(i)
+                    .append(id)
                     .append(";")
                     .append(lineSeparator);
-            i++;
         }
         return builder.toString();
     }
@@ -115,55 +392,91 @@ public class CodeGenerator {
         return builder.toString();
     }
 
-    private String defineIsHighFunction() {
-        return "bool isHigh(int pin) {" + System.lineSeparator() + indent(1) +
-                "return digitalRead(pin) == HIGH ? true : false;" + System.lineSeparator() +
-                "}" + System.lineSeparator();
+    /**
+     * Samples every input pin once, the clock is not sampled as it is high whenever the inputs
+     * are read
+     */
+    private String defineReadInputsFunction(List<Pin> inputBits) {
+        StringBuilder builder = new StringBuilder();
+        String lineSeparator = System.lineSeparator();
+        String type = inputType(inputBits);
+        builder.append(type).append(" readInputs() {").append(lineSeparator);
+        if (board != null) {
+            // Every port is read once, so the pins of a port are sampled at the same time
+            for (char port : portMasks(inputBits).keySet()) {
+                builder.append(indent(1)).append("uint8_t port").append(port).append(" = PIN")
+                        .append(port).append(";").append(lineSeparator);
+            }
+        }
+        builder.append(indent(1)).append(type).append(" inputs = 0;").append(lineSeparator);
+        for (int bit = 0; bit < inputBits.size(); bit++) {
+            Pin pin = inputBits.get(bit);
+            builder.append(indent(1)).append("if (");
+            if (board == null) {
+                builder.append("digitalRead(").append(PIN_START_SYMBOL).append(pin.getName())
+                        .append(") == HIGH");
+            } else {
+                builder.append("port").append(board.getPort(pin.getNumber())).append(" & ")
+                        .append(hex(board.getMask(pin.getNumber())));
+            }
+            builder.append(") inputs |= ").append(inputLiteral(1L << bit, inputBits)).append(";")
+                    .append(lineSeparator);
+        }
+        builder.append(indent(1)).append("return inputs;").append(lineSeparator)
+                .append("}").append(lineSeparator);
+
+        return builder.toString();
     }
 
-    private String defineTransitionFunction(MooreMachine machine) {
+    private String defineTransitionFunction(MooreMachine machine, List<Pin> inputBits) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
-        builder.append("int transition(int current) {").append(lineSeparator)
+        builder.append("int transition(int current, ").append(inputType(inputBits))
+                .append(" inputs) {").append(lineSeparator)
                 .append(indent(1)).append("switch(current) {").append(lineSeparator)
-                .append(defineTransitionsOfEachState(machine))
+                .append(defineTransitionsOfEachState(machine, inputBits))
                 .append(indent(2)).append("default:").append(lineSeparator)
                 .append(indent(3)).append("// Not reachable").append(lineSeparator)
                 .append(indent(3)).append("exit(1);").append(lineSeparator)
                 .append(indent(3)).append("break;").append(lineSeparator)
                 .append(indent(1)).append("}").append(lineSeparator)
+                .append(indent(1)).append("return current;").append(lineSeparator)
                 .append("}").append(lineSeparator);
 
         return builder.toString();
     }
 
-    private String defineTransitionsOfEachState(MooreMachine machine) {
+    private String defineTransitionsOfEachState(MooreMachine machine, List<Pin> inputBits) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
-        for (String state : machine.getStates().collect(Collectors.toSet())) {
+        for (int id = 0; id < machine.getStateCount(); id++) {
             builder.append(indent(2)).append("case ")
                     .append(STATE_START_SYMBOL)
-                    .append(state)
+                    .append(machine.getStateOfId(id))
                     .append(":").append(lineSeparator)
-                    .append(defineEachTransitionOfAState(state, machine))
+                    .append(defineEachTransitionOfAState(id, machine, inputBits))
                     .append(indent(3)).append("break;").append(lineSeparator);
         }
 
         return builder.toString();
     }
 
-    private String defineEachTransitionOfAState(String state, MooreMachine machine) {
+    /**
+     * Each guard becomes a mask of the pins it tests and the value they must have, a transition
+     * testing the clock on the level it does not have after the edge is left out as it can never
+     * be taken
+     */
+    private String defineEachTransitionOfAState(int state, MooreMachine machine,
+                                                List<Pin> inputBits) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
-        Set<Transition> transitions = machine.getTransitions()
-                .filter(transition -> transition.getPreviousState().equals(state))
-                .collect(Collectors.toSet());
-        for (Transition transition : transitions) {
-            builder.append(indent(3)).append("if (");
-            String logicalExpression = transition.getInput().stream()
-                    .map(this::mapBoolPinToIsHigh)
-                    .collect(Collectors.joining(" && "));
-            builder.append(logicalExpression)
+        for (Transition transition : machine.getTransitionsOfState(state)) {
+            Guard guard = InputWord.guardOf(transition, inputBits::indexOf, clockHigh());
+            if (guard == null) continue;
+            builder.append(indent(3)).append("if ((inputs & ")
+                    .append(inputLiteral(guard.getCare(0), inputBits))
+                    .append(") == ")
+                    .append(inputLiteral(guard.getValue(0), inputBits))
                     .append(") return ")
                     .append(STATE_START_SYMBOL)
                     .append(transition.getNextState())
@@ -172,11 +485,6 @@ public class CodeGenerator {
         return builder.toString();
     }
 
-    private String mapBoolPinToIsHigh(BoolPin boolPin) {
-        return (boolPin.isHigh() ? "" : "!") + "isHigh(" + PIN_START_SYMBOL +
-                boolPin.getPin().getName() + ")";
-    }
-
     private String defineOutputFunction(MooreMachine machine) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
@@ -196,88 +504,247 @@ public class CodeGenerator {
     private String defineOutputOfEachState(MooreMachine machine) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
-        for (String state : machine.getStates().collect(Collectors.toSet())) {
+        for (int id = 0; id < machine.getStateCount(); id++) {
             builder.append(indent(2)).append("case ")
                     .append(STATE_START_SYMBOL)
-                    .append(state)
+                    .append(machine.getStateOfId(id))
                     .append(":").append(lineSeparator)
-                    .append(defineOutputOfAState(state, machine))
+                    .append(defineOutputOfAState(id, machine))
                     .append(indent(3)).append("break;").append(lineSeparator);
         }
 
         return builder.toString();
     }
 
-    private String defineOutputOfAState(String state, MooreMachine machine) {
+    /**
+     * Writes every output pin, the ones not on the output of the state are written low
+     */
+    private String defineOutputOfAState(int state, MooreMachine machine) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
-        Set<Output> outputs = machine.getOutputs()
-                .filter(output -> output.getState().equals(state))
-                .collect(Collectors.toSet());
-        for (Output output : outputs) {
-            builder.append(indent(3));
-            Set<Pin> outputPinsOnThisOutput = output.getBoolPins().stream().map(BoolPin::getPin)
-                    .collect(Collectors.toSet());
-            String setOutputPins = Stream.concat(
-                    output.getBoolPins().stream(),
-                    machine.getOutputPins().filter(pin -> !outputPinsOnThisOutput.contains(pin))
-                            .map(pin -> pinToFalseBoolPin(pin, machine))
-            ).map(this::mapBoolPinToOutput)
-                    .collect(Collectors.joining(lineSeparator + indent(3)));
-            builder.append(setOutputPins);
-        }
-        builder.append(lineSeparator);
+        Output output = machine.getOutputOfState(state);
+        if (board != null) {
+            for (Map.Entry<Character, Integer> port : portMasks(outputPins(machine)).entrySet()) {
+                builder.append(indent(3))
+                        .append(writePort(port.getKey(), port.getValue(),
+                                hex(outputValue(output, port.getKey()))))
+                        .append(lineSeparator);
+            }
+            return builder.toString();
+        }
+        for (Pin pin : outputPins(machine)) {
+            BoolPin high = machine.getBoolPinOfValue(pin, true);
+            BoolPin value = output != null && output.getBoolPins().contains(high) ? high :
+                    machine.getBoolPinOfValue(pin, false);
+            builder.append(indent(3))
+                    .append(mapBoolPinToOutput(value))
+                    .append(lineSeparator);
+        }
         return builder.toString();
     }
 
+    /**
+     * @return the bits of the port set high by the output, zero if there is no output
+     */
+    private int outputValue(Output output, char port) {
+        int value = 0;
+        if (output == null) return value;
+        for (BoolPin boolPin : output.getBoolPins()) {
+            int number = boolPin.getPin().getNumber();
+            if (boolPin.isHigh() && board.getPort(number) == port) value |= board.getMask(number);
+        }
+        return value;
+    }
+
+    private static String writePort(char port, int mask, String value) {
+        return "PORT" + port + " = (PORT" + port + " & ~" + hex(mask) + ") | " + value + ";";
+    }
+
     private String mapBoolPinToOutput(BoolPin boolPin) {
         return "digitalWrite(" + PIN_START_SYMBOL + boolPin.getPin().getName() + ", " +
                 (boolPin.isHigh() ? "HIGH" : "LOW") + ");";
     }
 
-    private BoolPin pinToFalseBoolPin(Pin pin, MooreMachine machine) {
-        Optional<BoolPin> optional = machine.getAllPinsValues()
-                .filter(boolPin -> boolPin.getPin().equals(pin))
-                .filter(boolPin -> !boolPin.isHigh())
-                .findFirst();
-        // Impossible to this optional not have a value by construction
-        return optional.isPresent() ? optional.get() : null;
+    private static String stateType(TransitionTable table) {
+        return table.getStateCount() <= 256 ? "uint8_t" : "uint16_t";
+    }
+
+    private static String stateRead(TransitionTable table) {
+        return table.getStateCount() <= 256 ? "pgm_read_byte" : "pgm_read_word";
     }
 
-    private String defineLogicVariablesAndFunction(MooreMachine machine) {
+    private static String outputType(TransitionTable table) {
+        if (table.getOutputCount() <= 8) return "uint8_t";
+        return table.getOutputCount() <= 16 ? "uint16_t" : "uint32_t";
+    }
+
+    private static String outputRead(TransitionTable table) {
+        if (table.getOutputCount() <= 8) return "pgm_read_byte";
+        return table.getOutputCount() <= 16 ? "pgm_read_word" : "pgm_read_dword";
+    }
+
+    private static int sizeOf(String type) {
+        return type.equals("uint8_t") ? 1 : type.equals("uint16_t") ? 2 : 4;
+    }
+
+    private List<Pin> tableOutputPins(TransitionTable table) {
+        List<Pin> outputPins = new ArrayList<>();
+        for (int bit = 0; bit < table.getOutputCount(); bit++) {
+            outputPins.add(table.getOutputPin(bit));
+        }
+        return outputPins;
+    }
+
+    private String defineTables(TransitionTable table, MooreMachine machine) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
-        builder.append("int currentState;").append(lineSeparator)
-                .append(lineSeparator)
-                .append(defineSetupFunction(machine))
+        int flash = table.getStateCount() * table.getWordCount() * sizeOf(stateType(table));
+        Map<Character, Integer> outputPorts = board == null ? null :
+                portMasks(tableOutputPins(table));
+        if (board != null) {
+            flash += table.getStateCount() * outputPorts.size();
+        } else if (table.getOutputCount() > 0) {
+            flash += table.getStateCount() * sizeOf(outputType(table));
+        }
+        builder.append("/* Tables, ").append(flash).append(" bytes of flash */")
+                .append(lineSeparator);
+        if (board == null && table.getOutputCount() > 0) {
+            List<String> outputPins = new ArrayList<>();
+            for (int bit = 0; bit < table.getOutputCount(); bit++) {
+                outputPins.add(PIN_START_SYMBOL + table.getOutputPin(bit).getName());
+            }
+            builder.append("const int outputPins[").append(table.getOutputCount()).append("] = {")
+                    .append(String.join(", ", outputPins)).append("};").append(lineSeparator);
+        }
+
+        builder.append("const ").append(stateType(table)).append(" nextState[")
+                .append(table.getStateCount()).append("][").append(table.getWordCount())
+                .append("] PROGMEM = {").append(lineSeparator);
+        for (int state = 0; state < table.getStateCount(); state++) {
+            builder.append(indent(1)).append("{");
+            for (int word = 0; word < table.getWordCount(); word++) {
+                if (word > 0) builder.append(", ");
+                builder.append(table.getNextOrStay(state, word));
+            }
+            builder.append("},").append(lineSeparator);
+        }
+        builder.append("};").append(lineSeparator);
+
+        if (board != null && !outputPorts.isEmpty()) {
+            // One byte per port, ready to be written on the output bits of the port
+            builder.append("const uint8_t outputTable[").append(table.getStateCount())
+                    .append("][").append(outputPorts.size()).append("] PROGMEM = {")
+                    .append(lineSeparator);
+            for (int state = 0; state < table.getStateCount(); state++) {
+                Output output = machine.getOutputOfState(state);
+                builder.append(indent(1)).append("{");
+                boolean first = true;
+                for (char port : outputPorts.keySet()) {
+                    if (!first) builder.append(", ");
+                    builder.append(hex(outputValue(output, port)));
+                    first = false;
+                }
+                builder.append("},").append(lineSeparator);
+            }
+            builder.append("};").append(lineSeparator);
+        } else if (board == null && table.getOutputCount() > 0) {
+            builder.append("const ").append(outputType(table)).append(" outputTable[")
+                    .append(table.getStateCount()).append("] PROGMEM = {");
+            for (int state = 0; state < table.getStateCount(); state++) {
+                if (state > 0) builder.append(", ");
+                builder.append("0x").append(Integer.toHexString(table.getOutputWord(state)));
+            }
+            builder.append("};").append(lineSeparator);
+        }
+        return builder.toString();
+    }
+
+    private String defineTableTransitionFunction(TransitionTable table, List<Pin> inputBits) {
+        String lineSeparator = System.lineSeparator();
+        return "int transition(int current, " + inputType(inputBits) + " inputs) {" +
+                lineSeparator +
+                indent(1) + "return " + stateRead(table) + "(&nextState[current][inputs]);" +
+                lineSeparator +
+                "}" + lineSeparator;
+    }
+
+    private String defineTableOutputFunction(TransitionTable table, MooreMachine machine) {
+        StringBuilder builder = new StringBuilder();
+        String lineSeparator = System.lineSeparator();
+        builder.append("void output(int current) {").append(lineSeparator);
+        if (board != null) {
+            int column = 0;
+            for (Map.Entry<Character, Integer> port :
+                    portMasks(tableOutputPins(table)).entrySet()) {
+                builder.append(indent(1))
+                        .append(writePort(port.getKey(), port.getValue(),
+                                "pgm_read_byte(&outputTable[current][" + column + "])"))
+                        .append(lineSeparator);
+                column++;
+            }
+        } else if (table.getOutputCount() > 0) {
+            builder.append(indent(1)).append(outputType(table)).append(" outputs = ")
+                    .append(outputRead(table)).append("(&outputTable[current]);")
+                    .append(lineSeparator)
+                    .append(indent(1)).append("for (int i = 0; i < ")
+                    .append(table.getOutputCount()).append("; i++) {").append(lineSeparator)
+                    .append(indent(2))
+                    .append("digitalWrite(outputPins[i], (outputs >> i) & 1 ? HIGH : LOW);")
+                    .append(lineSeparator)
+                    .append(indent(1)).append("}").append(lineSeparator);
+        }
+        builder.append("}").append(lineSeparator);
+
+        return builder.toString();
+    }
+
+    private String defineLogicVariablesAndFunction(MooreMachine machine, List<Pin> inputBits) {
+        StringBuilder builder = new StringBuilder();
+        String lineSeparator = System.lineSeparator();
+        builder.append("int currentState;").append(lineSeparator);
+        if (clockMode == ClockMode.INTERRUPT) {
+            builder.append(defineClockInterrupt(machine, inputBits));
+        }
+        builder.append(lineSeparator)
+                .append(defineSetupFunction(machine, inputBits))
                 .append(lineSeparator)
-                .append(defineLoopFunction());
+                .append(defineLoopFunction(machine, inputBits));
 
         return builder.toString();
     }
 
-    private String defineSetupFunction(MooreMachine machine) {
+    private String defineSetupFunction(MooreMachine machine, List<Pin> inputBits) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
         builder.append("void setup() {").append(lineSeparator)
-                .append(setupInputPins(machine)).append(lineSeparator)
+                .append(setupInputPins(machine, inputBits)).append(lineSeparator)
                 .append(setupOutputPins(machine)).append(lineSeparator)
-                .append(setupInitialConditions(machine))
-                .append("}").append(lineSeparator);
+                .append(setupInitialConditions(machine));
+        if (clockMode == ClockMode.INTERRUPT) {
+            builder.append(lineSeparator).append(setupClockInterrupt(machine));
+        }
+        builder.append("}").append(lineSeparator);
 
         return builder.toString();
     }
 
-    private String setupInputPins(MooreMachine machine) {
+    private String setupInputPins(MooreMachine machine, List<Pin> inputBits) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
-        builder.append(indent(1)).append("/* Input */").append(lineSeparator)
-                .append(indent(1)).append("pinMode(clock, INPUT);").append(lineSeparator)
-                .append(indent(1))
-                .append(machine.getInputPins().filter(pin -> !pin.getName().equals("clock"))
-                        .map(this::setupAInputPin)
-                        .collect(Collectors.joining(lineSeparator + indent(1))))
-                .append(lineSeparator);
+        builder.append(indent(1)).append("/* Input */").append(lineSeparator);
+        if (board != null) {
+            List<Pin> inputPins = new ArrayList<>(inputBits);
+            inputPins.add(clockPin(machine));
+            for (Map.Entry<Character, Integer> port : portMasks(inputPins).entrySet()) {
+                builder.append(indent(1)).append("DDR").append(port.getKey()).append(" &= ~")
+                        .append(hex(port.getValue())).append(";").append(lineSeparator);
+            }
+            return builder.toString();
+        }
+        builder.append(indent(1)).append("pinMode(clock, INPUT);").append(lineSeparator);
+        for (Pin pin : inputBits) {
+            builder.append(indent(1)).append(setupAInputPin(pin)).append(lineSeparator);
+        }
 
         return builder.toString();
     }
@@ -289,11 +756,17 @@ public class CodeGenerator {
     private String setupOutputPins(MooreMachine machine) {
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
-        builder.append(indent(1)).append("/* Output */").append(lineSeparator)
-                .append(indent(1))
-                .append(machine.getOutputPins().map(this::setupAOutputPin)
-                        .collect(Collectors.joining(lineSeparator + indent(1))))
-                .append(lineSeparator);
+        builder.append(indent(1)).append("/* Output */").append(lineSeparator);
+        if (board != null) {
+            for (Map.Entry<Character, Integer> port : portMasks(outputPins(machine)).entrySet()) {
+                builder.append(indent(1)).append("DDR").append(port.getKey()).append(" |= ")
+                        .append(hex(port.getValue())).append(";").append(lineSeparator);
+            }
+            return builder.toString();
+        }
+        for (Pin pin : outputPins(machine)) {
+            builder.append(indent(1)).append(setupAOutputPin(pin)).append(lineSeparator);
+        }
 
         return builder.toString();
     }
@@ -311,20 +784,121 @@ public class CodeGenerator {
                 lineSeparator;
     }
 
-    private String defineLoopFunction() {
+    /**
+     * The variables shared with the interrupt and the function run on each edge, which latches
+     * the inputs before anything else is done
+     */
+    private String defineClockInterrupt(MooreMachine machine, List<Pin> inputBits) {
+        StringBuilder builder = new StringBuilder();
+        String lineSeparator = System.lineSeparator();
+        builder.append("volatile bool clockEdge = false;").append(lineSeparator)
+                .append("volatile ").append(inputType(inputBits)).append(" sampledInputs = 0;")
+                .append(lineSeparator)
+                .append("volatile unsigned long missedEdges = 0;").append(lineSeparator)
+                .append(lineSeparator)
+                .append("void onClock() {").append(lineSeparator)
+                .append(indent(1)).append("if (clockEdge) missedEdges++;").append(lineSeparator)
+                .append(indent(1)).append("sampledInputs = readInputs();").append(lineSeparator)
+                .append(indent(1)).append("clockEdge = true;").append(lineSeparator)
+                .append("}").append(lineSeparator);
+
+        if (!board.hasExternalInterrupt(clockPin(machine).getNumber())) {
+            // A pin change interrupt fires on both edges, the level tells which one it was
+            builder.append(lineSeparator)
+                    .append("ISR(PCINT").append(pinChangeGroup(machine)).append("_vect) {")
+                    .append(lineSeparator)
+                    .append(indent(1)).append("if (").append(clockIs(machine, clockHigh()))
+                    .append(") onClock();").append(lineSeparator)
+                    .append("}").append(lineSeparator);
+        }
+        return builder.toString();
+    }
+
+    private void verifyClockInterrupt(MooreMachine machine) {
+        int clock = clockPin(machine).getNumber();
+        if (!board.hasExternalInterrupt(clock) && board.getPinChangeGroup(clock) < 0) {
+            throw new IllegalArgumentException("CodeGenerator#generateCode: clock pin " + clock +
+                    " of " + board.getBoard() + " can not raise an interrupt");
+        }
+    }
+
+    private int pinChangeGroup(MooreMachine machine) {
+        return board.getPinChangeGroup(clockPin(machine).getNumber());
+    }
+
+    private String setupClockInterrupt(MooreMachine machine) {
+        String lineSeparator = System.lineSeparator();
+        String setup = indent(1) + "/* Clock interrupt */" + lineSeparator;
+        if (!board.hasExternalInterrupt(clockPin(machine).getNumber())) {
+            int group = pinChangeGroup(machine);
+            return setup +
+                    indent(1) + "PCMSK" + group + " |= " +
+                    hex(board.getPinChangeMask(clockPin(machine).getNumber())) + ";" +
+                    lineSeparator +
+                    indent(1) + "PCICR |= " + hex(1 << group) + ";" + lineSeparator;
+        }
+        return setup +
+                indent(1) + "attachInterrupt(digitalPinToInterrupt(clock), onClock, " +
+                edge.name() + ");" + lineSeparator;
+    }
+
+    private String defineLoopFunction(MooreMachine machine, List<Pin> inputBits) {
+        if (clockMode == ClockMode.INTERRUPT) return defineInterruptLoopFunction(inputBits);
+
+        // The inputs are latched right after the edge, before anything else is done
+        boolean high = clockHigh();
         StringBuilder builder = new StringBuilder();
         String lineSeparator = System.lineSeparator();
         builder.append("void loop() {").append(lineSeparator)
-                .append(indent(1)).append("while (digitalRead(clock) == LOW);")
-                .append(lineSeparator).append(lineSeparator)
-                .append(indent(1)).append("currentState = transition(currentState);")
+                .append(indent(1)).append("while (").append(clockIs(machine, !high)).append(");")
+                .append(lineSeparator)
+                .append(indent(1)).append(inputType(inputBits))
+                .append(" inputs = readInputs();").append(lineSeparator)
+                .append(lineSeparator)
+                .append(indent(1)).append("currentState = transition(currentState, inputs);")
                 .append(lineSeparator)
                 .append(indent(1)).append("output(currentState);").append(lineSeparator)
                 .append(lineSeparator)
-                .append(indent(1)).append("while (digitalRead(clock) == HIGH);")
+                .append(indent(1)).append("while (").append(clockIs(machine, high)).append(");")
                 .append(lineSeparator)
                 .append("}").append(lineSeparator);
 
         return builder.toString();
     }
+
+    /**
+     * Takes the inputs latched by the interrupt with interrupts disabled, so the snapshot and the
+     * flag are consumed together. When sleeping, interrupts are enabled right before sleep_cpu,
+     * so an edge can not slip in between the check of the flag and the sleep
+     */
+    private String defineInterruptLoopFunction(List<Pin> inputBits) {
+        StringBuilder builder = new StringBuilder();
+        String lineSeparator = System.lineSeparator();
+        builder.append("void loop() {").append(lineSeparator)
+                .append(indent(1)).append("noInterrupts();").append(lineSeparator)
+                .append(indent(1)).append("if (!clockEdge) {").append(lineSeparator);
+        if (sleep) {
+            builder.append(indent(2)).append("set_sleep_mode(SLEEP_MODE_IDLE);")
+                    .append(lineSeparator)
+                    .append(indent(2)).append("sleep_enable();").append(lineSeparator)
+                    .append(indent(2)).append("interrupts();").append(lineSeparator)
+                    .append(indent(2)).append("sleep_cpu();").append(lineSeparator)
+                    .append(indent(2)).append("sleep_disable();").append(lineSeparator);
+        } else {
+            builder.append(indent(2)).append("interrupts();").append(lineSeparator);
+        }
+        builder.append(indent(2)).append("return;").append(lineSeparator)
+                .append(indent(1)).append("}").append(lineSeparator)
+                .append(indent(1)).append(inputType(inputBits))
+                .append(" inputs = sampledInputs;").append(lineSeparator)
+                .append(indent(1)).append("clockEdge = false;").append(lineSeparator)
+                .append(indent(1)).append("interrupts();").append(lineSeparator)
+                .append(lineSeparator)
+                .append(indent(1)).append("currentState = transition(currentState, inputs);")
+                .append(lineSeparator)
+                .append(indent(1)).append("output(currentState);").append(lineSeparator)
+                .append("}").append(lineSeparator);
+
+        return builder.toString();
+    }
 }
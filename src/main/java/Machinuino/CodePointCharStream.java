@@ -0,0 +1,304 @@
+package Machinuino;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CharStream} of code points, each symbol of the lexer being a whole code point even out
+ * of the basic plane. Files are memory mapped instead of read, and a source whose bytes are all
+ * ASCII, as .moore sources usually are, is lexed straight from its bytes without being copied.
+ * Other UTF-8 sources are decoded once into an array of code points, malformed bytes becoming
+ * U+FFFD, and sources on any other charset go through its decoder
+ */
+final class CodePointCharStream implements CharStream {
+
+    private static final String NAME_TAG = "CodePointCharStream";
+    private static final int REPLACEMENT = 0xFFFD;
+    private final String sourceName;
+    // Exactly one of them is set, the bytes when each byte is a code point
+    private final ByteBuffer bytes;
+    private final int[] codePoints;
+    private final int size;
+    private int index;
+
+    private CodePointCharStream(String sourceName, ByteBuffer bytes, int[] codePoints) {
+        this.sourceName = sourceName;
+        this.bytes = bytes;
+        this.codePoints = codePoints;
+        this.size = bytes != null ? bytes.remaining() : codePoints.length;
+        this.index = 0;
+    }
+
+    /**
+     * Maps a UTF-8 file into memory
+     *
+     * @see #fromFile(Path, Charset)
+     */
+    static CodePointCharStream fromFile(Path file) throws IOException {
+        return fromFile(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maps a file into memory, the file must not change while the stream is used
+     *
+     * @param file the file to be read, can not be null
+     * @param charset the encoding of the file, can not be null
+     * @return a stream over the code points of the file, named after it
+     * @throws IOException if the file could not be read or is larger than 2 GB
+     */
+    static CodePointCharStream fromFile(Path file, Charset charset) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#fromFile", "file", file);
+        Utils.verifyNullity(NAME_TAG + "#fromFile", "charset", charset);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(file + " has " + length + " bytes, more than can be mapped");
+            }
+            // The mapping outlives the channel
+            return fromBytes(file.toString(),
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, length), charset);
+        }
+    }
+
+    /**
+     * Reads a stream to its end, such as the standard input, the stream is not closed
+     *
+     * @param sourceName name used to refer to the source, can not be null
+     * @param stream the source, can not be null
+     * @param charset the encoding of the source, can not be null
+     * @return a stream over the code points of the source
+     * @throws IOException if the stream could not be read
+     */
+    static CodePointCharStream fromStream(String sourceName, InputStream stream, Charset charset)
+            throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#fromStream", "stream", stream);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1 << 16];
+        int read;
+        while ((read = stream.read(chunk)) != -1) buffer.write(chunk, 0, read);
+        return fromBytes(sourceName, ByteBuffer.wrap(buffer.toByteArray()), charset);
+    }
+
+    /**
+     * @param sourceName name used to refer to the source, can not be null
+     * @param source the source, can not be null
+     * @return a stream over the code points of the source
+     */
+    static CodePointCharStream fromString(String sourceName, String source) {
+        Utils.verifyNullity(NAME_TAG + "#fromString", "sourceName", sourceName);
+        Utils.verifyNullity(NAME_TAG + "#fromString", "source", source);
+        return new CodePointCharStream(sourceName, null, source.codePoints().toArray());
+    }
+
+    /**
+     * Wraps or decodes the bytes of a source, a UTF-8 byte order mark is skipped
+     *
+     * @param sourceName name used to refer to the source, can not be null
+     * @param bytes the bytes between the position and the limit of the buffer, which must not
+     *              change while the stream is used, can not be null
+     * @param charset the encoding of the bytes, can not be null
+     * @return a stream over the code points of the source
+     */
+    static CodePointCharStream fromBytes(String sourceName, ByteBuffer bytes, Charset charset) {
+        Utils.verifyNullity(NAME_TAG + "#fromBytes", "sourceName", sourceName);
+        Utils.verifyNullity(NAME_TAG + "#fromBytes", "bytes", bytes);
+        Utils.verifyNullity(NAME_TAG + "#fromBytes", "charset", charset);
+        ByteBuffer source = bytes.slice();
+
+        if (charset.equals(StandardCharsets.ISO_8859_1)) {
+            return new CodePointCharStream(sourceName, source, null);
+        }
+        if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)) {
+            // Malformed and unmappable input is replaced
+            CharBuffer chars = charset.decode(source);
+            return new CodePointCharStream(sourceName, null,
+                    chars.toString().codePoints().toArray());
+        }
+
+        if (charset.equals(StandardCharsets.UTF_8) && source.remaining() >= 3 &&
+                source.get(0) == (byte) 0xEF && source.get(1) == (byte) 0xBB &&
+                source.get(2) == (byte) 0xBF) {
+            source.position(3);
+            source = source.slice();
+        }
+        if (isAscii(source)) return new CodePointCharStream(sourceName, source, null);
+        if (charset.equals(StandardCharsets.US_ASCII)) {
+            int[] codePoints = new int[source.remaining()];
+            for (int i = 0; i < codePoints.length; i++) {
+                int b = source.get(i);
+                codePoints[i] = b >= 0 ? b : REPLACEMENT;
+            }
+            return new CodePointCharStream(sourceName, null, codePoints);
+        }
+
+        // Counted first so the code points are decoded straight into an array of the right size
+        int count = 0;
+        for (int i = 0; i < source.limit(); i += decode(source, i, null, 0)) count++;
+        int[] codePoints = new int[count];
+        for (int i = 0, j = 0; i < source.limit(); j++) i += decode(source, i, codePoints, j);
+        return new CodePointCharStream(sourceName, null, codePoints);
+    }
+
+    private static boolean isAscii(ByteBuffer source) {
+        int limit = source.limit();
+        int i = 0;
+        // Eight bytes at a time, their sign bits tell whether any of them is out of ASCII
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            if ((source.getLong(i) & 0x8080808080808080L) != 0) return false;
+        }
+        for (; i < limit; i++) {
+            if (source.get(i) < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the UTF-8 sequence starting on {@code position}, a sequence that is malformed,
+     * overlong or a surrogate is read as a single byte of U+FFFD
+     *
+     * @param out where the code point is stored on {@code outIndex}, nothing is stored if null
+     * @return the number of bytes of the sequence
+     */
+    private static int decode(ByteBuffer source, int position, int[] out, int outIndex) {
+        int lead = source.get(position) & 0xFF;
+        int length;
+        int codePoint;
+        int min;
+        if (lead < 0x80) {
+            length = 1;
+            codePoint = lead;
+            min = 0;
+        } else if (lead >= 0xC2 && lead <= 0xDF) {
+            length = 2;
+            codePoint = lead & 0x1F;
+            min = 0x80;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            length = 3;
+            codePoint = lead & 0x0F;
+            min = 0x800;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            length = 4;
+            codePoint = lead & 0x07;
+            min = 0x10000;
+        } else {
+            length = 0;
+            codePoint = REPLACEMENT;
+            min = 0;
+        }
+
+        if (length > 1 && position + length <= source.limit()) {
+            for (int i = 1; i < length; i++) {
+                int continuation = source.get(position + i) & 0xFF;
+                if ((continuation & 0xC0) != 0x80) {
+                    length = 0;
+                    break;
+                }
+                codePoint = codePoint << 6 | continuation & 0x3F;
+            }
+            if (length > 1 && (codePoint < min || codePoint > Character.MAX_CODE_POINT ||
+                    codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                length = 0;
+            }
+        } else if (length > 1) {
+            length = 0;
+        }
+
+        if (length == 0) {
+            length = 1;
+            codePoint = REPLACEMENT;
+        }
+        if (out != null) out[outIndex] = codePoint;
+        return length;
+    }
+
+    /**
+     * @return whether the source is lexed straight from its bytes
+     */
+    boolean isByteBacked() {
+        return bytes != null;
+    }
+
+    private int codePointAt(int i) {
+        return bytes != null ? bytes.get(i) & 0xFF : codePoints[i];
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(interval.a, 0);
+        int stop = Math.min(interval.b, size - 1);
+        if (start > stop) return "";
+        if (codePoints != null) return new String(codePoints, start, stop - start + 1);
+        char[] chars = new char[stop - start + 1];
+        for (int i = 0; i < chars.length; i++) chars[i] = (char) (bytes.get(start + i) & 0xFF);
+        return new String(chars);
+    }
+
+    @Override
+    public void consume() {
+        if (index >= size) throw new IllegalStateException("cannot consume EOF");
+        index++;
+    }
+
+    /**
+     * The lexers of ANTLR 4.5 only match symbols of the basic plane, so code points out of it are
+     * seen as U+FFFD, which the lexer takes as a single invalid symbol, while the text of the
+     * tokens still has the code point
+     */
+    @Override
+    public int LA(int i) {
+        if (i == 0) return 0; // Undefined
+        int position = i > 0 ? index + i - 1 : index + i;
+        if (position < 0 || position >= size) return IntStream.EOF;
+        int codePoint = codePointAt(position);
+        return codePoint > Character.MAX_VALUE ? REPLACEMENT : codePoint;
+    }
+
+    /**
+     * The whole source is in memory, so there is nothing to be kept by a mark
+     */
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        this.index = Math.max(0, Math.min(index, size));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+}
@@ -0,0 +1,109 @@
+package Machinuino;
+
+import Machinuino.model.Fault;
+import Machinuino.model.MooreMachine;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of compiling a single .moore file: the diagnostics found, the time spent on each phase
+ * and a human readable report of the compilation
+ */
+class CompilationResult {
+
+    private final String file;
+    private final StringBuilder report;
+    private final Map<String, Long> phaseNanos;
+    private String syntacticErrors;
+    private Fault fault;
+    private MooreMachine machine;
+    private boolean succeeded;
+
+    CompilationResult(String file) {
+        this.file = file;
+        this.report = new StringBuilder();
+        this.phaseNanos = new LinkedHashMap<>();
+        this.syntacticErrors = "";
+        this.succeeded = false;
+    }
+
+    String getFile() {
+        return file;
+    }
+
+    boolean succeeded() {
+        return succeeded;
+    }
+
+    /**
+     * @return the syntactic errors of the file, an empty String if there is none
+     */
+    String getSyntacticErrors() {
+        return syntacticErrors;
+    }
+
+    /**
+     * @return the semantic faults of the file, null if the semantic analysis did not run
+     */
+    Fault getFault() {
+        return fault;
+    }
+
+    /**
+     * @return the machine the files were generated from, null if the compilation failed before
+     * generating them
+     */
+    MooreMachine getMachine() {
+        return machine;
+    }
+
+    /**
+     * @return the time spent on each phase, in nanoseconds, in the order the phases ran
+     */
+    Map<String, Long> getPhaseNanos() {
+        return Collections.unmodifiableMap(phaseNanos);
+    }
+
+    String getReport() {
+        return report.toString();
+    }
+
+    void log(String line) {
+        report.append(line).append(System.lineSeparator());
+    }
+
+    void recordPhase(String phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    void setSyntacticErrors(String syntacticErrors) {
+        this.syntacticErrors = syntacticErrors;
+    }
+
+    void setFault(Fault fault) {
+        this.fault = fault;
+    }
+
+    void setMachine(MooreMachine machine) {
+        this.machine = machine;
+    }
+
+    void setSucceeded(boolean succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    /**
+     * @return the phase timings formatted on a single line, in milliseconds
+     */
+    String formatTimings() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+            if (builder.length() > 0) builder.append(", ");
+            builder.append(phase.getKey()).append(" ")
+                    .append(String.format("%.3f", phase.getValue() / 1e6)).append(" ms");
+        }
+        return builder.toString();
+    }
+}
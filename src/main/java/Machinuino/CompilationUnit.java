@@ -0,0 +1,121 @@
+package Machinuino;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * A single .moore source lexed and parsed exactly once, the parse tree is shared by every phase of
+ * the compiler so the file is never read or parsed twice
+ */
+class CompilationUnit {
+
+    private static final String NAME_TAG = "CompilationUnit";
+    private final String sourceName;
+    private final CharStream input;
+    private MachinuinoParser.MooreContext tree;
+
+    private CompilationUnit(String sourceName, CharStream input) {
+        this.sourceName = sourceName;
+        this.input = input;
+    }
+
+    /**
+     * Creates a compilation unit of the file on {@code fileLocation}, which is memory mapped
+     * and decoded as UTF-8 only once, here
+     *
+     * @param fileLocation path to the .moore file, can not be null
+     * @return a compilation unit of the file, not parsed yet
+     * @throws IOException if the file could not be read
+     * @see CodePointCharStream#fromFile
+     */
+    static CompilationUnit fromFile(String fileLocation) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#fromFile", "fileLocation", fileLocation);
+        return new CompilationUnit(fileLocation,
+                CodePointCharStream.fromFile(Paths.get(fileLocation)));
+    }
+
+    /**
+     * Creates a compilation unit reading a UTF-8 source from a stream to its end, such as the
+     * standard input
+     *
+     * @param sourceName name used to refer to the source, can not be null
+     * @param stream the source, it is not closed, can not be null
+     * @return a compilation unit of the source, not parsed yet
+     * @throws IOException if the stream could not be read
+     */
+    static CompilationUnit fromStream(String sourceName, InputStream stream) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#fromStream", "sourceName", sourceName);
+        Utils.verifyNullity(NAME_TAG + "#fromStream", "stream", stream);
+        return new CompilationUnit(sourceName,
+                CodePointCharStream.fromStream(sourceName, stream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a compilation unit of a source already in memory
+     *
+     * @param sourceName name used to refer to the source, can not be null
+     * @param source the contents of a .moore file, can not be null
+     * @return a compilation unit of the source, not parsed yet
+     */
+    static CompilationUnit fromString(String sourceName, String source) {
+        Utils.verifyNullity(NAME_TAG + "#fromString", "sourceName", sourceName);
+        Utils.verifyNullity(NAME_TAG + "#fromString", "source", source);
+        return new CompilationUnit(sourceName, CodePointCharStream.fromString(sourceName, source));
+    }
+
+    String getSourceName() {
+        return sourceName;
+    }
+
+    CharStream getInput() {
+        return input;
+    }
+
+    boolean isParsed() {
+        return tree != null;
+    }
+
+    /**
+     * Parses the unit if it has not been parsed yet, printing the syntactic errors to the
+     * standard error, subsequent calls return the same tree
+     *
+     * @return the root of the parse tree
+     */
+    MachinuinoParser.MooreContext parse() {
+        return parse(ConsoleErrorListener.INSTANCE);
+    }
+
+    /**
+     * Parses the unit if it has not been parsed yet with the parser of the calling thread,
+     * subsequent calls return the same tree and ignore the listener
+     *
+     * @param listener listener of the syntactic errors, can not be null
+     * @return the root of the parse tree
+     * @see TwoStageParser
+     */
+    MachinuinoParser.MooreContext parse(ANTLRErrorListener listener) {
+        return parse(listener, false);
+    }
+
+    /**
+     * Parses the unit if it has not been parsed yet, subsequent calls return the same tree
+     *
+     * @param listener listener of the syntactic errors, can not be null
+     * @param recovering whether the invalid symbols are also told to the listener and skipped
+     *                   instead of stopping the parse
+     * @return the root of the parse tree
+     * @see TwoStageParser#parse(CharStream, ANTLRErrorListener, boolean)
+     */
+    MachinuinoParser.MooreContext parse(ANTLRErrorListener listener, boolean recovering) {
+        if (tree == null) {
+            tree = TwoStageParser.forCurrentThread().parse(input, listener, recovering);
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,80 @@
+package Machinuino;
+
+import Machinuino.model.Fault;
+import Machinuino.model.Guard;
+import Machinuino.model.InputWord;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the inputs on which a state has no transition, on which the sketch stays on the state.
+ * The inputs not covered are the complement of the union of the guards of the state, kept as a
+ * list of disjoint guards which is cut by each guard in turn, so the work grows with the guards
+ * and not with the 2^n valuations of the pins
+ */
+public class CoverageAnalyzer {
+
+    private static final String NAME_TAG = "CoverageAnalyzer";
+
+    public CoverageAnalyzer() {
+    }
+
+    /**
+     * @param machine a machine, can not be null
+     * @param state id of a state of the machine
+     * @param clockHigh the level of the clock when the inputs are sampled, transitions requiring
+     *                  the other level are never taken
+     * @return disjoint guards over the input pin ids of the machine, the clock left out, whose
+     * union is the set of inputs no transition of the state accepts
+     */
+    public List<Guard> uncoveredInputs(MooreMachine machine, int state, boolean clockHigh) {
+        Utils.verifyNullity(NAME_TAG + "#uncoveredInputs", "machine", machine);
+        List<Guard> uncovered = Collections.singletonList(
+                Guard.ofValue(Collections.emptySet(), machine::getInputPinId));
+        for (Transition transition : machine.getTransitionsOfState(state)) {
+            Guard guard = InputWord.guardOf(transition, machine::getInputPinId, clockHigh);
+            if (guard == null) continue;
+
+            List<Guard> remaining = new ArrayList<>();
+            for (Guard cube : uncovered) remaining.addAll(cube.minus(guard));
+            uncovered = remaining;
+            if (uncovered.isEmpty()) break;
+        }
+        return uncovered;
+    }
+
+    /**
+     * Warns on the fault passed about every state with inputs not covered by its transitions
+     *
+     * @param machine a machine, can not be null
+     * @param fault where the states are reported, can not be null
+     * @param clockHigh the level of the clock when the inputs are sampled
+     */
+    public void reportUncoveredInputs(MooreMachine machine, Fault fault, boolean clockHigh) {
+        Utils.verifyNullity(NAME_TAG + "#reportUncoveredInputs", "machine", machine);
+        Utils.verifyNullity(NAME_TAG + "#reportUncoveredInputs", "fault", fault);
+        for (int state = 0; state < machine.getStateCount(); state++) {
+            List<Guard> uncovered = uncoveredInputs(machine, state, clockHigh);
+            if (uncovered.isEmpty()) continue;
+
+            List<String> inputs = new ArrayList<>();
+            for (Guard guard : uncovered) inputs.add(describe(guard, machine));
+            fault.addWarningUncoveredInputs(machine.getStateOfId(state), inputs);
+        }
+    }
+
+    private static String describe(Guard guard, MooreMachine machine) {
+        List<String> pins = new ArrayList<>();
+        for (int id = 0; id < machine.getInputPinCount(); id++) {
+            if (!guard.tests(id)) continue;
+            Pin pin = machine.getInputPinOfId(id);
+            pins.add((guard.requiresHigh(id) ? "" : "!") + pin.getName());
+        }
+        return pins.isEmpty() ? "any input" : String.join(" & ", pins);
+    }
+}
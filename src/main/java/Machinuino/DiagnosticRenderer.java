@@ -0,0 +1,207 @@
+package Machinuino;
+
+import Machinuino.model.Diagnostic;
+import Machinuino.model.Fault;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the diagnostics of compilations as JSON or as a SARIF 2.1.0 log, for tools reading them
+ * instead of people. The documents are streamed to the output diagnostic by diagnostic, nothing
+ * is built in memory
+ */
+public final class DiagnosticRenderer {
+
+    private static final String NAME_TAG = "DiagnosticRenderer";
+    private static final String TOOL_NAME = "Machinuino";
+    private static final String SARIF_SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+
+    private DiagnosticRenderer() {
+    }
+
+    /**
+     * Writes the diagnostics of a file as {@code {"source": ..., "diagnostics": [...]}}, each
+     * diagnostic with its code, severity, line, column, start and stop index, message and
+     * arguments. A missing line or column is written as 0, a missing index as -1
+     *
+     * @param sourceName name of the file the diagnostics are about, can not be null
+     * @param fault the diagnostics, can not be null
+     * @param out where the document is written, can not be null
+     * @throws IOException if the output could not be written
+     */
+    public static void writeJson(String sourceName, Fault fault, Appendable out)
+            throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#writeJson", "sourceName", sourceName);
+        Utils.verifyNullity(NAME_TAG + "#writeJson", "fault", fault);
+        Utils.verifyNullity(NAME_TAG + "#writeJson", "out", out);
+
+        out.append("{\"source\":");
+        string(sourceName, out);
+        out.append(",\"diagnostics\":[");
+        boolean first = true;
+        for (Iterator<Diagnostic> it = fault.getDiagnostics().iterator(); it.hasNext(); ) {
+            Diagnostic diagnostic = it.next();
+            if (!first) out.append(',');
+            first = false;
+            out.append("{\"code\":\"").append(diagnostic.getCode().name())
+                    .append("\",\"severity\":\"").append(level(diagnostic))
+                    .append("\",\"line\":").append(Integer.toString(diagnostic.getLine()))
+                    .append(",\"column\":").append(Integer.toString(diagnostic.getColumn()))
+                    .append(",\"startIndex\":")
+                    .append(Integer.toString(diagnostic.getStartIndex()))
+                    .append(",\"stopIndex\":").append(Integer.toString(diagnostic.getStopIndex()))
+                    .append(",\"message\":");
+            string(diagnostic.getMessage(), out);
+            out.append(",\"args\":[");
+            boolean firstArg = true;
+            for (String arg : diagnostic.getArgs()) {
+                if (!firstArg) out.append(',');
+                firstArg = false;
+                string(arg, out);
+            }
+            out.append("]}");
+        }
+        out.append("]}");
+    }
+
+    /**
+     * @see #writeJson(String, Fault, Appendable)
+     */
+    public static String toJson(String sourceName, Fault fault) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            writeJson(sourceName, fault, builder);
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes a SARIF log with a single run over every file, the codes found being the rules of
+     * the tool. A diagnostic without line has no region, the region of a diagnostic on a token
+     * also covers the characters of the token
+     *
+     * @param faults the diagnostics of each file, by file name, written in the iteration order of
+     *               the map, can not be null neither any of its keys or values
+     * @param out where the log is written, can not be null
+     * @throws IOException if the output could not be written
+     */
+    public static void writeSarif(Map<String, Fault> faults, Appendable out) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#writeSarif", "faults", faults);
+        Utils.verifyCollectionNullity(NAME_TAG + "#writeSarif", "sources", faults.keySet());
+        Utils.verifyCollectionNullity(NAME_TAG + "#writeSarif", "faults", faults.values());
+        Utils.verifyNullity(NAME_TAG + "#writeSarif", "out", out);
+
+        Set<Diagnostic.Code> codes = EnumSet.noneOf(Diagnostic.Code.class);
+        for (Fault fault : faults.values()) {
+            fault.getDiagnostics().forEach(diagnostic -> codes.add(diagnostic.getCode()));
+        }
+
+        out.append("{\"$schema\":\"").append(SARIF_SCHEMA).append("\",\"version\":\"2.1.0\",")
+                .append("\"runs\":[{\"tool\":{\"driver\":{\"name\":\"").append(TOOL_NAME)
+                .append("\",\"rules\":[");
+        boolean first = true;
+        for (Diagnostic.Code code : codes) {
+            if (!first) out.append(',');
+            first = false;
+            out.append("{\"id\":\"").append(code.name()).append("\"}");
+        }
+        out.append("]}},\"results\":[");
+
+        first = true;
+        for (Map.Entry<String, Fault> entry : faults.entrySet()) {
+            for (Iterator<Diagnostic> it = entry.getValue().getDiagnostics().iterator();
+                 it.hasNext(); ) {
+                if (!first) out.append(',');
+                first = false;
+                sarifResult(entry.getKey(), it.next(), out);
+            }
+        }
+        out.append("]}]}");
+    }
+
+    /**
+     * @see #writeSarif(Map, Appendable)
+     */
+    public static String toSarif(Map<String, Fault> faults) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            writeSarif(faults, builder);
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    private static void sarifResult(String sourceName, Diagnostic diagnostic, Appendable out)
+            throws IOException {
+        out.append("{\"ruleId\":\"").append(diagnostic.getCode().name())
+                .append("\",\"level\":\"").append(level(diagnostic))
+                .append("\",\"message\":{\"text\":");
+        string(diagnostic.getMessage(), out);
+        out.append("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+        string(sourceName, out);
+        out.append('}');
+        if (diagnostic.getLine() != Diagnostic.NO_POSITION) {
+            out.append(",\"region\":{\"startLine\":")
+                    .append(Integer.toString(diagnostic.getLine()));
+            if (diagnostic.getColumn() != Diagnostic.NO_POSITION) {
+                out.append(",\"startColumn\":").append(Integer.toString(diagnostic.getColumn()));
+            }
+            int start = diagnostic.getStartIndex();
+            int stop = diagnostic.getStopIndex();
+            if (start != Diagnostic.NO_INDEX && stop >= start) {
+                out.append(",\"charOffset\":").append(Integer.toString(start))
+                        .append(",\"charLength\":").append(Integer.toString(stop - start + 1));
+            }
+            out.append('}');
+        }
+        out.append("}}]}");
+    }
+
+    private static String level(Diagnostic diagnostic) {
+        return diagnostic.getSeverity() == Diagnostic.Severity.ERROR ? "error" : "warning";
+    }
+
+    /**
+     * Writes {@code value} as a JSON string, quoted and escaped
+     */
+    private static void string(String value, Appendable out) throws IOException {
+        out.append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            out.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    out.append(String.format("\\u%04x", (int) c));
+            }
+        }
+        out.append(value, start, value.length()).append('"');
+    }
+}
@@ -9,16 +9,10 @@ import java.util.stream.Collectors;
 
 public class DotGenerator {
 
-    private static DotGenerator instance;
     private static final String LS = System.lineSeparator();
     private static final int INDENTATION_SPACE = 4;
 
-    public static DotGenerator getInstance() {
-        if (instance == null) instance = new DotGenerator();
-        return instance;
-    }
-
-    private void DotGenerator() {
+    public DotGenerator() {
     }
 
     private String indent(int numberOfTabs) {
@@ -47,9 +41,9 @@ public class DotGenerator {
 
         for (Transition trans : machine.getTransitions().collect(Collectors.toSet())) {
             sb.append(indent(1))
-                    .append(outputToGv(getOutputOfState(machine, trans.getPreviousState())))
+                    .append(nodeOfState(machine, trans.getPreviousState()))
                     .append(" -> ")
-                    .append(outputToGv(getOutputOfState(machine, trans.getNextState())))
+                    .append(nodeOfState(machine, trans.getNextState()))
                     .append("[ label = ").append(transitionToGv(trans)).append("]")
                     .append(LS);
         }
@@ -57,10 +51,13 @@ public class DotGenerator {
         return sb.toString();
     }
 
-    private Output getOutputOfState(MooreMachine machine, String state) {
-        return machine.getOutputs()
-                .filter(output -> output.getState().equals(state))
-                .collect(Collectors.toList()).get(0);
+    /**
+     * The node of a state, labelled with its output, or with the bare state name if the state has
+     * no output
+     */
+    private String nodeOfState(MooreMachine machine, String state) {
+        Output output = machine.getOutputOfState(machine.getStateId(state));
+        return output == null ? "\"" + state + "\"" : outputToGv(output);
     }
 
     String generateImage(MooreMachine machine) {
@@ -69,13 +66,16 @@ public class DotGenerator {
         sb.append("digraph ").append(machine.getName()).append(" {").append(LS)
                 .append(indent(1)).append("node [shape = circle];").append(LS)
                 .append(indent(1)).append("rankdir = \"LR\";").append(LS)
-                .append(LS)
-                .append(indent(1)).append("x [style = invis]").append(LS)
-                .append(indent(1)).append("x -> ")
-                .append(outputToGv(getOutputOfState(machine, machine.getInitialState())))
-                .append(";").append(LS)
-                .append(LS)
-                .append(generateTransitionsImage(machine))
+                .append(LS);
+        // A machine without states has no initial state to point to
+        if (machine.getStateCount() > 0) {
+            sb.append(indent(1)).append("x [style = invis]").append(LS)
+                    .append(indent(1)).append("x -> ")
+                    .append(nodeOfState(machine, machine.getInitialState()))
+                    .append(";").append(LS)
+                    .append(LS);
+        }
+        sb.append(generateTransitionsImage(machine))
                 .append("}").append(LS);
 
         return sb.toString();
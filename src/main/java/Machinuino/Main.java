@@ -1,102 +1,264 @@
 package Machinuino;
 
-import Machinuino.model.Fault;
 import Machinuino.model.MooreMachine;
+import Machinuino.model.TransitionTable;
+import Machinuino.sim.BatchReplay;
+import Machinuino.sim.BatchSimulator;
+import Machinuino.sim.BytecodeCompiler;
+import Machinuino.sim.CompiledMachine;
+import Machinuino.sim.Simulator;
+import Machinuino.sim.TraceFiles;
+import Machinuino.sim.TraceReplay;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 public class Main {
-    private static final String mooreExtension = ".moore";
+    private static final String BATCH_FLAG = "--batch";
+    private static final String BACKEND_OPTION = "--backend=";
+    private static final String BOARD_OPTION = "--board=";
+    private static final String CLOCK_OPTION = "--clock=";
+    private static final String EDGE_OPTION = "--edge=";
+    private static final String SLEEP_FLAG = "--sleep";
+    private static final String MINIMIZE_FLAG = "--minimize";
+    private static final String KEEP_UNREACHABLE_FLAG = "--keep-unreachable";
+    private static final String TRACE_OPTION = "--trace=";
+    private static final String OUTPUTS_SUFFIX = ".outputs.csv";
+    private static final String EXECUTOR_OPTION = "--executor=";
+    private static final String MAX_ERRORS_OPTION = "--max-errors=";
+
+    /**
+     * How a trace is replayed on the host
+     */
+    private enum Executor {
+        TABLE,
+        BYTECODE
+    }
 
     public static void main(String[] args) {
-        if (args.length != 1) {
-            throw new IllegalArgumentException("Incorrect Usage. Instructions:" + System.lineSeparator() +
-                    "java -jar package.jar mooreMachine.moore");
+        List<String> arguments = new ArrayList<>();
+        CodeGenerator.Builder generator = new CodeGenerator.Builder();
+        boolean batch = false;
+        boolean minimize = false;
+        boolean pruneUnreachable = true;
+        List<Path> traces = new ArrayList<>();
+        Executor executor = Executor.TABLE;
+        int maxErrors = 1;
+        for (String arg : args) {
+            if (arg.equals(BATCH_FLAG)) {
+                batch = true;
+            } else if (arg.startsWith(BACKEND_OPTION)) {
+                generator.backend(parseOption(CodeGenerator.Backend.class, "backend",
+                        arg.substring(BACKEND_OPTION.length())));
+            } else if (arg.startsWith(BOARD_OPTION)) {
+                generator.board(BoardPinMap.forBoard(arg.substring(BOARD_OPTION.length())));
+            } else if (arg.startsWith(CLOCK_OPTION)) {
+                generator.clockMode(parseOption(CodeGenerator.ClockMode.class, "clock mode",
+                        arg.substring(CLOCK_OPTION.length())));
+            } else if (arg.startsWith(EDGE_OPTION)) {
+                generator.edge(parseOption(CodeGenerator.Edge.class, "edge",
+                        arg.substring(EDGE_OPTION.length())));
+            } else if (arg.equals(SLEEP_FLAG)) {
+                generator.sleep(true);
+            } else if (arg.equals(MINIMIZE_FLAG)) {
+                minimize = true;
+            } else if (arg.equals(KEEP_UNREACHABLE_FLAG)) {
+                pruneUnreachable = false;
+            } else if (arg.startsWith(TRACE_OPTION)) {
+                traces.add(Paths.get(arg.substring(TRACE_OPTION.length())));
+            } else if (arg.startsWith(EXECUTOR_OPTION)) {
+                executor = parseOption(Executor.class, "executor",
+                        arg.substring(EXECUTOR_OPTION.length()));
+            } else if (arg.startsWith(MAX_ERRORS_OPTION)) {
+                maxErrors = parseMaxErrors(arg.substring(MAX_ERRORS_OPTION.length()));
+            } else {
+                arguments.add(arg);
+            }
         }
 
-        String file = args[0];
+        if (arguments.isEmpty()) throw new IllegalArgumentException(usage());
+        boolean single = arguments.size() == 1 && !batch;
+        if (!traces.isEmpty() && !single) {
+            throw new IllegalArgumentException(TRACE_OPTION + " needs a single .moore file.");
+        }
 
-        if (!file.endsWith(mooreExtension)) {
-            System.out.println("Pass a .moore file as argument.");
-        } else {
-            System.out.println("Compiling file " + file);
-            String syntacticErrors = "";
-
-            try {
-                syntacticErrors = SyntacticAnalyzer.analyzeFile(file);
-            } catch (IOException e) {
-                System.out.println("File " + file + " not found. Exitting.");
-                System.exit(1);
+        CodeGenerator codeGenerator = generator.build();
+        MooreCompiler compiler = new MooreCompiler(codeGenerator, minimize, pruneUnreachable,
+                maxErrors);
+        if (single) {
+            CompilationResult result = compiler.compile(arguments.get(0));
+            System.out.print(result.getReport());
+            if (!result.succeeded()) System.exit(1);
+            if (!traces.isEmpty()) {
+                replay(result, traces, codeGenerator.getEdge() == CodeGenerator.Edge.RISING,
+                        executor);
             }
+        } else {
+            compileBatch(arguments, compiler);
+        }
+    }
 
-            if (syntacticErrors.isEmpty()) {
-                System.out.println(" No Syntactic Errors.");
+    private static String usage() {
+        String lineSeparator = System.lineSeparator();
+        return "Incorrect Usage. Instructions:" + lineSeparator +
+                "java -jar package.jar [options] mooreMachine.moore" + lineSeparator +
+                "java -jar package.jar [options] " + BATCH_FLAG + " (file | directory | glob)..." +
+                lineSeparator +
+                "Options:" + lineSeparator +
+                "    " + BACKEND_OPTION + "(switch | table)" + lineSeparator +
+                "        how the sketch evaluates the transitions, switch by default" +
+                lineSeparator +
+                "        the sketch samples at most " + CodeGenerator.MAX_INPUT_BITS +
+                " input pins besides the clock, " + TransitionTable.MAX_INPUT_BITS +
+                " with table" + lineSeparator +
+                "    " + BOARD_OPTION + "(" + String.join(" | ", BoardPinMap.BOARDS) + ")" +
+                lineSeparator +
+                "        access the ports of the board directly instead of digitalRead and " +
+                "digitalWrite" + lineSeparator +
+                "    " + CLOCK_OPTION + "(polling | interrupt)" + lineSeparator +
+                "        wait for the clock spinning on it or on an interrupt, polling by default" +
+                lineSeparator +
+                "        interrupt needs a board, to know the pins able to raise one" +
+                lineSeparator +
+                "    " + EDGE_OPTION + "(rising | falling)" + lineSeparator +
+                "        edge of the clock the machine steps on, rising by default" +
+                lineSeparator +
+                "    " + SLEEP_FLAG + lineSeparator +
+                "        sleep between edges, needs " + CLOCK_OPTION + "interrupt" +
+                lineSeparator +
+                "    " + MINIMIZE_FLAG + lineSeparator +
+                "        merge the equivalent states before generating the files" + lineSeparator +
+                "    " + KEEP_UNREACHABLE_FLAG + lineSeparator +
+                "        keep the states unreachable from the initial state, removed by default" +
+                lineSeparator +
+                "    " + TRACE_OPTION + "trace" + lineSeparator +
+                "        replay a .csv or binary input trace on the compiled machine, writing " +
+                "the outputs to trace" + OUTPUTS_SUFFIX + ", may be repeated to replay the " +
+                "traces in parallel" + lineSeparator +
+                "    " + EXECUTOR_OPTION + "(table | bytecode)" + lineSeparator +
+                "        run a single trace on the flat tables or on a class generated for the " +
+                "machine, table by default, bytecode takes up to 32 inputs instead of 16" +
+                lineSeparator +
+                "    " + MAX_ERRORS_OPTION + "n" + lineSeparator +
+                "        recover from syntactic and lexical errors, reporting up to n of them " +
+                "with their columns, 1 by default" + lineSeparator;
+    }
 
-                SemanticAnalyzer semantic = SemanticAnalyzer.getInstance();
-                Fault fault;
+    private static int parseMaxErrors(String value) {
+        try {
+            int maxErrors = Integer.parseInt(value);
+            if (maxErrors >= 1) return maxErrors;
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException("Invalid maximum number of errors " + value +
+                ", use a positive number.");
+    }
 
-                try {
-                    fault = semantic.analyzeFile(file);
-                } catch (IOException e) {
-                    System.out.println("File " + file + " not found. Exitting.");
-                    System.exit(1);
-                    return; // Shouldn't be reached.
-                }
+    private static <E extends Enum<E>> E parseOption(Class<E> type, String option, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            List<String> values = new ArrayList<>();
+            for (E constant : type.getEnumConstants()) {
+                values.add(constant.name().toLowerCase(Locale.ROOT));
+            }
+            throw new IllegalArgumentException("Unknown " + option + " " + value + ", use " +
+                    String.join(" or ", values) + ".");
+        }
+    }
+
+    /**
+     * Runs the traces on the machine of a successful compilation, the simulated steps follow the
+     * same edge as the generated sketch. A single trace on the bytecode executor never builds the
+     * tables, so it is bound by the inputs a compiled machine takes instead
+     */
+    private static void replay(CompilationResult result, List<Path> traces, boolean clockHigh,
+                               Executor executor) {
+        MooreMachine machine = result.getMachine();
+        boolean compiled = traces.size() == 1 && executor == Executor.BYTECODE;
+        Simulator simulator = null;
+        CompiledMachine compiledMachine = null;
+        try {
+            if (compiled) {
+                compiledMachine = BytecodeCompiler.compile(machine, clockHigh);
+            } else {
+                simulator = Simulator.ofMachine(machine, clockHigh);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Could not simulate: " + e.getMessage());
+            System.exit(1);
+            return; // Shouldn't be reached.
+        }
 
-                if (fault.getErrors().isEmpty()) {
-                    System.out.println(" No Semantic Errors.");
-                    if (fault.getWarnings().isEmpty()) {
-                        System.out.println(" No Semantic Warnings.\n");
-                    } else {
-                        System.out.println("Semantic Warnings:");
-                        System.out.println(fault.getWarnings());
-                    }
-
-                    MooreMachine machine = semantic.buildMachine();
-
-                    System.out.println("Generating code.");
-
-                    CodeGenerator codeGen = CodeGenerator.getInstance();
-                    String inoFile = file.substring(0,
-                            file.length() - mooreExtension.length()) + ".ino";
-                    try {
-                        PrintWriter pwIno = new PrintWriter(new FileWriter(inoFile));
-                        pwIno.print(codeGen.generateCode(machine));
-                        pwIno.flush();
-                        pwIno.close();
-                    } catch (IOException e) {
-                        System.out.println("Error creating file " + inoFile + "\nExitting.");
-                        System.exit(1);
-                    }
-
-                    System.out.println("Code generated successfully!\n");
-                    System.out.println("Generating graphviz file.");
-
-                    DotGenerator graphvizGenerator = DotGenerator.getInstance();
-                    String gvFile = file.substring(0,
-                            file.length() - mooreExtension.length()) + ".gv";
-                    try {
-                        PrintWriter pwGv = new PrintWriter(new FileWriter(gvFile));
-                        pwGv.print(graphvizGenerator.generateImage(machine));
-                        pwGv.flush();
-                        pwGv.close();
-                    } catch (IOException e) {
-                        System.out.println("Error creating file " + gvFile + "\nExitting.");
-                        System.exit(1);
-                    }
-
-                    System.out.println("Graphviz file generated successfully!");
-                } else {
-                    System.out.println("ERRORS:");
-                    System.out.println(fault.getErrors());
-                    System.out.println("Warnings:");
-                    System.out.println(fault.getWarnings());
-                    System.exit(1);
+        Path trace = null;
+        try {
+            if (compiled) {
+                trace = traces.get(0);
+                TraceReplay replay = TraceReplay.replay(compiledMachine,
+                        TraceFiles.read(trace, machine));
+                writeOutputs(trace, machine, replay.getOutputs());
+                System.out.print(replay.report());
+                return;
+            }
+            List<int[]> words = new ArrayList<>();
+            for (Path file : traces) {
+                trace = file;
+                words.add(TraceFiles.read(file, simulator.getTable()));
+            }
+            if (traces.size() == 1) {
+                TraceReplay replay = TraceReplay.replay(simulator, words.get(0));
+                writeOutputs(trace, machine, replay.getOutputs());
+                System.out.print(replay.report());
+            } else {
+                BatchReplay replay = new BatchSimulator(simulator).replayAll(words);
+                for (int i = 0; i < traces.size(); i++) {
+                    trace = traces.get(i);
+                    writeOutputs(trace, machine, replay.getOutputs(i));
                 }
+                System.out.print(replay.report());
             }
+        } catch (IOException e) {
+            System.out.println("Could not replay " + trace + ": " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Could not replay: " + e.getMessage());
+            System.exit(1);
         }
     }
-}
 
+    /**
+     * The columns of the outputs are the output pins by id, as the bits of the output words of
+     * every executor
+     */
+    private static void writeOutputs(Path trace, MooreMachine machine, int[] outputs)
+            throws IOException {
+        Path file = Paths.get(trace + OUTPUTS_SUFFIX);
+        TraceFiles.writeCsv(file, machine, outputs);
+        System.out.println("Outputs written on " + file);
+    }
+
+    private static void compileBatch(List<String> arguments, MooreCompiler compiler) {
+        List<String> files;
+        try {
+            files = BatchCompiler.collectSources(arguments);
+        } catch (IOException e) {
+            System.out.println("Could not read " + e.getMessage() + ". Exitting.");
+            System.exit(1);
+            return; // Shouldn't be reached.
+        }
+
+        // Otherwise the first files parsed would also pay for building the DFA of the parser
+        TwoStageParser.warmUp();
+        long start = System.nanoTime();
+        List<CompilationResult> results = new BatchCompiler(
+                Runtime.getRuntime().availableProcessors(), compiler).compileAll(files);
+        System.out.print(BatchCompiler.report(results, System.nanoTime() - start));
+
+        if (results.stream().anyMatch(result -> !result.succeeded())) System.exit(1);
+    }
+}
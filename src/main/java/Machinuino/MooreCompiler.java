@@ -0,0 +1,203 @@
+package Machinuino;
+
+import Machinuino.model.Fault;
+import Machinuino.model.MooreMachine;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Runs every phase of the compiler over a single .moore file and writes the .ino and .gv files
+ * next to it. Each call takes its own analyzer from a pool, and the code generator is immutable,
+ * so one compiler can be used by many threads at the same time
+ */
+class MooreCompiler {
+
+    static final String MOORE_EXTENSION = ".moore";
+    private final SemanticAnalyzerPool analyzers;
+    private final CodeGenerator codeGenerator;
+    private final boolean minimize;
+    private final boolean pruneUnreachable;
+    private final int maxErrors;
+
+    MooreCompiler() {
+        this(new CodeGenerator());
+    }
+
+    MooreCompiler(CodeGenerator codeGenerator) {
+        this(codeGenerator, false, true);
+    }
+
+    /**
+     * @param codeGenerator generator of the sketches, can not be null
+     * @param minimize whether the equivalent states of a machine are merged before generating
+     *                 its files
+     * @param pruneUnreachable whether the states unreachable from the initial state are removed,
+     *                         with a warning, before generating the files
+     */
+    MooreCompiler(CodeGenerator codeGenerator, boolean minimize, boolean pruneUnreachable) {
+        this(codeGenerator, minimize, pruneUnreachable, 1);
+    }
+
+    /**
+     * @param maxErrors the number of syntactic errors reported before giving up on a file, with
+     *                  1 the parse stops on the first error, otherwise it recovers from them
+     * @throws IllegalArgumentException if maxErrors is not positive
+     * @see #MooreCompiler(CodeGenerator, boolean, boolean)
+     */
+    MooreCompiler(CodeGenerator codeGenerator, boolean minimize, boolean pruneUnreachable,
+                  int maxErrors) {
+        Utils.verifyNullity("MooreCompiler#MooreCompiler", "codeGenerator", codeGenerator);
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("MooreCompiler#MooreCompiler: maxErrors must be " +
+                    "positive!");
+        }
+        this.analyzers = new SemanticAnalyzerPool();
+        this.codeGenerator = codeGenerator;
+        this.minimize = minimize;
+        this.pruneUnreachable = pruneUnreachable;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Compiles the file on {@code file}, never throws on a faulty or missing file, the problem is
+     * described on the returned result instead
+     *
+     * @param file path to a .moore file
+     * @return the result of the compilation
+     */
+    CompilationResult compile(String file) {
+        CompilationResult result = new CompilationResult(file);
+
+        if (!file.endsWith(MOORE_EXTENSION)) {
+            result.log("Pass a .moore file as argument.");
+            return result;
+        }
+        result.log("Compiling file " + file);
+
+        CompilationUnit unit;
+        long start = System.nanoTime();
+        try {
+            unit = CompilationUnit.fromFile(file);
+        } catch (IOException e) {
+            result.log("File " + file + " not found.");
+            return result;
+        }
+        long loaded = System.nanoTime();
+        result.recordPhase("read", loaded - start);
+
+        String syntacticErrors = maxErrors == 1 ? SyntacticAnalyzer.analyze(unit) :
+                SyntacticAnalyzer.analyze(unit, maxErrors).getErrors();
+        long parsed = System.nanoTime();
+        result.recordPhase("parse", parsed - loaded);
+        result.setSyntacticErrors(syntacticErrors);
+
+        if (!syntacticErrors.isEmpty()) {
+            result.log("Syntactic Errors:");
+            result.log(syntacticErrors);
+            return result;
+        }
+        result.log(" No Syntactic Errors.");
+
+        SemanticAnalyzer semantic = analyzers.acquire();
+        Fault fault;
+        MooreMachine machine;
+        try {
+            fault = semantic.analyze(unit);
+            machine = fault.hasErrors() ? null : semantic.buildMachine();
+        } finally {
+            analyzers.release(semantic);
+        }
+        long analyzed = System.nanoTime();
+        result.recordPhase("semantic", analyzed - parsed);
+        result.setFault(fault);
+
+        if (machine != null && pruneUnreachable) {
+            machine = new ReachabilityPruner().prune(machine, fault);
+            result.recordPhase("reachability", System.nanoTime() - analyzed);
+        }
+        if (machine != null) {
+            long coverageStart = System.nanoTime();
+            new CoverageAnalyzer().reportUncoveredInputs(machine, fault,
+                    codeGenerator.getEdge() == CodeGenerator.Edge.RISING);
+            result.recordPhase("coverage", System.nanoTime() - coverageStart);
+        }
+
+        if (machine == null) {
+            result.log("ERRORS:");
+            result.log(fault.getErrors());
+            result.log("Warnings:");
+            result.log(fault.getWarnings());
+            return result;
+        }
+        result.log(" No Semantic Errors.");
+        if (fault.getWarnings().isEmpty()) {
+            result.log(" No Semantic Warnings.");
+        } else {
+            result.log("Semantic Warnings:");
+            result.log(fault.getWarnings());
+        }
+
+        if (minimize) machine = minimize(machine, result);
+
+        String baseName = file.substring(0, file.length() - MOORE_EXTENSION.length());
+
+        String inoFile = baseName + ".ino";
+        long generationStart = System.nanoTime();
+        String code;
+        try {
+            code = codeGenerator.generateCode(machine);
+        } catch (IllegalArgumentException e) {
+            result.log("Could not generate code: " + e.getMessage());
+            return result;
+        }
+        if (!write(inoFile, code, result)) return result;
+        result.recordPhase("code generation", System.nanoTime() - generationStart);
+        result.log("Code generated successfully on " + inoFile);
+
+        String gvFile = baseName + ".gv";
+        long graphvizStart = System.nanoTime();
+        if (!write(gvFile, new DotGenerator().generateImage(machine), result)) return result;
+        result.recordPhase("graphviz", System.nanoTime() - graphvizStart);
+        result.log("Graphviz file generated successfully on " + gvFile);
+
+        result.log(" Timings: " + result.formatTimings());
+        result.setMachine(machine);
+        result.setSucceeded(true);
+        return result;
+    }
+
+    /**
+     * A machine that can not be tabulated is left as it is, it may still be generated by the
+     * switch backend. A minimized machine failing its check is also discarded, with a warning
+     */
+    private MooreMachine minimize(MooreMachine machine, CompilationResult result) {
+        long start = System.nanoTime();
+        MooreMachine minimized;
+        try {
+            minimized = new StateMinimizer().minimize(machine);
+        } catch (IllegalArgumentException e) {
+            result.log(" Could not minimize: " + e.getMessage());
+            return machine;
+        } catch (IllegalStateException e) {
+            result.log(" Warning: " + e.getMessage() + " Minimization skipped.");
+            return machine;
+        }
+        result.recordPhase("minimization", System.nanoTime() - start);
+        result.log(" Minimization removed " +
+                (machine.getStateCount() - minimized.getStateCount()) + " states.");
+        return minimized;
+    }
+
+    private boolean write(String file, String content, CompilationResult result) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            writer.print(content);
+            if (!writer.checkError()) return true;
+        } catch (IOException e) {
+            // Reported below.
+        }
+        result.log("Error creating file " + file);
+        return false;
+    }
+}
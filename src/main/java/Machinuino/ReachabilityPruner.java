@@ -0,0 +1,92 @@
+package Machinuino;
+
+import Machinuino.model.Fault;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Output;
+import Machinuino.model.Transition;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Removes the states that can not be reached from the initial state, along with their
+ * transitions and outputs, so they take no room on the sketch nor on the graph
+ */
+public class ReachabilityPruner {
+
+    private static final String NAME_TAG = "ReachabilityPruner";
+
+    public ReachabilityPruner() {
+    }
+
+    /**
+     * @param machine a machine, can not be null
+     * @return the ids of the states reachable from the initial state, found by a breadth first
+     * search over the transitions, none if the machine has no initial state
+     */
+    public BitSet reachableStates(MooreMachine machine) {
+        Utils.verifyNullity(NAME_TAG + "#reachableStates", "machine", machine);
+        BitSet visited = new BitSet(machine.getStateCount());
+        int[] queue = new int[machine.getStateCount()];
+        int head = 0;
+        int tail = 0;
+        int initial = machine.getStateId(machine.getInitialState());
+        // An empty states section leaves the machine without states, only warned about
+        if (initial < 0) return visited;
+        visited.set(initial);
+        queue[tail++] = initial;
+        while (head < tail) {
+            for (Transition transition : machine.getTransitionsOfState(queue[head++])) {
+                int next = machine.getStateId(transition.getNextState());
+                if (visited.get(next)) continue;
+                visited.set(next);
+                queue[tail++] = next;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Builds the machine without its unreachable states, warning about them on the fault passed
+     *
+     * @param machine the machine to be pruned, can not be null
+     * @param fault where the unreachable states are reported, can not be null
+     * @return the pruned machine, the machine passed if every state is reachable
+     */
+    public MooreMachine prune(MooreMachine machine, Fault fault) {
+        Utils.verifyNullity(NAME_TAG + "#prune", "machine", machine);
+        Utils.verifyNullity(NAME_TAG + "#prune", "fault", fault);
+        BitSet reachable = reachableStates(machine);
+        if (reachable.cardinality() == machine.getStateCount()) return machine;
+
+        List<String> unreachable = new ArrayList<>();
+        MooreMachine.Builder builder = new MooreMachine.Builder(machine.getName());
+        for (int state = 0; state < machine.getStateCount(); state++) {
+            if (reachable.get(state)) {
+                builder.addState(machine.getStateOfId(state));
+            } else {
+                unreachable.add(machine.getStateOfId(state));
+            }
+        }
+        builder.initialState(machine.getInitialState());
+        for (int id = 0; id < machine.getInputPinCount(); id++) {
+            builder.addInputPin(machine.getInputPinOfId(id));
+        }
+        for (int id = 0; id < machine.getOutputPinCount(); id++) {
+            builder.addOutputPin(machine.getOutputPinOfId(id));
+        }
+        // Transitions from a reachable state only lead to reachable states
+        for (int state = reachable.nextSetBit(0); state >= 0;
+             state = reachable.nextSetBit(state + 1)) {
+            for (Transition transition : machine.getTransitionsOfState(state)) {
+                builder.addTransition(transition);
+            }
+            Output output = machine.getOutputOfState(state);
+            if (output != null) builder.addOutput(output.getState(), output.getBoolPins());
+        }
+
+        fault.addWarningUnreachableStates(unreachable);
+        return builder.build();
+    }
+}
@@ -1,9 +1,7 @@
 package Machinuino;
 
 import Machinuino.model.*;
-import org.antlr.v4.runtime.ANTLRFileStream;
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
 
 import java.io.IOException;
 import java.util.HashSet;
@@ -12,32 +10,46 @@ import java.util.Set;
 public class SemanticAnalyzer extends MachinuinoBaseVisitor {
     private MooreMachine.Builder mooreBuilder;
     private Fault fault;
-    private static SemanticAnalyzer semanticAnalyzerInstance;
     private boolean finishedAnalysis;
     private Set<Integer> pinNumbers;
     private String previousState;
 
-    public static SemanticAnalyzer getInstance() {
-        if (semanticAnalyzerInstance == null) {
-            semanticAnalyzerInstance = new SemanticAnalyzer();
-            semanticAnalyzerInstance.finishedAnalysis = false;
-        }
-
-        return semanticAnalyzerInstance;
+    /**
+     * Creates an analyzer, analyzers hold the state of the file being analyzed so they must not
+     * be shared between threads, use a {@link SemanticAnalyzerPool} to reuse them instead
+     */
+    public SemanticAnalyzer() {
+        fault = Fault.getInstance();
+        pinNumbers = new HashSet<>();
+        finishedAnalysis = false;
     }
 
-    private SemanticAnalyzer() {
+    /**
+     * Forgets everything about the last file analyzed, leaving this analyzer as if it had just
+     * been created. {@link #analyze} already starts from a clean state, this is meant for
+     * releasing the last machine when the analyzer goes back to a pool
+     */
+    public void reset() {
+        mooreBuilder = null;
         fault = Fault.getInstance();
-        pinNumbers = new HashSet<>();
+        finishedAnalysis = false;
+        pinNumbers.clear();
+        previousState = null;
     }
 
     Fault analyzeFile(String fileLocation) throws IOException {
-        ANTLRInputStream input = new ANTLRFileStream(fileLocation);
-        MachinuinoLexer lexer = new MachinuinoLexer(input);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        MachinuinoParser parser = new MachinuinoParser(tokens);
+        return analyze(CompilationUnit.fromFile(fileLocation));
+    }
 
-        visit(parser.moore());
+    /**
+     * Analyzes the parse tree of {@code unit}, parsing it first if no previous phase did.
+     *
+     * @param unit the compilation unit to be analyzed
+     * @return the faults found during the analysis
+     */
+    Fault analyze(CompilationUnit unit) {
+        reset();
+        visit(unit.parse());
 
         Fault faultCopy = fault;
         fault = Fault.getInstance();
@@ -47,10 +59,10 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
     }
 
     /**
-     * This method must be called after {@link #analyzeFile}.
+     * This method must be called after {@link #analyze}.
      *
      * @return the {@link MooreMachine} created during the analysis.
-     * @throws IllegalStateException if this method is called before {@link #analyzeFile}.
+     * @throws IllegalStateException if this method is called before {@link #analyze}.
      *                               TODO: test this
      */
     public MooreMachine buildMachine() {
@@ -61,6 +73,23 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
         }
     }
 
+    /**
+     * Reports an error on the token it is about, with the line, column and indexes of the token
+     */
+    private void error(Diagnostic.Code code, Token token, String... args) {
+        fault.add(at(code, Diagnostic.Severity.ERROR, token, args));
+    }
+
+    private void warning(Diagnostic.Code code, Token token, String... args) {
+        fault.add(at(code, Diagnostic.Severity.WARNING, token, args));
+    }
+
+    private static Diagnostic at(Diagnostic.Code code, Diagnostic.Severity severity, Token token,
+                                 String... args) {
+        return Diagnostic.at(code, severity, token.getLine(), token.getCharPositionInLine() + 1,
+                token.getStartIndex(), token.getStopIndex(), args);
+    }
+
     @Override
     public Object visitMoore(MachinuinoParser.MooreContext ctx) {
         String name = ctx.NAME().getText();
@@ -71,8 +100,6 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
 
     @Override
     public Object visitStates(MachinuinoParser.StatesContext ctx) {
-        int line = ctx.getStart().getLine();
-
         if (ctx.NAME(0) != null) {
             String initialState = ctx.NAME(0).getText();
 
@@ -83,12 +110,12 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
             while (ctx.NAME(i) != null) {
                 String state = ctx.NAME(i).getText();
                 if (mooreBuilder.hasState(state)) {
-                    fault.addWarningDuplicateSymbol(state, line);
+                    warning(Diagnostic.Code.DUPLICATE_SYMBOL, ctx.NAME(i).getSymbol(), state);
                 } else mooreBuilder.addState(state);
 
                 ++i;
             }
-        } else fault.addWarningEmptySection("state", line);
+        } else warning(Diagnostic.Code.EMPTY_SECTION, ctx.getStart(), "state");
 
         return super.visitStates(ctx);
     }
@@ -96,13 +123,13 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
     @Override
     public Object visitPinsInput(MachinuinoParser.PinsInputContext ctx) {
         int clockPinNumber = Integer.parseInt(ctx.NUMBER(0).getText());
-        mooreBuilder.addInputPin(Pin.ofValue("clock", clockPinNumber));
+        mooreBuilder.addInputPin(Pin.ofValue(InputWord.CLOCK, clockPinNumber));
 
         pinNumbers.add(clockPinNumber);
 
         // TODO: Document what an empty "input pins" is (it ignore the clock pin)
         if (ctx.NAME(0) == null) {
-            fault.addWarningEmptySection("Input Pins", ctx.getStart().getLine());
+            warning(Diagnostic.Code.EMPTY_SECTION, ctx.getStart(), "Input Pins");
         } else {
             int i = 0;
 
@@ -110,12 +137,12 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
                 String pinName = ctx.NAME(i).getText();
                 int pinNumber = Integer.parseInt(ctx.NUMBER(i + 1).getText());
                 if (pinNumbers.contains(pinNumber)) {
-                    fault.addErrorPinNumberAlreadyUsed(pinNumber, ctx.getStart().getLine());
+                    error(Diagnostic.Code.PIN_NUMBER_ALREADY_USED, ctx.NUMBER(i + 1).getSymbol(),
+                            Integer.toString(pinNumber));
                 }
                 Pin pin = Pin.ofValue(pinName, pinNumber);
                 if (mooreBuilder.getInputPinOfName(pin.getName()) != null) {
-                    // TODO it is reporting a line that is far from the token
-                    fault.addErrorDuplicatePin(pinName, ctx.getStart().getLine());
+                    error(Diagnostic.Code.DUPLICATE_PIN, ctx.NAME(i).getSymbol(), pinName);
                 } else mooreBuilder.addInputPin(pin);
                 ++i;
             }
@@ -127,20 +154,20 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
     @Override
     public Object visitTransition(MachinuinoParser.TransitionContext ctx) {
         if (ctx.NAME(0) == null) {
-            fault.addWarningEmptySection("Transition", ctx.getStart().getLine());
+            warning(Diagnostic.Code.EMPTY_SECTION, ctx.getStart(), "Transition");
         } else {
             int i = 0;
             while (ctx.NAME(i) != null) {
                 previousState = ctx.NAME(i).getText();
 
                 if (!mooreBuilder.hasState(previousState)) {
-                    fault.addErrorUndeclaredState(previousState, ctx.getStart().getLine());
+                    error(Diagnostic.Code.UNDECLARED_STATE, ctx.NAME(i).getSymbol(), previousState);
                 }
 
                 // Note: it won't inform two empty transition blocks, thus the name of the trans block
                 if (ctx.transBlock(i) == null || ctx.transBlock(i).getText().isEmpty()) {
-                    fault.addWarningEmptySection("Transition block of " + ctx.NAME(i).getText(),
-                            ctx.getStart().getLine());
+                    warning(Diagnostic.Code.EMPTY_SECTION, ctx.NAME(i).getSymbol(),
+                            "Transition block of " + ctx.NAME(i).getText());
                 }
 
                 visitTransBlock(ctx.transBlock(i));
@@ -158,7 +185,7 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
         if (ctx.NAME() != null) {
             String targetState = ctx.NAME().getText();
             if (!mooreBuilder.hasState(targetState)) {
-                fault.addErrorUndeclaredState(targetState, ctx.getStart().getLine());
+                error(Diagnostic.Code.UNDECLARED_STATE, ctx.NAME().getSymbol(), targetState);
             } else if (mooreBuilder.hasState(previousState)) {
                 Set<BoolPin> boolPins = visitLogicExp(ctx.logicExp());
                 Transition trans;
@@ -167,7 +194,8 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
                 else return "";
 
                 if (mooreBuilder.transitionCausesNonDeterminism(trans)) {
-                    fault.addErrorDuplicateTransitionFromState(previousState, ctx.getStart().getLine());
+                    error(Diagnostic.Code.DUPLICATE_TRANSITION_FROM_STATE, ctx.getStart(),
+                            previousState);
                 } else {
                     mooreBuilder.addTransition(trans);
                 }
@@ -185,23 +213,23 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
 
         int i = 0;
         while (ctx.extName(i) != null) {
-            String pinName = ctx.extName(i).NAME().getText();
+            Token name = ctx.extName(i).NAME().getSymbol();
+            String pinName = name.getText();
             boolean pinValue = !ctx.extName(i).getText().startsWith("!");
-            int line = ctx.getStart().getLine();
 
             Pin pin = mooreBuilder.getInputPinOfName(pinName);
 
             // TODO test both conditions
             if (pin == null || !mooreBuilder.hasInputPin(pin)) {
-                fault.addErrorUndeclaredInputPin(pinName, line);
+                error(Diagnostic.Code.UNDECLARED_INPUT_PIN, name, pinName);
                 boolPins = null;
                 break;
             } else {
                 if (inputsUsed.contains(pinName)) {
-                    fault.addErrorInputAlreadyInExp(pinName, ctx.getStart().getLine());
+                    error(Diagnostic.Code.INPUT_ALREADY_IN_EXPRESSION, name, pinName);
                 } else {
                     inputsUsed.add(pinName);
-                    boolPins.add(BoolPin.ofValue(mooreBuilder.getInputPinOfName(pinName), pinValue));
+                    boolPins.add(mooreBuilder.getBoolPinOfValue(pin, pinValue));
                 }
             }
 
@@ -214,23 +242,27 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
 
     @Override
     public Object visitPinsOutput(MachinuinoParser.PinsOutputContext ctx) {
-        if (ctx.NAME(0) == null) fault.addWarningEmptySection("Output pins", ctx.getStart().getLine());
+        if (ctx.NAME(0) == null) {
+            warning(Diagnostic.Code.EMPTY_SECTION, ctx.getStart(), "Output pins");
+        }
 
         int i = 0;
         while (ctx.NAME(i) != null) {
-            int line = ctx.getStart().getLine();
-            String outputPinName = ctx.NAME(i).getText();
+            Token name = ctx.NAME(i).getSymbol();
+            String outputPinName = name.getText();
             int outputPinNumber = Integer.parseInt(ctx.NUMBER(i).getText());
 
             if (pinNumbers.contains(outputPinNumber)) {
-                fault.addErrorPinNumberAlreadyUsed(outputPinNumber, ctx.getStart().getLine());
+                error(Diagnostic.Code.PIN_NUMBER_ALREADY_USED, ctx.NUMBER(i).getSymbol(),
+                        Integer.toString(outputPinNumber));
             }
 
-            if (mooreBuilder.getInputPinOfName(outputPinName) != null) fault.addErrorDuplicatePin(outputPinName, line);
-            else if (mooreBuilder.getOutputPinOfName(outputPinName) != null) {
+            if (mooreBuilder.getInputPinOfName(outputPinName) != null) {
+                error(Diagnostic.Code.DUPLICATE_PIN, name, outputPinName);
+            } else if (mooreBuilder.getOutputPinOfName(outputPinName) != null) {
                 if (mooreBuilder.getOutputPinOfName(outputPinName).getName().equals(outputPinName)) {
-                    fault.addErrorDuplicatePin(outputPinName, ctx.getStart().getLine());
-                } else fault.addErrorUndeclaredOutputPin(outputPinName, line);
+                    error(Diagnostic.Code.DUPLICATE_PIN, name, outputPinName);
+                } else error(Diagnostic.Code.UNDECLARED_OUTPUT_PIN, name, outputPinName);
             } else mooreBuilder.addOutputPin(Pin.ofValue(outputPinName, outputPinNumber));
 
             ++i;
@@ -243,14 +275,14 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
     public Object visitFunction(MachinuinoParser.FunctionContext ctx) {
         int i = 0;
         while (ctx.NAME(i) != null) {
-            String state = ctx.NAME(i).getText();
-            int line = ctx.getStart().getLine();
+            Token name = ctx.NAME(i).getSymbol();
+            String state = name.getText();
 
             if (!mooreBuilder.hasState(state)) {
-                fault.addErrorUndeclaredState(state, line);
+                error(Diagnostic.Code.UNDECLARED_STATE, name, state);
             } else {
                 if (mooreBuilder.hasOutput(state)) {
-                    fault.addErrorOutputAlreadyDefined(state, line);
+                    error(Diagnostic.Code.OUTPUT_ALREADY_DEFINED, name, state);
                 } else {
                     String stateOfOutput = state;
                     Set<BoolPin> sbp = visitFuncBlock(ctx.funcBlock(i));
@@ -266,21 +298,21 @@ public class SemanticAnalyzer extends MachinuinoBaseVisitor {
     // Returns a BoolPin Set representing every output of a certain state.
     @Override
     public Set<BoolPin> visitFuncBlock(MachinuinoParser.FuncBlockContext ctx) {
-        int line = ctx.getStart().getLine();
         Set<String> pinsWithDefinedOutput = new HashSet<>();
         Set<BoolPin> boolPins = new HashSet<>();
 
         int i = 0;
         while (ctx.extName(i) != null) {
-            String outputPinName = ctx.extName(i).NAME().getText();
+            Token name = ctx.extName(i).NAME().getSymbol();
+            String outputPinName = name.getText();
             boolean pinValue = !ctx.extName(i).getText().startsWith("!");
 
             Pin outputPin = mooreBuilder.getOutputPinOfName(outputPinName);
             if (outputPin == null) {
-                fault.addErrorUndeclaredOutputPin(outputPinName, line);
+                error(Diagnostic.Code.UNDECLARED_OUTPUT_PIN, name, outputPinName);
             } else {
                 if (pinsWithDefinedOutput.contains(outputPinName)) {
-                    fault.addErrorOutputAlreadyDefined(outputPinName, line);
+                    error(Diagnostic.Code.OUTPUT_ALREADY_DEFINED, name, outputPinName);
                 } else {
                     pinsWithDefinedOutput.add(outputPinName);
                     boolPins.add(mooreBuilder.getBoolPinOfValue(outputPin, pinValue));
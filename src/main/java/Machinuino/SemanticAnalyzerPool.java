@@ -0,0 +1,62 @@
+package Machinuino;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe pool of {@link SemanticAnalyzer}s. An analyzer acquired from the pool belongs to
+ * the acquiring thread until it is released, so many files can be analyzed at the same time
+ * without sharing any state between them
+ */
+public class SemanticAnalyzerPool {
+
+    private static final String NAME_TAG = "SemanticAnalyzerPool";
+    private final Queue<SemanticAnalyzer> idle;
+    private final AtomicInteger idleCount;
+    private final int maxIdle;
+
+    /**
+     * @param maxIdle maximum number of idle analyzers kept by the pool, analyzers released
+     *                while the pool is full are discarded
+     * @throws IllegalArgumentException if maxIdle is negative
+     */
+    public SemanticAnalyzerPool(int maxIdle) {
+        Utils.verifyPositive(NAME_TAG + "#SemanticAnalyzerPool", "maxIdle", maxIdle);
+        this.idle = new ConcurrentLinkedQueue<>();
+        this.idleCount = new AtomicInteger();
+        this.maxIdle = maxIdle;
+    }
+
+    public SemanticAnalyzerPool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return an idle analyzer of this pool or a new one if there is none
+     */
+    public SemanticAnalyzer acquire() {
+        SemanticAnalyzer analyzer = idle.poll();
+        if (analyzer == null) return new SemanticAnalyzer();
+
+        idleCount.decrementAndGet();
+        return analyzer;
+    }
+
+    /**
+     * Resets the analyzer and gives it back to the pool, the analyzer must not be used by the
+     * caller anymore
+     *
+     * @param analyzer an analyzer acquired from this pool, can not be null
+     */
+    public void release(SemanticAnalyzer analyzer) {
+        Utils.verifyNullity(NAME_TAG + "#release", "analyzer", analyzer);
+        analyzer.reset();
+        if (idleCount.incrementAndGet() <= maxIdle) idle.offer(analyzer);
+        else idleCount.decrementAndGet();
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+}
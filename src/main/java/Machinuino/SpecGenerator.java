@@ -0,0 +1,460 @@
+package Machinuino;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic .moore sources of any size, for stress tests and benchmarks. The states are
+ * named st0, st1 and so on, the input pins in0, in1 and so on and the output pins out0, out1 and
+ * so on. Every choice is drawn from a random seeded on the builder, so the same options always
+ * generate the same source
+ * Immutable
+ */
+public class SpecGenerator {
+
+    private static final String NAME_TAG = "SpecGenerator";
+    private static final int CLOCK_PIN = 2;
+    private final String name;
+    private final int states;
+    private final int inputPins;
+    private final int outputPins;
+    private final int transitionsPerState;
+    private final int guardWidth;
+    private final boolean deterministic;
+    private final boolean complete;
+    private final double commentDensity;
+    private final Map<Defect, Integer> defects;
+    private final long seed;
+
+    /**
+     * Mistakes that can be planted on a source, each of them making the compiler report an error
+     */
+    public enum Defect {
+        /**
+         * A transition to a state that was not declared
+         */
+        UNDECLARED_STATE,
+        /**
+         * A guard testing an input pin that was not declared
+         */
+        UNDECLARED_PIN,
+        /**
+         * An input pin declared twice, the second time on an unused pin number
+         */
+        DUPLICATE_PIN,
+        /**
+         * A transition without the arrow before its next state, a syntactic error
+         */
+        MISSING_ARROW,
+        /**
+         * A symbol out of the language after a transition, a lexical error
+         */
+        INVALID_SYMBOL
+    }
+
+    /**
+     * Builder for the SpecGenerator, every method of this class will throw
+     * {@link NullPointerException} if null is passed as parameter
+     */
+    public static class Builder {
+
+        private static final String NAME_TAG = "SpecGenerator.Builder";
+        private String name;
+        private int states;
+        private int inputPins;
+        private int outputPins;
+        private int transitionsPerState;
+        private int guardWidth;
+        private boolean deterministic;
+        private boolean complete;
+        private double commentDensity;
+        private final Map<Defect, Integer> defects;
+        private long seed;
+
+        public Builder() {
+            this.name = "Synthetic";
+            this.states = 10;
+            this.inputPins = 4;
+            this.outputPins = 2;
+            this.transitionsPerState = 4;
+            this.guardWidth = 0;
+            this.deterministic = true;
+            this.complete = false;
+            this.commentDensity = 0;
+            this.defects = new EnumMap<>(Defect.class);
+            this.seed = 0;
+        }
+
+        public Builder name(String name) {
+            Utils.verifyNullity(NAME_TAG + "#name", "name", name);
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * @param states number of states, the first one being the initial state
+         * @return this builder
+         * @throws IllegalArgumentException if states is not positive
+         */
+        public Builder states(int states) {
+            verifyAtLeast("#states", "states", states, 1);
+            this.states = states;
+            return this;
+        }
+
+        /**
+         * @param inputPins number of input pins besides the clock
+         * @return this builder
+         * @throws IllegalArgumentException if inputPins is negative
+         */
+        public Builder inputPins(int inputPins) {
+            verifyAtLeast("#inputPins", "inputPins", inputPins, 0);
+            this.inputPins = inputPins;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if outputPins is negative
+         */
+        public Builder outputPins(int outputPins) {
+            verifyAtLeast("#outputPins", "outputPins", outputPins, 0);
+            this.outputPins = outputPins;
+            return this;
+        }
+
+        /**
+         * @param transitionsPerState number of transitions of each state, ignored by complete
+         *                            machines
+         * @return this builder
+         * @throws IllegalArgumentException if transitionsPerState is negative
+         */
+        public Builder transitionsPerState(int transitionsPerState) {
+            verifyAtLeast("#transitionsPerState", "transitionsPerState", transitionsPerState, 0);
+            this.transitionsPerState = transitionsPerState;
+            return this;
+        }
+
+        /**
+         * @param guardWidth number of input pins tested by each guard, 0 for the fewest pins that
+         *                   tell the transitions of a state apart
+         * @return this builder
+         * @throws IllegalArgumentException if guardWidth is negative
+         */
+        public Builder guardWidth(int guardWidth) {
+            verifyAtLeast("#guardWidth", "guardWidth", guardWidth, 0);
+            this.guardWidth = guardWidth;
+            return this;
+        }
+
+        /**
+         * Makes the guards of each state test the same pins against different values, so no two
+         * of them accept the same inputs. Otherwise each guard picks its own pins and values and
+         * the analyzer may report transitions of a state as nondeterministic
+         *
+         * @param deterministic whether the guards of a state never overlap, true by default
+         * @return this builder
+         */
+        public Builder deterministic(boolean deterministic) {
+            this.deterministic = deterministic;
+            return this;
+        }
+
+        /**
+         * Makes each state have one transition for every value of the pins its guards test, so
+         * every input has a transition. A complete machine is always deterministic and has 2 to
+         * the guard width transitions per state
+         *
+         * @param complete whether every state has a transition on every input
+         * @return this builder
+         */
+        public Builder complete(boolean complete) {
+            this.complete = complete;
+            return this;
+        }
+
+        /**
+         * @param commentDensity chance of a comment before each transition and each block of a
+         *                       state, from 0 to 1
+         * @return this builder
+         * @throws IllegalArgumentException if commentDensity is out of [0, 1]
+         */
+        public Builder commentDensity(double commentDensity) {
+            if (!(commentDensity >= 0 && commentDensity <= 1)) {
+                throw new IllegalArgumentException(NAME_TAG + "#commentDensity: commentDensity " +
+                        "must be from 0 to 1, was " + commentDensity);
+            }
+            this.commentDensity = commentDensity;
+            return this;
+        }
+
+        /**
+         * Plants a defect on the source, on transitions drawn at random
+         *
+         * @param defect the kind of defect
+         * @param count how many times it is planted, replacing the previous count
+         * @return this builder
+         * @throws IllegalArgumentException if count is negative
+         */
+        public Builder defect(Defect defect, int count) {
+            Utils.verifyNullity(NAME_TAG + "#defect", "defect", defect);
+            verifyAtLeast("#defect", "count", count, 0);
+            if (count == 0) defects.remove(defect);
+            else defects.put(defect, count);
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @return a generator with the options of this builder
+         * @throws IllegalStateException if the guards can not have the width asked or can not
+         * tell the transitions of a state apart, or if there are fewer transitions than defects
+         * to be planted on them
+         */
+        public SpecGenerator build() {
+            return new SpecGenerator(this);
+        }
+
+        private static void verifyAtLeast(String method, String parameter, int value, int min) {
+            if (value < min) {
+                throw new IllegalArgumentException(NAME_TAG + method + ": " + parameter +
+                        " must be at least " + min + ", was " + value);
+            }
+        }
+    }
+
+    private SpecGenerator(Builder builder) {
+        this.name = builder.name;
+        this.states = builder.states;
+        this.inputPins = builder.inputPins;
+        this.outputPins = builder.outputPins;
+        this.deterministic = builder.deterministic || builder.complete;
+        this.complete = builder.complete;
+        this.commentDensity = builder.commentDensity;
+        this.defects = new EnumMap<>(Defect.class);
+        this.defects.putAll(builder.defects);
+        this.seed = builder.seed;
+
+        int width = builder.guardWidth;
+        if (width == 0 && (complete || builder.transitionsPerState > 0)) {
+            width = Math.max(1, Integer.SIZE -
+                    Integer.numberOfLeadingZeros(Math.max(builder.transitionsPerState - 1, 0)));
+        }
+        if (width > inputPins) {
+            throw new IllegalStateException(NAME_TAG + "#build: guards testing " + width +
+                    " pins need at least as many input pins, there are " + inputPins);
+        }
+        if ((deterministic || complete) && width >= Integer.SIZE - 1) {
+            throw new IllegalStateException(NAME_TAG + "#build: guards testing " + width +
+                    " pins have too many values to be enumerated");
+        }
+        this.guardWidth = width;
+        this.transitionsPerState = complete ? 1 << width : builder.transitionsPerState;
+        if (deterministic && transitionsPerState > 1 << width) {
+            throw new IllegalStateException(NAME_TAG + "#build: guards testing " + width +
+                    " pins can not tell " + transitionsPerState + " transitions apart");
+        }
+
+        long planted = 0;
+        for (Map.Entry<Defect, Integer> entry : defects.entrySet()) {
+            if (entry.getKey() != Defect.DUPLICATE_PIN) planted += entry.getValue();
+        }
+        if (planted > (long) states * transitionsPerState) {
+            throw new IllegalStateException(NAME_TAG + "#build: " + planted + " defects can " +
+                    "not be planted on " + (long) states * transitionsPerState + " transitions");
+        }
+        if (defects.containsKey(Defect.DUPLICATE_PIN) && inputPins == 0) {
+            throw new IllegalStateException(NAME_TAG + "#build: there are no input pins to " +
+                    "be duplicated");
+        }
+    }
+
+    /**
+     * @return the source generated
+     */
+    public String generate() {
+        StringBuilder source = new StringBuilder();
+        try {
+            generate(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return source.toString();
+    }
+
+    /**
+     * Writes the source to {@code out} as it is generated, so big sources do not need to fit in
+     * memory
+     *
+     * @param out where the source is written to, can not be null
+     * @throws IOException if writing fails
+     */
+    public void generate(Appendable out) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#generate", "out", out);
+        Random random = new Random(seed);
+        Map<Long, Defect> plantedOn = plantDefects(random);
+
+        out.append("moore ").append(name).append(" {\n    states {\n");
+        for (int state = 0; state < states; state++) {
+            out.append(state == 0 ? "        " : ",\n        ").append("st")
+                    .append(Integer.toString(state));
+        }
+
+        out.append("\n    }\n\n    input {\n        pins {\n            clock: ")
+                .append(Integer.toString(CLOCK_PIN));
+        for (int pin = 0; pin < inputPins; pin++) {
+            out.append(",\n            in").append(Integer.toString(pin)).append(": ")
+                    .append(Integer.toString(CLOCK_PIN + 1 + pin));
+        }
+        int duplicates = defects.getOrDefault(Defect.DUPLICATE_PIN, 0);
+        for (int i = 0; i < duplicates; i++) {
+            out.append(",\n            in").append(Integer.toString(random.nextInt(inputPins)))
+                    .append(": ").append(Integer.toString(CLOCK_PIN + 1 + inputPins +
+                    outputPins + i));
+        }
+
+        out.append("\n        }\n\n        transition {\n");
+        int[] pins = new int[inputPins];
+        for (int state = 0; state < states; state++) {
+            comment(out, random, "            ", "transitions of st" + state);
+            out.append("            st").append(Integer.toString(state)).append(" {\n");
+            int[] values = deterministic ? distinctValues(random) : null;
+            if (deterministic) choosePins(random, pins);
+            for (int j = 0; j < transitionsPerState; j++) {
+                if (!deterministic) choosePins(random, pins);
+                int value = deterministic ? values[j] : random.nextInt(1 << guardWidth);
+                comment(out, random, "                ", "transition " + j);
+                long index = (long) state * transitionsPerState + j;
+                transition(out, random, pins, value, plantedOn.get(index), index);
+                out.append(j + 1 < transitionsPerState ? ",\n" : "\n");
+            }
+            out.append("            }\n");
+        }
+
+        out.append("        }\n    }\n\n    output {\n        pins {\n");
+        for (int pin = 0; pin < outputPins; pin++) {
+            out.append(pin == 0 ? "            " : ",\n            ").append("out")
+                    .append(Integer.toString(pin)).append(": ")
+                    .append(Integer.toString(CLOCK_PIN + 1 + inputPins + pin));
+        }
+        out.append("\n        }\n\n        function {\n");
+        for (int state = 0; state < states; state++) {
+            comment(out, random, "            ", "outputs of st" + state);
+            out.append("            st").append(Integer.toString(state)).append(" {\n");
+            for (int pin = 0; pin < outputPins; pin++) {
+                out.append(pin == 0 ? "                " : ",\n                ")
+                        .append(random.nextBoolean() ? "" : "!").append("out")
+                        .append(Integer.toString(pin));
+            }
+            out.append("\n            }\n");
+        }
+        out.append("        }\n    }\n}\n");
+    }
+
+    /**
+     * @return the defect planted on each transition with one, by state times the transitions per
+     * state plus the transition
+     */
+    private Map<Long, Defect> plantDefects(Random random) {
+        Map<Long, Defect> plantedOn = new HashMap<>();
+        long transitions = (long) states * transitionsPerState;
+        for (Map.Entry<Defect, Integer> entry : defects.entrySet()) {
+            if (entry.getKey() == Defect.DUPLICATE_PIN) continue;
+            for (int i = 0; i < entry.getValue(); i++) {
+                long transition;
+                do {
+                    transition = (long) (random.nextDouble() * transitions);
+                } while (plantedOn.containsKey(transition));
+                plantedOn.put(transition, entry.getKey());
+            }
+        }
+        return plantedOn;
+    }
+
+    /**
+     * Moves a random choice of {@link #guardWidth} pins to the front of {@code pins}
+     */
+    private void choosePins(Random random, int[] pins) {
+        for (int i = 0; i < pins.length; i++) pins[i] = i;
+        for (int i = 0; i < guardWidth; i++) {
+            int j = i + random.nextInt(pins.length - i);
+            int pin = pins[i];
+            pins[i] = pins[j];
+            pins[j] = pin;
+        }
+    }
+
+    /**
+     * Distinct values of the guard pins for the transitions of a state, drawn by Floyd's
+     * algorithm so only as many values as transitions are ever held
+     */
+    private int[] distinctValues(Random random) {
+        int[] values = new int[transitionsPerState];
+        if (complete) {
+            for (int j = 0; j < values.length; j++) values[j] = j;
+            return values;
+        }
+        int range = 1 << guardWidth;
+        Set<Integer> chosen = new LinkedHashSet<>();
+        for (int i = range - values.length; i < range; i++) {
+            int value = random.nextInt(i + 1);
+            chosen.add(chosen.contains(value) ? i : value);
+        }
+        int j = 0;
+        for (int value : chosen) values[j++] = value;
+        return values;
+    }
+
+    private void transition(Appendable out, Random random, int[] pins, int value, Defect defect,
+                            long index) throws IOException {
+        out.append("                ");
+        for (int bit = 0; bit < guardWidth; bit++) {
+            if (bit > 0) out.append(" & ");
+            if ((value >> bit & 1) == 0) out.append('!');
+            out.append("in").append(Integer.toString(pins[bit]));
+        }
+        if (defect == Defect.UNDECLARED_PIN) {
+            out.append(" & ghost").append(Long.toString(index));
+        }
+        out.append(defect == Defect.MISSING_ARROW ? " " : " -> ");
+        if (defect == Defect.UNDECLARED_STATE) {
+            out.append("ghost").append(Long.toString(index));
+        } else {
+            out.append("st").append(Integer.toString(random.nextInt(states)));
+        }
+        if (defect == Defect.INVALID_SYMBOL) out.append(" #");
+    }
+
+    private void comment(Appendable out, Random random, String indentation, String text)
+            throws IOException {
+        if (commentDensity > 0 && random.nextDouble() < commentDensity) {
+            out.append(indentation).append("/* ").append(text).append(" */\n");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SpecGenerator {" +
+                "name='" + name + '\'' +
+                ", states=" + states +
+                ", inputPins=" + inputPins +
+                ", outputPins=" + outputPins +
+                ", transitionsPerState=" + transitionsPerState +
+                ", guardWidth=" + guardWidth +
+                ", deterministic=" + deterministic +
+                ", complete=" + complete +
+                ", commentDensity=" + commentDensity +
+                ", defects=" + defects +
+                ", seed=" + seed +
+                '}';
+    }
+}
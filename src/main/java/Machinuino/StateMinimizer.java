@@ -0,0 +1,315 @@
+package Machinuino;
+
+import Machinuino.model.InputWord;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Output;
+import Machinuino.model.Transition;
+import Machinuino.model.TransitionTable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merges the equivalent states of a machine. Two states are equivalent when they drive the
+ * outputs the same way and, on every input word and level of the clock, go to equivalent states,
+ * a word no transition accepts keeping the machine on the state as the generated sketch does.
+ * The classes are found by Hopcroft's partition refinement over the dense transition tables, in
+ * O(n k log n) for n states and k input words
+ */
+public class StateMinimizer {
+
+    /**
+     * Most states times input words a machine may have to be minimized. Every pair takes some
+     * tens of bytes across the tables, the successors and their inverse, so this keeps a pass
+     * around a hundred megabytes
+     */
+    public static final int MAX_TABLE_ENTRIES = 1 << 21;
+    private static final String NAME_TAG = "StateMinimizer";
+
+    public StateMinimizer() {
+    }
+
+    /**
+     * Builds the machine with one state for each class of equivalent states. The state kept for a
+     * class is the initial state or the first one by id, with its transitions redirected to the
+     * states kept
+     *
+     * @param machine the machine to be minimized, can not be null
+     * @return the minimized machine, the machine passed if no state could be merged
+     * @throws IllegalArgumentException if the machine has too many pins to be tabulated or more
+     * than {@link #MAX_TABLE_ENTRIES} states times input words
+     * @throws IllegalStateException if the minimized machine does not step as the machine passed,
+     * which would be a bug of the minimizer
+     * @see TransitionTable#ofMachine(MooreMachine)
+     */
+    public MooreMachine minimize(MooreMachine machine) {
+        Utils.verifyNullity(NAME_TAG + "#minimize", "machine", machine);
+        int inputs = InputWord.inputBits(machine).size();
+        // More inputs than a table holds are reported by the table itself
+        if (inputs <= TransitionTable.MAX_INPUT_BITS &&
+                (long) machine.getStateCount() << inputs > MAX_TABLE_ENTRIES) {
+            throw new IllegalArgumentException(NAME_TAG + "#minimize: " + machine.getName() +
+                    " has " + machine.getStateCount() + " states on " + (1 << inputs) +
+                    " input words, at most " + MAX_TABLE_ENTRIES + " pairs can be minimized");
+        }
+        TransitionTable high = TransitionTable.ofMachine(machine, true);
+        TransitionTable low = TransitionTable.ofMachine(machine, false);
+        // The levels of the clock only need their own symbols when some guard tests the clock
+        TransitionTable[] tables = high.equals(low) ?
+                new TransitionTable[]{high} : new TransitionTable[]{high, low};
+
+        int states = machine.getStateCount();
+        int words = high.getWordCount();
+        int symbols = words * tables.length;
+        int[] next = new int[states * symbols];
+        for (int state = 0; state < states; state++) {
+            for (int table = 0; table < tables.length; table++) {
+                for (int word = 0; word < words; word++) {
+                    next[state * symbols + table * words + word] =
+                            tables[table].getNextOrStay(state, word);
+                }
+            }
+        }
+
+        int[] blockOf = new Partition(states, symbols, next, high).refine();
+        int blocks = 0;
+        for (int block : blockOf) blocks = Math.max(blocks, block + 1);
+        if (blocks == states) return machine;
+
+        MooreMachine minimized = quotient(machine, blockOf, blocks);
+        if (!preservesTransitions(minimized, tables, next, symbols, blockOf, machine)) {
+            throw new IllegalStateException(NAME_TAG + "#minimize: the minimized " +
+                    machine.getName() + " does not step as the classes found.");
+        }
+        return minimized;
+    }
+
+    /**
+     * The states kept for each class, indexed by class
+     */
+    private static int[] representatives(MooreMachine machine, int[] blockOf, int blocks) {
+        int[] representatives = new int[blocks];
+        Arrays.fill(representatives, -1);
+        int initial = machine.getStateId(machine.getInitialState());
+        representatives[blockOf[initial]] = initial;
+        for (int state = 0; state < blockOf.length; state++) {
+            if (representatives[blockOf[state]] < 0) representatives[blockOf[state]] = state;
+        }
+        return representatives;
+    }
+
+    private static MooreMachine quotient(MooreMachine machine, int[] blockOf, int blocks) {
+        int[] representatives = representatives(machine, blockOf, blocks);
+        boolean[] kept = new boolean[blockOf.length];
+        for (int representative : representatives) kept[representative] = true;
+
+        MooreMachine.Builder builder = new MooreMachine.Builder(machine.getName());
+        for (int state = 0; state < blockOf.length; state++) {
+            if (kept[state]) builder.addState(machine.getStateOfId(state));
+        }
+        builder.initialState(machine.getInitialState());
+        for (int id = 0; id < machine.getInputPinCount(); id++) {
+            builder.addInputPin(machine.getInputPinOfId(id));
+        }
+        for (int id = 0; id < machine.getOutputPinCount(); id++) {
+            builder.addOutputPin(machine.getOutputPinOfId(id));
+        }
+        for (int state = 0; state < blockOf.length; state++) {
+            if (!kept[state]) continue;
+            String name = machine.getStateOfId(state);
+            for (Transition transition : machine.getTransitionsOfState(state)) {
+                int nextState = machine.getStateId(transition.getNextState());
+                builder.addTransition(Transition.ofValue(name,
+                        machine.getStateOfId(representatives[blockOf[nextState]]),
+                        transition.getInput()));
+            }
+            Output output = machine.getOutputOfState(state);
+            if (output != null) builder.addOutput(name, output.getBoolPins());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Safety net against a bug of the minimizer. Redirecting the transitions may change the order
+     * of the transitions of a state, which decides the state taken when guards to different
+     * classes overlap, so the tables of the minimized machine are checked against the classes
+     * found
+     */
+    private static boolean preservesTransitions(MooreMachine minimized, TransitionTable[] tables,
+                                                int[] next, int symbols, int[] blockOf,
+                                                MooreMachine machine) {
+        int[] representatives = representatives(machine, blockOf, minimized.getStateCount());
+        int words = tables[0].getWordCount();
+        for (int table = 0; table < tables.length; table++) {
+            TransitionTable minimizedTable = TransitionTable.ofMachine(minimized, table == 0);
+            for (int representative : representatives) {
+                int state = minimized.getStateId(machine.getStateOfId(representative));
+                for (int word = 0; word < words; word++) {
+                    int expected = representatives[blockOf[
+                            next[representative * symbols + table * words + word]]];
+                    if (!minimized.getStateOfId(minimizedTable.getNextOrStay(state, word))
+                            .equals(machine.getStateOfId(expected))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Partition of the states refined in place: the states of a block are contiguous on
+     * {@code elements}, and the states of a block hit by the current splitter are moved to its
+     * front
+     */
+    private static final class Partition {
+
+        private final int symbols;
+        private final int[] predecessorStart;
+        private final int[] predecessors;
+        private final int[] elements;
+        private final int[] location;
+        private final int[] blockOf;
+        private final int[] first;
+        private final int[] end;
+        private final int[] marked;
+        private final boolean[] waiting;
+        private final Deque<Integer> splitters;
+        private int blocks;
+
+        /**
+         * Starts from the blocks of states with the same output word
+         */
+        private Partition(int states, int symbols, int[] next, TransitionTable table) {
+            this.symbols = symbols;
+            this.predecessorStart = new int[symbols * states + 1];
+            this.predecessors = new int[next.length];
+            for (int state = 0; state < states; state++) {
+                for (int symbol = 0; symbol < symbols; symbol++) {
+                    predecessorStart[symbol * states + next[state * symbols + symbol] + 1]++;
+                }
+            }
+            for (int i = 1; i < predecessorStart.length; i++) {
+                predecessorStart[i] += predecessorStart[i - 1];
+            }
+            int[] fill = predecessorStart.clone();
+            for (int state = 0; state < states; state++) {
+                for (int symbol = 0; symbol < symbols; symbol++) {
+                    predecessors[fill[symbol * states + next[state * symbols + symbol]]++] = state;
+                }
+            }
+
+            this.elements = new int[states];
+            this.location = new int[states];
+            this.blockOf = new int[states];
+            this.first = new int[states];
+            this.end = new int[states];
+            this.marked = new int[states];
+            this.waiting = new boolean[states * symbols];
+            this.splitters = new ArrayDeque<>();
+
+            Map<Integer, Integer> blockOfOutput = new HashMap<>();
+            int[] sizes = new int[states];
+            for (int state = 0; state < states; state++) {
+                int block = blockOfOutput.computeIfAbsent(table.getOutputWord(state),
+                        output -> blockOfOutput.size());
+                blockOf[state] = block;
+                sizes[block]++;
+            }
+            blocks = blockOfOutput.size();
+            for (int block = 1; block < blocks; block++) {
+                first[block] = first[block - 1] + sizes[block - 1];
+            }
+            for (int block = 0; block < blocks; block++) end[block] = first[block];
+            for (int state = 0; state < states; state++) {
+                location[state] = end[blockOf[state]]++;
+                elements[location[state]] = state;
+            }
+
+            int largest = 0;
+            for (int block = 1; block < blocks; block++) {
+                if (sizes[block] > sizes[largest]) largest = block;
+            }
+            for (int block = 0; block < blocks; block++) {
+                if (block == largest) continue;
+                for (int symbol = 0; symbol < symbols; symbol++) addSplitter(block, symbol);
+            }
+        }
+
+        /**
+         * @return the class of each state, numbered from 0
+         */
+        private int[] refine() {
+            int states = elements.length;
+            int[] splitter = new int[states];
+            int[] touched = new int[states];
+            while (!splitters.isEmpty()) {
+                int pair = splitters.pop();
+                waiting[pair] = false;
+                int block = pair / symbols;
+                int symbol = pair % symbols;
+
+                // Marking moves states inside their blocks, the splitter is copied first
+                int size = end[block] - first[block];
+                System.arraycopy(elements, first[block], splitter, 0, size);
+                int touchedCount = 0;
+                for (int i = 0; i < size; i++) {
+                    int target = symbol * states + splitter[i];
+                    for (int j = predecessorStart[target]; j < predecessorStart[target + 1]; j++) {
+                        int state = predecessors[j];
+                        int stateBlock = blockOf[state];
+                        int boundary = first[stateBlock] + marked[stateBlock];
+                        if (location[state] < boundary) continue;
+                        swap(location[state], boundary);
+                        if (marked[stateBlock]++ == 0) touched[touchedCount++] = stateBlock;
+                    }
+                }
+
+                for (int i = 0; i < touchedCount; i++) split(touched[i]);
+            }
+            return blockOf;
+        }
+
+        /**
+         * Moves the marked states of the block to a new block, if not all of them are marked
+         */
+        private void split(int block) {
+            int boundary = first[block] + marked[block];
+            marked[block] = 0;
+            if (boundary == end[block]) return;
+
+            int created = blocks++;
+            first[created] = first[block];
+            end[created] = boundary;
+            first[block] = boundary;
+            for (int i = first[created]; i < end[created]; i++) blockOf[elements[i]] = created;
+
+            boolean createdSmaller = end[created] - first[created] <= end[block] - first[block];
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                if (waiting[block * symbols + symbol] || createdSmaller) {
+                    addSplitter(created, symbol);
+                } else {
+                    addSplitter(block, symbol);
+                }
+            }
+        }
+
+        private void addSplitter(int block, int symbol) {
+            int pair = block * symbols + symbol;
+            if (waiting[pair]) return;
+            waiting[pair] = true;
+            splitters.push(pair);
+        }
+
+        private void swap(int i, int j) {
+            int state = elements[i];
+            elements[i] = elements[j];
+            elements[j] = state;
+            location[elements[i]] = i;
+            location[elements[j]] = j;
+        }
+    }
+}
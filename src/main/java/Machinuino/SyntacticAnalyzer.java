@@ -1,9 +1,13 @@
 package Machinuino;
 
+import Machinuino.model.Fault;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 class SyntacticAnalyzer {
 
@@ -19,14 +23,21 @@ class SyntacticAnalyzer {
      * otherwise returns an empty String
      */
     static String analyzeFile(String fileLocation) throws IOException {
-        ANTLRInputStream input = new ANTLRFileStream(fileLocation);
-        MachinuinoLexer lexer = new MachinuinoLexer(input);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        MachinuinoParser parser = new MachinuinoParser(tokens);
+        return analyze(CompilationUnit.fromFile(fileLocation));
+    }
 
+    /**
+     * Parses the {@code unit} and return the syntactic error it contains, if any. The parse tree
+     * is kept on the unit so the following phases do not need to parse it again.
+     *
+     * @param unit the compilation unit to be parsed, must not have been parsed yet
+     * @return a String containing the syntactic errors, if there is any,
+     * otherwise returns an empty String
+     */
+    static String analyze(CompilationUnit unit) {
         StringBuilder errors = new StringBuilder();
 
-        parser.addErrorListener(new BaseErrorListener() {
+        ANTLRErrorListener listener = new BaseErrorListener() {
             @Override
             public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
                                     int col, String msg, RecognitionException e) {
@@ -37,10 +48,10 @@ class SyntacticAnalyzer {
 
                 throw new ParseCancellationException(error + System.lineSeparator());
             }
-        });
+        };
 
         try {
-            parser.moore();
+            unit.parse(listener);
         } catch (ParseCancellationException pce) {
             errors.append(pce.getMessage());
         }
@@ -50,4 +61,86 @@ class SyntacticAnalyzer {
         else
             return errors.toString();
     }
+
+    /**
+     * Parses the {@code unit} recovering from the errors, so every lexical and syntactic error is
+     * found in a single pass instead of only the first one. The errors are ordered by position,
+     * the parse stops when an error is found after {@code maxErrors} were.
+     *
+     * @param unit the compilation unit to be parsed, must not have been parsed yet
+     * @param maxErrors the most errors reported, the parse stops on the next one, at least 1
+     * @return the errors found, with their line and column
+     * @throws IllegalArgumentException if maxErrors is not positive
+     */
+    static Fault analyze(CompilationUnit unit, int maxErrors) {
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("SyntacticAnalyzer#analyze: maxErrors must be " +
+                    "positive!");
+        }
+        ErrorCollector collector = new ErrorCollector(maxErrors);
+        try {
+            unit.parse(collector, true);
+        } catch (ParseCancellationException pce) {
+            // Stopped by the collector, the errors found so far are reported.
+        }
+        return collector.toFault();
+    }
+
+    /**
+     * Collects the errors of the lexer and of the parser, cancelling the parse on the first error
+     * past {@code maxErrors}. The lexer reports the invalid symbol as the message
+     */
+    private static class ErrorCollector extends BaseErrorListener {
+
+        private final int maxErrors;
+        private final List<CollectedError> errors;
+        private boolean stopped;
+
+        private ErrorCollector(int maxErrors) {
+            this.maxErrors = maxErrors;
+            this.errors = new ArrayList<>();
+            this.stopped = false;
+        }
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int col, String msg, RecognitionException e) {
+            // Only an error beyond the limit stops the parse, it is not reported
+            if (errors.size() == maxErrors) {
+                stopped = true;
+                throw new ParseCancellationException("Stopped after " + maxErrors + " errors");
+            }
+            boolean lexical = recognizer instanceof Lexer;
+            String text = lexical ? msg : ((Token) offendingSymbol).getText();
+            errors.add(new CollectedError(line, col + 1, lexical, text));
+        }
+
+        private Fault toFault() {
+            // Lexical errors are found as the tokens are read, which may be ahead of the parser
+            errors.sort(Comparator.comparingInt((CollectedError error) -> error.line)
+                    .thenComparingInt(error -> error.column));
+            Fault fault = Fault.getInstance();
+            for (CollectedError error : errors) {
+                if (error.lexical) fault.addErrorLexical(error.text, error.line, error.column);
+                else fault.addErrorSyntactic(error.text, error.line, error.column);
+            }
+            if (stopped) fault.addErrorTooMany(maxErrors);
+            return fault;
+        }
+    }
+
+    private static class CollectedError {
+
+        private final int line;
+        private final int column;
+        private final boolean lexical;
+        private final String text;
+
+        private CollectedError(int line, int column, boolean lexical, String text) {
+            this.line = line;
+            this.column = column;
+            this.lexical = lexical;
+            this.text = text;
+        }
+    }
 }
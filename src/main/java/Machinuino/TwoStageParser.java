@@ -0,0 +1,119 @@
+package Machinuino;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parses .moore sources with one lexer and one parser per thread, reused from source to source.
+ * A source is first parsed with SLL prediction, bailing out on the first error without telling
+ * the listener, and parsed again with full LL prediction and the listener only when SLL fails,
+ * which on this grammar only happens for sources with syntactic errors. The DFA the predictions
+ * build is shared by every parser of the JVM, so {@link #warmUp} fills it once
+ */
+final class TwoStageParser {
+
+    private static final ThreadLocal<TwoStageParser> PARSERS =
+            ThreadLocal.withInitial(TwoStageParser::new);
+    private static final AtomicBoolean WARMED_UP = new AtomicBoolean();
+    private final CharStream empty;
+    private final MachinuinoLexer lexer;
+    private final MachinuinoParser parser;
+    private final BailErrorStrategy bail;
+    private final DefaultErrorStrategy recover;
+
+    private TwoStageParser() {
+        this.empty = new ANTLRInputStream("");
+        this.lexer = new MachinuinoLexer(empty);
+        this.lexer.removeErrorListeners();
+        this.parser = new MachinuinoParser(new CommonTokenStream(lexer));
+        this.bail = new BailErrorStrategy();
+        this.recover = new DefaultErrorStrategy();
+    }
+
+    /**
+     * @return the parser of the calling thread
+     */
+    static TwoStageParser forCurrentThread() {
+        return PARSERS.get();
+    }
+
+    /**
+     * Parses a generated source, with and without a syntactic error, so the DFA is already built
+     * when the first file is parsed. Only the first call does anything
+     */
+    static void warmUp() {
+        if (!WARMED_UP.compareAndSet(false, true)) return;
+        SpecGenerator.Builder builder = new SpecGenerator.Builder().states(20).commentDensity(0.5);
+        ANTLRErrorListener silent = new BaseErrorListener();
+        TwoStageParser parser = forCurrentThread();
+        parser.parse(new ANTLRInputStream(builder.build().generate()), silent);
+        parser.parse(new ANTLRInputStream(builder.defect(SpecGenerator.Defect.MISSING_ARROW, 1)
+                .build().generate()), silent);
+    }
+
+    /**
+     * Parses a source, stopping the lexer on its first invalid symbol. Errors of the lexer are not
+     * retried, they propagate from either stage
+     *
+     * @see #parse(CharStream, ANTLRErrorListener, boolean)
+     */
+    MachinuinoParser.MooreContext parse(CharStream input, ANTLRErrorListener listener) {
+        return parse(input, listener, false);
+    }
+
+    /**
+     * Parses a source
+     *
+     * @param input the source, can not be null
+     * @param listener listener of the syntactic errors, only told of the errors of the LL stage,
+     *                 can not be null
+     * @param recovering whether the invalid symbols are told to the listener and skipped, each
+     *                   symbol being lexed once so they are told once. Otherwise the lexer stops
+     *                   on the first of them
+     * @return the root of the parse tree
+     */
+    MachinuinoParser.MooreContext parse(CharStream input, ANTLRErrorListener listener,
+                                        boolean recovering) {
+        Utils.verifyNullity("TwoStageParser#parse", "input", input);
+        Utils.verifyNullity("TwoStageParser#parse", "listener", listener);
+        try {
+            lexer.setRecovering(recovering);
+            if (recovering) lexer.addErrorListener(listener);
+            parser.removeErrorListeners();
+            parser.setErrorHandler(bail);
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            // A new token stream, as the one of ANTLR 4.5 can not be pointed to another source
+            // once it has reached the end of the last one
+            lexer.setInputStream(input);
+            parser.setInputStream(new CommonTokenStream(lexer));
+            try {
+                return parser.moore();
+            } catch (ParseCancellationException e) {
+                if (!(e.getCause() instanceof RecognitionException)) throw e;
+            }
+
+            // The tokens already lexed are kept, only the parse is done again
+            parser.addErrorListener(listener);
+            parser.setErrorHandler(recover);
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.reset();
+            return parser.moore();
+        } finally {
+            // Forget the source so it is not kept alive by an idle thread
+            lexer.removeErrorListeners();
+            parser.removeErrorListeners();
+            lexer.setInputStream(empty);
+            parser.setInputStream(new CommonTokenStream(lexer));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package Machinuino.model;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Read-only set of pin values backed by a plain array, so it can be handed out by immutable
+ * classes without copying it. The elements keep the order a {@link HashSet} with the same
+ * elements would iterate them
+ * Immutable
+ */
+
+final class BoolPinSet extends AbstractSet<BoolPin> {
+
+    private static final BoolPinSet EMPTY = new BoolPinSet(new BoolPin[0]);
+    private final BoolPin[] boolPins;
+    private final int hashCode;
+
+    private BoolPinSet(BoolPin[] boolPins) {
+        this.boolPins = boolPins;
+        int hash = 0;
+        for (BoolPin boolPin : boolPins) hash += Objects.hashCode(boolPin);
+        this.hashCode = hash;
+    }
+
+    /**
+     * Copies the elements of a set
+     *
+     * @param boolPins the set to be copied, can not be null
+     * @return a read-only set with the same elements as the one passed
+     */
+    static BoolPinSet copyOf(Set<BoolPin> boolPins) {
+        if (boolPins instanceof BoolPinSet) return (BoolPinSet) boolPins;
+        if (boolPins.isEmpty()) return EMPTY;
+        return new BoolPinSet(new HashSet<>(boolPins).toArray(new BoolPin[0]));
+    }
+
+    @Override
+    public Iterator<BoolPin> iterator() {
+        return new Iterator<BoolPin>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < boolPins.length;
+            }
+
+            @Override
+            public BoolPin next() {
+                if (next >= boolPins.length) throw new NoSuchElementException();
+                return boolPins[next++];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return boolPins.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        // Sets of pin values are as small as the number of pins, a scan beats hashing
+        for (BoolPin boolPin : boolPins) {
+            if (Objects.equals(boolPin, o)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(boolPins, boolPins.length, Object[].class);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (o instanceof BoolPinSet && ((BoolPinSet) o).hashCode != hashCode) return false;
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
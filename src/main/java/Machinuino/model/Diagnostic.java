@@ -0,0 +1,261 @@
+package Machinuino.model;
+
+import Machinuino.Utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single error or warning of a compilation: what was found, where and on which names. The
+ * message is only formatted when it is printed, so collecting many diagnostics costs no more
+ * than collecting their arguments. The position is kept as plain ints, the line and column of the
+ * offending token and the indexes of its first and last symbol on the source, so a diagnostic
+ * never keeps the tokens nor the source alive
+ * Immutable
+ */
+public final class Diagnostic {
+
+    private static final String NAME_TAG = "Diagnostic";
+
+    /**
+     * Line or column of a diagnostic without one
+     */
+    public static final int NO_POSITION = 0;
+
+    /**
+     * Start or stop index of a diagnostic without one
+     */
+    public static final int NO_INDEX = -1;
+
+    public enum Severity {
+        ERROR,
+        WARNING
+    }
+
+    /**
+     * The kinds of diagnostic, each with the template of its message, whose {@code %s} are
+     * replaced by the arguments in order
+     */
+    public enum Code {
+        /**
+         * A message given as it is, printed without a line separator appended
+         */
+        MESSAGE("%s"),
+        SYNTACTIC("Syntactic error next to '%s'"),
+        LEXICAL("Lexical Error: %s - invalid symbol"),
+        TOO_MANY_ERRORS("Too many errors, stopped after %s."),
+        DUPLICATE_PIN("Duplicate pin %s."),
+        UNDECLARED_STATE("State %s undeclared."),
+        UNDECLARED_INPUT_PIN("Input Pin %s undeclared."),
+        UNDECLARED_OUTPUT_PIN("Output Pin %s undeclared."),
+        PIN_NUMBER_ALREADY_USED("Pin Number %s already used."),
+        OUTPUT_ALREADY_DEFINED("Output \"%s\" already defined."),
+        INPUT_ALREADY_IN_EXPRESSION("Input Pin \"%s\" already used in expression."),
+        DUPLICATE_TRANSITION_FROM_STATE("Transition coming from state \"%s\" already defined."),
+        DUPLICATE_SYMBOL("Symbol %s already used. Will be ignored."),
+        EMPTY_SECTION("Empty \"%s\" section"),
+        UNREACHABLE_STATES("States %s unreachable from the initial state. Will be removed."),
+        UNCOVERED_INPUTS("State %s has no transition on %s. Will stay on %s.");
+
+        // The template split on its placeholders, one more piece than arguments
+        private final String[] pieces;
+
+        Code(String template) {
+            this.pieces = template.split("%s", -1);
+        }
+
+        /**
+         * @return the number of arguments the message takes
+         */
+        public int getArity() {
+            return pieces.length - 1;
+        }
+    }
+
+    private final Code code;
+    private final Severity severity;
+    private final int line;
+    private final int column;
+    private final int startIndex;
+    private final int stopIndex;
+    private final String[] args;
+
+    private Diagnostic(Code code, Severity severity, int line, int column, int startIndex,
+                       int stopIndex, String[] args) {
+        this.code = code;
+        this.severity = severity;
+        this.line = line;
+        this.column = column;
+        this.startIndex = startIndex;
+        this.stopIndex = stopIndex;
+        this.args = args;
+    }
+
+    /**
+     * @param code the kind of diagnostic, can not be null
+     * @param severity can not be null
+     * @param line line the diagnostic refers to, from 1, {@link #NO_POSITION} if none
+     * @param column column on the line, from 1, {@link #NO_POSITION} if none
+     * @param args the names the message is about, as many as the code takes, none can be null
+     * @return Diagnostic with attributes specified by the parameters
+     * @throws NullPointerException if any of the parameters passed are null
+     * @throws IllegalArgumentException if line or column are negative, or the number of
+     *                                  arguments does not match the code
+     */
+    public static Diagnostic of(Code code, Severity severity, int line, int column,
+                                String... args) {
+        return at(code, severity, line, column, NO_INDEX, NO_INDEX, args);
+    }
+
+    /**
+     * Creates a Diagnostic on a token of the source
+     *
+     * @param startIndex index on the source of the first symbol of the token, from 0,
+     *                   {@link #NO_INDEX} if unknown
+     * @param stopIndex index on the source of the last symbol of the token, {@link #NO_INDEX} if
+     *                  unknown
+     * @return Diagnostic with attributes specified by the parameters
+     * @throws IllegalArgumentException if an index is below {@link #NO_INDEX}
+     * @see #of(Code, Severity, int, int, String...)
+     */
+    public static Diagnostic at(Code code, Severity severity, int line, int column,
+                                int startIndex, int stopIndex, String... args) {
+        Utils.verifyNullity(NAME_TAG + "#at", "code", code);
+        Utils.verifyNullity(NAME_TAG + "#at", "severity", severity);
+        Utils.verifyPositive(NAME_TAG + "#at", "line", line);
+        Utils.verifyPositive(NAME_TAG + "#at", "column", column);
+        if (startIndex < NO_INDEX || stopIndex < NO_INDEX) {
+            throw new IllegalArgumentException(NAME_TAG + "#at: invalid indexes " + startIndex +
+                    ", " + stopIndex + ".");
+        }
+        Utils.verifyNullity(NAME_TAG + "#at", "args", args);
+        for (String arg : args) Utils.verifyNullity(NAME_TAG + "#at", "arg", arg);
+        if (args.length != code.getArity()) {
+            throw new IllegalArgumentException(NAME_TAG + "#at: " + code + " takes " +
+                    code.getArity() + " arguments, not " + args.length + ".");
+        }
+        return new Diagnostic(code, severity, line, column, startIndex, stopIndex, args.clone());
+    }
+
+    public Code getCode() {
+        return code;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    /**
+     * @return the line, from 1, {@link #NO_POSITION} if the diagnostic has none
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the column, from 1, {@link #NO_POSITION} if the diagnostic has none
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the index on the source of the first symbol of the token, {@link #NO_INDEX} if
+     * unknown
+     */
+    public int getStartIndex() {
+        return startIndex;
+    }
+
+    /**
+     * @return the index on the source of the last symbol of the token, {@link #NO_INDEX} if
+     * unknown
+     */
+    public int getStopIndex() {
+        return stopIndex;
+    }
+
+    /**
+     * @return a read-only view of the arguments of the message
+     */
+    public List<String> getArgs() {
+        return Collections.unmodifiableList(Arrays.asList(args));
+    }
+
+    /**
+     * @return the message alone, without position nor line separator
+     */
+    public String getMessage() {
+        StringBuilder builder = new StringBuilder();
+        appendMessage(builder);
+        return builder.toString();
+    }
+
+    private void appendMessage(StringBuilder builder) {
+        String[] pieces = code.pieces;
+        builder.append(pieces[0]);
+        for (int i = 0; i < args.length; i++) builder.append(args[i]).append(pieces[i + 1]);
+    }
+
+    /**
+     * Appends the diagnostic as the compiler prints it: {@code line:column: message} followed by
+     * a line separator, the position being left out when missing
+     *
+     * @param builder where the diagnostic is appended, can not be null
+     */
+    public void appendTo(StringBuilder builder) {
+        Utils.verifyNullity(NAME_TAG + "#appendTo", "builder", builder);
+        if (code == Code.MESSAGE) {
+            builder.append(args[0]);
+            return;
+        }
+        if (line != NO_POSITION) {
+            builder.append(line);
+            if (column != NO_POSITION) builder.append(':').append(column);
+            builder.append(": ");
+        }
+        appendMessage(builder);
+        builder.append(System.lineSeparator());
+    }
+
+    /**
+     * @return the diagnostic as the compiler prints it
+     * @see #appendTo(StringBuilder)
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        appendTo(builder);
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null) return false;
+        if (o == this) return true;
+        if (o.getClass() != getClass()) return false;
+
+        Diagnostic diagnostic = (Diagnostic) o;
+        return code == diagnostic.code && severity == diagnostic.severity &&
+                line == diagnostic.line && column == diagnostic.column &&
+                startIndex == diagnostic.startIndex && stopIndex == diagnostic.stopIndex &&
+                Arrays.equals(args, diagnostic.args);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = code.hashCode();
+        result = 31 * result + severity.hashCode();
+        result = 31 * result + line;
+        result = 31 * result + column;
+        result = 31 * result + startIndex;
+        result = 31 * result + stopIndex;
+        result = 31 * result + Arrays.hashCode(args);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
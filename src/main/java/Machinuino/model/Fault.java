@@ -3,127 +3,184 @@ package Machinuino.model;
 import Machinuino.Utils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The errors and warnings found while compiling a file, kept as {@link Diagnostic}s in the order
+ * they were found, a diagnostic found again being ignored. The messages are only formatted when
+ * they are asked for
+ */
 public class Fault {
 
     private static final String NAME_TAG = "Fault";
-    private List<String> errors;
-    private List<String> warnings;
+    private Set<Diagnostic> errors;
+    private Set<Diagnostic> warnings;
+    // Formatted on demand, dropped when a diagnostic is added
+    private String errorsText;
+    private String warningsText;
 
-    private Fault(List<String> errors, List<String> warnings) {
-        if (errors == null) throw new NullPointerException(NAME_TAG + "#Fault: Null errors array list.");
-        if (warnings == null) throw new NullPointerException(NAME_TAG + "#Fault: Null warnings array list.");
+    private Fault(Set<Diagnostic> errors, Set<Diagnostic> warnings) {
+        if (errors == null) throw new NullPointerException(NAME_TAG + "#Fault: Null errors set.");
+        if (warnings == null) throw new NullPointerException(NAME_TAG + "#Fault: Null warnings set.");
 
         this.errors = errors;
         this.warnings = warnings;
     }
 
     public static Fault getInstance() {
-        List<String> errors = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
+        Set<Diagnostic> errors = new LinkedHashSet<>();
+        Set<Diagnostic> warnings = new LinkedHashSet<>();
 
         return new Fault(errors, warnings);
     }
 
-    public void addError(String error) {
-        if (error == null) throw new NullPointerException(NAME_TAG + "#addError: Null error message.");
-        if (!errors.contains(error)) errors.add(error);
-    }
-
-    public void addErrorDuplicatePin(String pinName, int line) {
-        Utils.verifyNullity(NAME_TAG + "#addErrorDuplicatePin", "pinName", pinName);
-        Utils.verifyPositive(NAME_TAG + "#addErrorDuplicatePin", "line", line);
+    /**
+     * Adds an error or a warning, according to its severity, unless it was already added
+     *
+     * @param diagnostic can not be null
+     */
+    public void add(Diagnostic diagnostic) {
+        Utils.verifyNullity(NAME_TAG + "#add", "diagnostic", diagnostic);
 
-        this.addError(line + ": Duplicate pin " + pinName + "." + System.lineSeparator());
+        if (diagnostic.getSeverity() == Diagnostic.Severity.ERROR) {
+            if (errors.add(diagnostic)) errorsText = null;
+        } else {
+            if (warnings.add(diagnostic)) warningsText = null;
+        }
     }
 
-    public void addErrorUndeclaredState(String state, int line) {
-        Utils.verifyNullity(NAME_TAG + "#addErrorStateUndeclared", "state", state);
-        Utils.verifyPositive(NAME_TAG + "#addErrorStateUndeclared", "line", line);
-
-        this.addError(line + ": State " + state + " undeclared." + System.lineSeparator());
+    private void addError(Diagnostic.Code code, int line, int column, String... args) {
+        add(Diagnostic.of(code, Diagnostic.Severity.ERROR, line, column, args));
     }
 
-    public void addErrorUndeclaredInputPin(String pinName, int line) {
-        Utils.verifyNullity(NAME_TAG + "#addErrorUndeclaredPin", "Pin name", pinName);
-        Utils.verifyPositive(NAME_TAG + "#addErrorUndeclaredPin", "line", line);
-
-        this.addError(line + ": Input Pin " + pinName + " undeclared." + System.lineSeparator());
+    private void addWarning(Diagnostic.Code code, int line, String... args) {
+        add(Diagnostic.of(code, Diagnostic.Severity.WARNING, line, Diagnostic.NO_POSITION, args));
     }
 
-    public void addErrorUndeclaredOutputPin(String pinName, int line) {
-        Utils.verifyNullity(NAME_TAG + "#addErrorUndeclaredOutputPin", "Pin name", pinName);
-        Utils.verifyPositive(NAME_TAG + "#addErrorUndeclaredOutputPin", "line", line);
-
-        this.addError(line + ": Output Pin " + pinName + " undeclared." + System.lineSeparator());
+    public void addError(String error) {
+        if (error == null) throw new NullPointerException(NAME_TAG + "#addError: Null error message.");
+        addError(Diagnostic.Code.MESSAGE, Diagnostic.NO_POSITION, Diagnostic.NO_POSITION, error);
     }
 
-    public void addErrorPinNumberAlreadyUsed(int pinNumber, int line) {
-        Utils.verifyPositive(NAME_TAG + "#addErrorPinNumberAlreadyUsed", "pin number", pinNumber);
-        Utils.verifyPositive(NAME_TAG + "#addErrorPinNumberAlreadyUsed", "line", line);
+    /**
+     * @param near text of the token next to which the parser found the error, can not be null
+     * @param line line of the token, from 1
+     * @param column column of the token on its line, from 1
+     */
+    public void addErrorSyntactic(String near, int line, int column) {
+        Utils.verifyNullity(NAME_TAG + "#addErrorSyntactic", "near", near);
+        Utils.verifyPositive(NAME_TAG + "#addErrorSyntactic", "line", line);
+        Utils.verifyPositive(NAME_TAG + "#addErrorSyntactic", "column", column);
 
-        this.addError(line + ": Pin Number " + pinNumber + " already used." + System.lineSeparator());
+        this.addError(Diagnostic.Code.SYNTACTIC, line, column, near);
     }
 
-    public void addErrorOutputAlreadyDefined(String outputPinName, int line) {
-        Utils.verifyNullity(NAME_TAG + "#addErrorOutputAlreadyDefined", "Pin name", outputPinName);
-        Utils.verifyPositive(NAME_TAG + "#addErrorOutputAlreadyDefined", "line", line);
+    /**
+     * @param symbol the symbol out of the language, can not be null
+     * @param line line of the symbol, from 1
+     * @param column column of the symbol on its line, from 1
+     */
+    public void addErrorLexical(String symbol, int line, int column) {
+        Utils.verifyNullity(NAME_TAG + "#addErrorLexical", "symbol", symbol);
+        Utils.verifyPositive(NAME_TAG + "#addErrorLexical", "line", line);
+        Utils.verifyPositive(NAME_TAG + "#addErrorLexical", "column", column);
 
-        this.addError(line + ": Output \"" + outputPinName + "\" already defined." + System.lineSeparator());
+        this.addError(Diagnostic.Code.LEXICAL, line, column, symbol);
     }
 
-    public void addErrorInputAlreadyInExp(String inputPinName, int line) {
-        Utils.verifyNullity(NAME_TAG + "#addErrorInputAlreadyInExp", "Pin name", inputPinName);
-        Utils.verifyPositive(NAME_TAG + "#addErrorInputAlreadyInExp", "line", line);
+    /**
+     * @param maxErrors the number of errors after which the analysis stopped
+     */
+    public void addErrorTooMany(int maxErrors) {
+        Utils.verifyPositive(NAME_TAG + "#addErrorTooMany", "maxErrors", maxErrors);
 
-        this.addError(line + ": Input Pin \"" + inputPinName +
-                "\" already used in expression." + System.lineSeparator());
+        this.addError(Diagnostic.Code.TOO_MANY_ERRORS, Diagnostic.NO_POSITION, Diagnostic.NO_POSITION,
+                Integer.toString(maxErrors));
     }
 
-    public void addErrorDuplicateTransitionFromState(String state, int line) {
-        Utils.verifyNullity(NAME_TAG + "#addErrorDuplicateTransitionFromState", "State", state);
-        Utils.verifyPositive(NAME_TAG + "#addErrorDuplicateTransitionFromState", "line", line);
+    public int getErrorCount() {
+        return errors.size();
+    }
 
-        this.addError(line + ": Transition coming from state \"" + state + "\" already defined." +
-                System.lineSeparator());
+    public boolean hasErrors() {
+        return !errors.isEmpty();
     }
 
     public String getErrors() {
-        return errors.stream().collect(Collectors.joining(""));
+        if (errorsText == null) errorsText = format(errors);
+        return errorsText;
+    }
+
+    /**
+     * @return the errors followed by the warnings, each in the order they were added
+     */
+    public Stream<Diagnostic> getDiagnostics() {
+        return Stream.concat(errors.stream(), warnings.stream());
     }
 
     public void addWarning(String warning) {
         Utils.verifyNullity(NAME_TAG + "#addWarning", "warning message", warning);
 
-        if (!warnings.contains(warning))
-            warnings.add(warning);
+        this.addWarning(Diagnostic.Code.MESSAGE, Diagnostic.NO_POSITION, warning);
     }
 
-    public void addWarningDuplicateSymbol(String symbol, int line) {
-        Utils.verifyNullity(NAME_TAG + "#addWarningDuplicateSymbol", "symbol", symbol);
-        Utils.verifyPositive(NAME_TAG + "#addWarningDuplicateSymbol", "line", line);
+    /**
+     * @param states the states which can not be reached from the initial state, can not be empty
+     */
+    public void addWarningUnreachableStates(List<String> states) {
+        Utils.verifyCollectionNullity(NAME_TAG + "#addWarningUnreachableStates", "states", states);
+        if (states.isEmpty()) {
+            throw new IllegalArgumentException(NAME_TAG + "#addWarningUnreachableStates: " +
+                    "empty states list.");
+        }
 
-        this.addWarning(line + ": Symbol " + symbol + " already used. Will be ignored." + System.lineSeparator());
+        this.addWarning(Diagnostic.Code.UNREACHABLE_STATES, Diagnostic.NO_POSITION,
+                String.join(", ", states));
     }
 
-    public void addWarningEmptySection(String section, int line) {
-        Utils.verifyNullity(NAME_TAG + "#addWarningEmptySection", "section string", section);
-        Utils.verifyPositive(NAME_TAG + "#addWarningEmptySection", "line", line);
+    /**
+     * @param state a state with inputs on which it has no transition, can not be null
+     * @param inputs descriptions of the inputs, can not be empty
+     */
+    public void addWarningUncoveredInputs(String state, List<String> inputs) {
+        Utils.verifyNullity(NAME_TAG + "#addWarningUncoveredInputs", "state", state);
+        Utils.verifyCollectionNullity(NAME_TAG + "#addWarningUncoveredInputs", "inputs", inputs);
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException(NAME_TAG + "#addWarningUncoveredInputs: " +
+                    "empty inputs list.");
+        }
 
-        this.addWarning(line + ": Empty \"" + section + "\" section" + System.lineSeparator());
+        this.addWarning(Diagnostic.Code.UNCOVERED_INPUTS, Diagnostic.NO_POSITION, state,
+                String.join(", ", inputs), state);
     }
 
     public String getWarnings() {
-        return warnings.stream().collect(Collectors.joining(""));
+        if (warningsText == null) warningsText = format(warnings);
+        return warningsText;
+    }
+
+    private static String format(Set<Diagnostic> diagnostics) {
+        if (diagnostics.isEmpty()) return "";
+        StringBuilder builder = new StringBuilder();
+        for (Diagnostic diagnostic : diagnostics) diagnostic.appendTo(builder);
+        return builder.toString();
+    }
+
+    private static List<String> formatEach(Set<Diagnostic> diagnostics) {
+        List<String> formatted = new ArrayList<>(diagnostics.size());
+        for (Diagnostic diagnostic : diagnostics) formatted.add(diagnostic.format());
+        return Collections.unmodifiableList(formatted);
     }
 
     @Override
     public String toString() {
         return "Fault {" +
-                "errors=" + errors +
-                ", warnings=" + warnings +
+                "errors=" + formatEach(errors) +
+                ", warnings=" + formatEach(warnings) +
                 '}';
     }
 }
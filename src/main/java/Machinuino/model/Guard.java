@@ -0,0 +1,197 @@
+package Machinuino.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * A conjunction of pin values packed as bit masks indexed by a pin ordinal: a bit set on the care
+ * mask means the pin appears on the conjunction, the same bit on the value mask is its value
+ * Immutable
+ */
+
+public class Guard {
+
+    private static final long[] NO_WORDS = new long[0];
+    private final long[] care;
+    private final long[] value;
+
+    private Guard(long[] care, long[] value) {
+        this.care = care;
+        this.value = value;
+    }
+
+    /**
+     * Packs the pin values passed
+     *
+     * @param boolPins the pin values of the conjunction, can not be null neither contain a pin
+     *                 with two values
+     * @param ordinal maps each pin to its non negative bit position
+     * @return Guard with the pin values passed
+     * @throws NullPointerException if any of the parameters passed are null
+     * @throws IllegalArgumentException if there is a pin with two values or a negative ordinal
+     */
+    public static Guard ofValue(Set<BoolPin> boolPins, ToIntFunction<Pin> ordinal)
+            throws NullPointerException {
+        if (boolPins == null) throw new NullPointerException("Guard#ofValue: boolPins was null!");
+        if (ordinal == null) throw new NullPointerException("Guard#ofValue: ordinal was null!");
+        if (boolPins.isEmpty()) return new Guard(NO_WORDS, NO_WORDS);
+
+        int[] bits = new int[boolPins.size()];
+        int highestBit = 0;
+        int i = 0;
+        for (BoolPin boolPin : boolPins) {
+            int bit = ordinal.applyAsInt(boolPin.getPin());
+            if (bit < 0) {
+                throw new IllegalArgumentException("Guard#ofValue: negative ordinal of " +
+                        boolPin.getPin());
+            }
+            bits[i++] = bit;
+            highestBit = Math.max(highestBit, bit);
+        }
+
+        long[] care = new long[highestBit / Long.SIZE + 1];
+        long[] value = new long[care.length];
+        i = 0;
+        for (BoolPin boolPin : boolPins) {
+            int bit = bits[i++];
+            long mask = 1L << bit;
+            if ((care[bit / Long.SIZE] & mask) != 0) {
+                throw new IllegalArgumentException("Guard#ofValue: there is a pin with two " +
+                        "values on " + boolPins);
+            }
+            care[bit / Long.SIZE] |= mask;
+            if (boolPin.isHigh()) value[bit / Long.SIZE] |= mask;
+        }
+        return new Guard(care, value);
+    }
+
+    /**
+     * Checks if every pin value of this guard is also on {@code other}, that is, if every input
+     * satisfying {@code other} also satisfies this guard
+     */
+    public boolean isSubsetOf(Guard other) {
+        for (int i = 0; i < care.length; i++) {
+            long otherCare = i < other.care.length ? other.care[i] : 0;
+            long otherValue = i < other.value.length ? other.value[i] : 0;
+            if ((care[i] & ~otherCare) != 0) return false;
+            if (((value[i] ^ otherValue) & care[i]) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if either guard is a subset of the other one
+     *
+     * @see #isSubsetOf
+     */
+    public boolean isComparableTo(Guard other) {
+        return isSubsetOf(other) || other.isSubsetOf(this);
+    }
+
+    /**
+     * @return true if no input satisfies both guards, that is, if they give a pin different values
+     */
+    public boolean isDisjointFrom(Guard other) {
+        for (int i = 0; i < Math.min(care.length, other.care.length); i++) {
+            if (((value[i] ^ other.value[i]) & care[i] & other.care[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The inputs satisfying this guard but not {@code other}, as guards sharing no input, one for
+     * each pin of {@code other} this guard does not test. Each of them takes the pins before it
+     * with the values of {@code other} and the pin itself with the opposite value
+     *
+     * @return the guards, empty if every input satisfying this guard satisfies {@code other}
+     */
+    public List<Guard> minus(Guard other) {
+        if (isDisjointFrom(other)) return Collections.singletonList(this);
+
+        List<Guard> difference = new ArrayList<>();
+        int words = Math.max(care.length, other.care.length);
+        long[] fixedCare = Arrays.copyOf(care, words);
+        long[] fixedValue = Arrays.copyOf(value, words);
+        for (int i = 0; i < other.care.length; i++) {
+            long free = other.care[i] & ~fixedCare[i];
+            while (free != 0) {
+                long bit = free & -free;
+                free &= ~bit;
+                long[] newCare = fixedCare.clone();
+                long[] newValue = fixedValue.clone();
+                newCare[i] |= bit;
+                newValue[i] |= ~other.value[i] & bit;
+                difference.add(new Guard(newCare, newValue));
+                fixedCare[i] |= bit;
+                fixedValue[i] |= other.value[i] & bit;
+            }
+        }
+        return difference;
+    }
+
+    /**
+     * @return true if the pin on the bit passed is on this guard
+     */
+    public boolean tests(int bit) {
+        int word = bit / Long.SIZE;
+        return word < care.length && (care[word] & 1L << bit) != 0;
+    }
+
+    /**
+     * @return the value this guard requires of the pin on the bit passed, false if it is not on
+     * this guard
+     */
+    public boolean requiresHigh(int bit) {
+        int word = bit / Long.SIZE;
+        return word < value.length && (value[word] & 1L << bit) != 0;
+    }
+
+    /**
+     * @param word index of a 64 bit word of the masks, the pins on bits 64 * word and up
+     * @return the pins of this guard on the word, 0 beyond the pins of this guard
+     */
+    public long getCare(int word) {
+        return word < care.length ? care[word] : 0;
+    }
+
+    /**
+     * @return the values this guard requires of the pins on the word, 0 beyond the pins of this
+     * guard
+     * @see #getCare(int)
+     */
+    public long getValue(int word) {
+        return word < value.length ? value[word] : 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null) return false;
+        if (o == this) return true;
+        if (o.getClass() != getClass()) return false;
+
+        Guard guard = (Guard) o;
+        return isSubsetOf(guard) && guard.isSubsetOf(this);
+    }
+
+    @Override
+    public int hashCode() {
+        // Trailing zero words do not change the guard, so they must not change the hash either
+        int result = 0;
+        for (int i = 0; i < care.length; i++) {
+            if (care[i] != 0) result += 31 * i + Long.hashCode(care[i]) ^ Long.hashCode(value[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Guard {" +
+                "care=" + Arrays.toString(care) +
+                ", value=" + Arrays.toString(value) +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package Machinuino.model;
+
+import Machinuino.Utils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * The input word the backends, the simulators and the analyzers evaluate the transitions on: bit
+ * i is the i-th input pin by id, the clock left out. The clock has a known level when the inputs
+ * are sampled, so a transition requiring the other level is never taken and one requiring that
+ * level only depends on its other pins
+ */
+
+public final class InputWord {
+
+    /**
+     * Name of the input pin whose edges step the machine
+     */
+    public static final String CLOCK = "clock";
+    private static final String NAME_TAG = "InputWord";
+
+    private InputWord() {
+    }
+
+    public static boolean isClock(Pin pin) {
+        Utils.verifyNullity(NAME_TAG + "#isClock", "pin", pin);
+        return pin.getName().equals(CLOCK);
+    }
+
+    /**
+     * @param machine a machine, can not be null
+     * @return the input pins of the machine on the bits of the input word, by id
+     */
+    public static List<Pin> inputBits(MooreMachine machine) {
+        Utils.verifyNullity(NAME_TAG + "#inputBits", "machine", machine);
+        List<Pin> inputs = new ArrayList<>();
+        for (int id = 0; id < machine.getInputPinCount(); id++) {
+            Pin pin = machine.getInputPinOfId(id);
+            if (!isClock(pin)) inputs.add(pin);
+        }
+        return inputs;
+    }
+
+    /**
+     * @param transition a transition, can not be null
+     * @param bitOf maps each input pin but the clock to its bit on the word
+     * @param clockHigh the level of the clock when the inputs are sampled
+     * @return the guard of the transition without the clock, null if the transition requires the
+     * clock on the level it does not have
+     */
+    public static Guard guardOf(Transition transition, ToIntFunction<Pin> bitOf,
+                                boolean clockHigh) {
+        Utils.verifyNullity(NAME_TAG + "#guardOf", "transition", transition);
+        Utils.verifyNullity(NAME_TAG + "#guardOf", "bitOf", bitOf);
+        Set<BoolPin> input = transition.getInput();
+        for (BoolPin boolPin : transition.getInput()) {
+            if (!isClock(boolPin.getPin())) continue;
+            if (boolPin.isHigh() != clockHigh) return null;
+            input = new HashSet<>(input);
+            input.remove(boolPin);
+            break;
+        }
+        return Guard.ofValue(input, bitOf);
+    }
+}
@@ -2,10 +2,13 @@ package Machinuino.model;
 
 import Machinuino.Utils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -19,6 +22,15 @@ public class MooreMachine {
     private Set<Transition> transitions;
     private Set<Output> outputs;
     private Set<BoolPin> allPinsValues;
+    // Dense ids of the states and pins, the tables below are indexed by them
+    private SymbolTable<String> stateSymbols;
+    private SymbolTable<Pin> inputPinSymbols;
+    private SymbolTable<Pin> outputPinSymbols;
+    // The values of the pin of id i are at 2 * i (low) and 2 * i + 1 (high)
+    private BoolPin[] inputPinValues;
+    private BoolPin[] outputPinValues;
+    private List<List<Transition>> transitionsOfState;
+    private Output[] outputOfState;
 
     /**
      * Builder for the MooreMachine, every method of this class will throw
@@ -35,6 +47,31 @@ public class MooreMachine {
         private Set<Transition> transitions;
         private Set<Output> outputs;
         private Set<BoolPin> allPinsValues;
+        // Indexes kept in sync with the sets above, so lookups do not scan the sets
+        private Map<String, Pin> inputPinsByName;
+        private Map<String, Pin> outputPinsByName;
+        private Map<String, Output> outputsByState;
+        // Every state and pin ever seen by this builder keeps its id for as long as the builder
+        // lives, the values of a pin are interned on the lists below at the id of the pin
+        private SymbolTable<String> stateSymbols;
+        private SymbolTable<Pin> pinSymbols;
+        private List<BoolPin> highValues;
+        private List<BoolPin> lowValues;
+        // Transitions grouped by previous state with their guards packed by the pin ids
+        private Map<String, List<GuardedTransition>> transitionsByState;
+
+        /**
+         * A transition of the builder along with its packed guard
+         */
+        private static class GuardedTransition {
+            private final Transition transition;
+            private final Guard guard;
+
+            private GuardedTransition(Transition transition, Guard guard) {
+                this.transition = transition;
+                this.guard = guard;
+            }
+        }
 
         public Builder(String name) {
             Utils.verifyNullity(NAME_TAG + "#Builder", "name", name);
@@ -46,6 +83,14 @@ public class MooreMachine {
             this.transitions = new HashSet<>();
             this.outputs = new HashSet<>();
             this.allPinsValues = new HashSet<>();
+            this.inputPinsByName = new HashMap<>();
+            this.outputPinsByName = new HashMap<>();
+            this.outputsByState = new HashMap<>();
+            this.stateSymbols = new SymbolTable<>();
+            this.pinSymbols = new SymbolTable<>();
+            this.highValues = new ArrayList<>();
+            this.lowValues = new ArrayList<>();
+            this.transitionsByState = new HashMap<>();
         }
 
         public Builder(Builder builder) {
@@ -57,6 +102,18 @@ public class MooreMachine {
             this.transitions = new HashSet<>(builder.transitions);
             this.outputs = new HashSet<>(builder.outputs);
             this.allPinsValues = new HashSet<>(builder.allPinsValues);
+            this.inputPinsByName = new HashMap<>(builder.inputPinsByName);
+            this.outputPinsByName = new HashMap<>(builder.outputPinsByName);
+            this.outputsByState = new HashMap<>(builder.outputsByState);
+            this.stateSymbols = new SymbolTable<>(builder.stateSymbols);
+            this.pinSymbols = new SymbolTable<>(builder.pinSymbols);
+            this.highValues = new ArrayList<>(builder.highValues);
+            this.lowValues = new ArrayList<>(builder.lowValues);
+            this.transitionsByState = new HashMap<>();
+            for (Map.Entry<String, List<GuardedTransition>> entry :
+                    builder.transitionsByState.entrySet()) {
+                this.transitionsByState.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
         }
 
         /**
@@ -90,8 +147,7 @@ public class MooreMachine {
          */
         public Builder states(Set<String> states) {
             Utils.verifyCollectionNullity(NAME_TAG + "#states", "states", states);
-            for (String state :
-                    outputs.stream().map(Output::getState).collect(Collectors.toSet())) {
+            for (String state : outputsByState.keySet()) {
                 Utils.verifyCollectionIntegrity(NAME_TAG + "#states", "state of an output of this" +
                         "builder", state, "states", states, true);
             }
@@ -104,6 +160,7 @@ public class MooreMachine {
                         + "on this builder", state, "states", states, true);
             }
             this.states = new HashSet<>(states);
+            for (String state : this.states) stateSymbols.intern(state);
             return this;
         }
 
@@ -123,6 +180,7 @@ public class MooreMachine {
             Utils.verifyCollectionIntegrity(NAME_TAG + "#addState", "state",
                     state, "states of this builder", states, false);
             states.add(state);
+            stateSymbols.intern(state);
             return this;
         }
 
@@ -141,8 +199,7 @@ public class MooreMachine {
             Utils.verifyCollectionIntegrity(NAME_TAG + "#removeState", "state", state,
                     "states of this builder", states, true);
             Utils.verifyCollectionIntegrity(NAME_TAG + "#removeState", "state", state,
-                    "states which have output",
-                    outputs.stream().map(Output::getState).collect(Collectors.toSet()), false);
+                    "states which have output", outputsByState.keySet(), false);
             Set<String> transitionStates = Stream.concat(
                     transitions.stream().map(Transition::getPreviousState),
                     transitions.stream().map(Transition::getNextState))
@@ -179,11 +236,12 @@ public class MooreMachine {
                         "inputPin involving a transition", pin,
                         "inputPins of this builder", inputPins, true);
             }
-            allPinsValues.removeIf(boolPin -> this.inputPins.contains(boolPin.getPin()));
+            for (Pin pin : this.inputPins) unindexValues(pin);
             this.inputPins = new HashSet<>(inputPins);
+            inputPinsByName.clear();
             for (Pin pin : inputPins) {
-                allPinsValues.add(BoolPin.ofValue(pin, true));
-                allPinsValues.add(BoolPin.ofValue(pin, false));
+                indexValues(pin);
+                inputPinsByName.putIfAbsent(pin.getName(), pin);
             }
             return this;
         }
@@ -195,10 +253,7 @@ public class MooreMachine {
          * @return a pin with the specified name or null if not found
          */
         public Pin getInputPinOfName(String name) {
-            Optional<Pin> optional = inputPins.stream()
-                    .filter(pin -> pin.getName().equals(name))
-                    .findFirst();
-            return optional.isPresent() ? optional.get() : null;
+            return inputPinsByName.get(name);
         }
 
         /**
@@ -218,13 +273,10 @@ public class MooreMachine {
          */
         public Builder addInputPin(Pin inputPin) {
             Utils.verifyNullity(NAME_TAG + "#addInputPin", "inputPin", inputPin);
-            Utils.verifyCollectionIntegrity(NAME_TAG + "#addInputPin", "inputPin", inputPin,
-                    "pins of this builder",
-                    Stream.concat(inputPins.stream(), outputPins.stream())
-                            .collect(Collectors.toSet()), false);
-            allPinsValues.add(BoolPin.ofValue(inputPin, true));
-            allPinsValues.add(BoolPin.ofValue(inputPin, false));
+            verifyPinOnBuilder(NAME_TAG + "#addInputPin", "inputPin", inputPin, false);
+            indexValues(inputPin);
             inputPins.add(inputPin);
+            inputPinsByName.putIfAbsent(inputPin.getName(), inputPin);
             return this;
         }
 
@@ -247,8 +299,9 @@ public class MooreMachine {
                     .collect(Collectors.toSet());
             Utils.verifyCollectionIntegrity(NAME_TAG + "#inputPins", "inputPin", inputPin,
                     "inputPin involving a transition", transitionPins, false);
-            allPinsValues.removeIf(boolPin -> boolPin.getPin().equals(inputPin));
+            unindexValues(inputPin);
             inputPins.remove(inputPin);
+            unindexName(inputPinsByName, inputPins, inputPin);
             return this;
         }
 
@@ -278,11 +331,12 @@ public class MooreMachine {
                         "outputPin involved in a Output", pin,
                         "outputPins", outputPins, true);
             }
-            allPinsValues.removeIf(boolPin -> this.outputPins.contains(boolPin.getPin()));
+            for (Pin pin : this.outputPins) unindexValues(pin);
             this.outputPins = new HashSet<>(outputPins);
+            outputPinsByName.clear();
             for (Pin pin : outputPins) {
-                allPinsValues.add(BoolPin.ofValue(pin, true));
-                allPinsValues.add(BoolPin.ofValue(pin, false));
+                indexValues(pin);
+                outputPinsByName.putIfAbsent(pin.getName(), pin);
             }
             return this;
         }
@@ -294,10 +348,7 @@ public class MooreMachine {
          * @return a pin with the specified name or null if not found
          */
         public Pin getOutputPinOfName(String name) {
-            Optional<Pin> optional = outputPins.stream()
-                    .filter(pin -> pin.getName().equals(name))
-                    .findFirst();
-            return optional.isPresent() ? optional.get() : null;
+            return outputPinsByName.get(name);
         }
 
         /**
@@ -317,13 +368,10 @@ public class MooreMachine {
          */
         public Builder addOutputPin(Pin outputPin) {
             Utils.verifyNullity(NAME_TAG + "#addOutputPin", "outputPin", outputPin);
-            Utils.verifyCollectionIntegrity(NAME_TAG + "#addOutputPin", "outputPin", outputPin,
-                    "pins of this builder",
-                    Stream.concat(inputPins.stream(), outputPins.stream())
-                            .collect(Collectors.toSet()), false);
-            allPinsValues.add(BoolPin.ofValue(outputPin, true));
-            allPinsValues.add(BoolPin.ofValue(outputPin, false));
+            verifyPinOnBuilder(NAME_TAG + "#addOutputPin", "outputPin", outputPin, false);
+            indexValues(outputPin);
             outputPins.add(outputPin);
+            outputPinsByName.putIfAbsent(outputPin.getName(), outputPin);
             return this;
         }
 
@@ -346,8 +394,9 @@ public class MooreMachine {
                     .collect(Collectors.toSet());
             Utils.verifyCollectionIntegrity(NAME_TAG + "#outputPins", "outputPin", outputPin,
                     "outputPins involved in a Output", outputs, false);
-            allPinsValues.removeIf(boolPin -> boolPin.getPin().equals(outputPin));
+            unindexValues(outputPin);
             outputPins.remove(outputPin);
+            unindexName(outputPinsByName, outputPins, outputPin);
             return this;
         }
 
@@ -364,14 +413,61 @@ public class MooreMachine {
          */
         public BoolPin getBoolPinOfValue(Pin pin, boolean high) {
             Utils.verifyNullity(NAME_TAG + "#getBoolPinOfValue", "pin", pin);
-            Utils.verifyCollectionIntegrity(NAME_TAG + "#getBoolPinOfValue", "pin", pin,
-                    "pins of this builder",
-                    Stream.concat(inputPins.stream(), outputPins.stream())
-                            .collect(Collectors.toSet()), true);
-            Optional<BoolPin> optional = allPinsValues.stream()
-                    .filter(boolPin -> boolPin.getPin().equals(pin) && boolPin.isHigh() == high)
-                    .findFirst();
-            return optional.isPresent() ? optional.get() : null;
+            verifyPinOnBuilder(NAME_TAG + "#getBoolPinOfValue", "pin", pin, true);
+            int id = pinSymbols.idOf(pin);
+            return high ? highValues.get(id) : lowValues.get(id);
+        }
+
+        /**
+         * Checks if the pin is or is not on any of the pins of this builder, only gathering the
+         * pins of this builder for the exception message when the check fails
+         */
+        private void verifyPinOnBuilder(String tag, String name, Pin pin, boolean shouldContain) {
+            if ((inputPins.contains(pin) || outputPins.contains(pin)) != shouldContain) {
+                Utils.verifyCollectionIntegrity(tag, name, pin, "pins of this builder",
+                        Stream.concat(inputPins.stream(), outputPins.stream())
+                                .collect(Collectors.toSet()), shouldContain);
+            }
+        }
+
+        /**
+         * Gives the pin an id, interning both of its values the first time the pin is seen
+         */
+        private int internPin(Pin pin) {
+            int id = pinSymbols.intern(pin);
+            if (id == highValues.size()) {
+                highValues.add(BoolPin.ofValue(pin, true));
+                lowValues.add(BoolPin.ofValue(pin, false));
+            }
+            return id;
+        }
+
+        private void indexValues(Pin pin) {
+            int id = internPin(pin);
+            allPinsValues.add(highValues.get(id));
+            allPinsValues.add(lowValues.get(id));
+        }
+
+        private void unindexValues(Pin pin) {
+            int id = pinSymbols.idOf(pin);
+            if (id < 0) return;
+            allPinsValues.remove(highValues.get(id));
+            allPinsValues.remove(lowValues.get(id));
+        }
+
+        /**
+         * Removes the pin from the name index, if another pin with the same name is still on
+         * {@code pins} it takes the place of the removed one
+         */
+        private static void unindexName(Map<String, Pin> pinsByName, Set<Pin> pins, Pin pin) {
+            if (!pin.equals(pinsByName.get(pin.getName()))) return;
+            pinsByName.remove(pin.getName());
+            for (Pin other : pins) {
+                if (other.getName().equals(pin.getName())) {
+                    pinsByName.put(other.getName(), other);
+                    return;
+                }
+            }
         }
 
         public Builder transitions(Set<Transition> transitions) {
@@ -399,6 +495,8 @@ public class MooreMachine {
                 }
             }
             this.transitions = new HashSet<>(transitions);
+            transitionsByState.clear();
+            for (Transition transition : transitions) indexTransition(transition);
             return this;
         }
 
@@ -424,7 +522,7 @@ public class MooreMachine {
                 throw new IllegalArgumentException(NAME_TAG + "#transitionCausesNonDeterminism: " +
                         "there is a pin with two values on " + transition);
             }
-            return transitions.stream().anyMatch(causesNonDeterminism(transition));
+            return causesNonDeterminism(transition, guardOf(transition));
         }
 
         /**
@@ -458,12 +556,16 @@ public class MooreMachine {
                         "pin of a transition", pin,
                         "inputPins of this builder", inputPins, true);
             }
-            if (transitionCausesNonDeterminism(transition)) {
+            Guard guard = guardOf(transition);
+            if (causesNonDeterminism(transition, guard)) {
                 throw new IllegalArgumentException(NAME_TAG + "#addTransition: " +
                         "there is already a transition on the same pins as " + transition +
                         "on this builder " + transitions);
             }
-            this.transitions.add(transition);
+            if (this.transitions.add(transition)) {
+                transitionsByState.computeIfAbsent(transition.getPreviousState(),
+                        state -> new ArrayList<>()).add(new GuardedTransition(transition, guard));
+            }
             return this;
         }
 
@@ -484,19 +586,39 @@ public class MooreMachine {
                 throw new IllegalArgumentException(NAME_TAG + "#removeTransition: " +
                         "transition" + transition + " is not on this builder " + transitions);
             }
-            transitions.removeIf(trans -> trans.equals(transition));
+            transitions.remove(transition);
+            List<GuardedTransition> fromState =
+                    transitionsByState.get(transition.getPreviousState());
+            fromState.removeIf(guarded -> guarded.transition.equals(transition));
+            if (fromState.isEmpty()) transitionsByState.remove(transition.getPreviousState());
             return this;
         }
 
-        private Predicate<Transition> causesNonDeterminism(Transition transition) {
-            return onBuilder -> {
-                Set<BoolPin> onBuilderPins = onBuilder.getInput();
-                Set<BoolPin> transitionPins = transition.getInput();
-                return onBuilder.getPreviousState().equals(transition.getPreviousState())
-                        && !onBuilder.getNextState().equals(transition.getNextState())
-                        && (onBuilderPins.containsAll(transitionPins) ||
-                        transitionPins.containsAll(onBuilderPins));
-            };
+        /**
+         * Only transitions leaving the same state can conflict, so only those are compared, and
+         * the pin values are compared as packed guards
+         */
+        private boolean causesNonDeterminism(Transition transition, Guard guard) {
+            List<GuardedTransition> fromState =
+                    transitionsByState.get(transition.getPreviousState());
+            if (fromState == null) return false;
+            for (GuardedTransition onBuilder : fromState) {
+                if (!onBuilder.transition.getNextState().equals(transition.getNextState())
+                        && onBuilder.guard.isComparableTo(guard)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void indexTransition(Transition transition) {
+            transitionsByState.computeIfAbsent(transition.getPreviousState(),
+                    state -> new ArrayList<>())
+                    .add(new GuardedTransition(transition, guardOf(transition)));
+        }
+
+        private Guard guardOf(Transition transition) {
+            return Guard.ofValue(transition.getInput(), this::internPin);
         }
 
         /**
@@ -534,13 +656,13 @@ public class MooreMachine {
                 }
             }
             this.outputs = new HashSet<>(outputs);
+            outputsByState.clear();
+            for (Output output : outputs) outputsByState.put(output.getState(), output);
             return this;
         }
 
         public boolean hasOutput(String state) {
-            return outputs.stream()
-                    .map(Output::getState)
-                    .anyMatch(outputState -> outputState.equals(state));
+            return outputsByState.containsKey(state);
         }
 
         /**
@@ -563,8 +685,7 @@ public class MooreMachine {
             Utils.verifyCollectionIntegrity(NAME_TAG + "#outputs", "state", state,
                     "states of this builder", states, true);
             Utils.verifyCollectionIntegrity(NAME_TAG + "#addOutput", "state", state,
-                    "states which have output",
-                    outputs.stream().map(Output::getState).collect(Collectors.toSet()), false);
+                    "states which have output", outputsByState.keySet(), false);
             Set<Pin> pins = boolPins.stream()
                     .map(BoolPin::getPin)
                     .collect(Collectors.toSet());
@@ -576,7 +697,9 @@ public class MooreMachine {
                 Utils.verifyCollectionIntegrity(NAME_TAG + "#addOutput", "pin", pin,
                         "outputPins of this builder", outputPins, true);
             }
-            outputs.add(Output.ofValue(state, boolPins));
+            Output output = Output.ofValue(state, boolPins);
+            outputs.add(output);
+            outputsByState.put(state, output);
             return this;
         }
 
@@ -592,9 +715,12 @@ public class MooreMachine {
         public Builder removeOutput(String state) {
             Utils.verifyNullity(NAME_TAG + "#removeOutput", "state", state);
             Utils.verifyCollectionIntegrity(NAME_TAG + "#removeOutput", "state", state,
-                    "states which have output",
-                    outputs.stream().map(Output::getState).collect(Collectors.toSet()), true);
-            outputs.removeIf(output -> output.getState().equals(state));
+                    "states which have output", outputsByState.keySet(), true);
+            outputs.remove(outputsByState.remove(state));
+            // Only a set passed to #outputs may hold more than one output of the same state
+            if (outputs.size() != outputsByState.size()) {
+                outputs.removeIf(output -> output.getState().equals(state));
+            }
             return this;
         }
 
@@ -631,6 +757,49 @@ public class MooreMachine {
         this.transitions = new HashSet<>(builder.transitions);
         this.outputs = new HashSet<>(builder.outputs);
         this.allPinsValues = new HashSet<>(builder.allPinsValues);
+
+        // The ids keep the order in which the builder first saw each state and pin, states and
+        // pins removed from the builder leave no gaps
+        this.stateSymbols = new SymbolTable<>();
+        for (String state : builder.stateSymbols.getSymbols()) {
+            if (states.contains(state)) stateSymbols.intern(state);
+        }
+        this.inputPinSymbols = new SymbolTable<>();
+        this.outputPinSymbols = new SymbolTable<>();
+        List<BoolPin> inputValues = new ArrayList<>();
+        List<BoolPin> outputValues = new ArrayList<>();
+        for (int id = 0; id < builder.pinSymbols.size(); id++) {
+            Pin pin = builder.pinSymbols.symbolOf(id);
+            if (inputPins.contains(pin)) {
+                inputPinSymbols.intern(pin);
+                inputValues.add(builder.lowValues.get(id));
+                inputValues.add(builder.highValues.get(id));
+            } else if (outputPins.contains(pin)) {
+                outputPinSymbols.intern(pin);
+                outputValues.add(builder.lowValues.get(id));
+                outputValues.add(builder.highValues.get(id));
+            }
+        }
+        this.inputPinValues = inputValues.toArray(new BoolPin[0]);
+        this.outputPinValues = outputValues.toArray(new BoolPin[0]);
+
+        // Transitions of a state keep the order in which they were added to the builder, the
+        // first one accepting the inputs being the one taken, so rebuilding a machine from its
+        // states in order keeps its behavior whatever the capacity of the set of transitions
+        this.transitionsOfState = new ArrayList<>(stateSymbols.size());
+        for (int id = 0; id < stateSymbols.size(); id++) {
+            List<Transition> ofState = new ArrayList<>();
+            List<Builder.GuardedTransition> guarded =
+                    builder.transitionsByState.get(stateSymbols.symbolOf(id));
+            if (guarded != null) {
+                for (Builder.GuardedTransition transition : guarded) {
+                    ofState.add(transition.transition);
+                }
+            }
+            transitionsOfState.add(ofState);
+        }
+        this.outputOfState = new Output[stateSymbols.size()];
+        for (Output output : outputs) outputOfState[stateSymbols.idOf(output.getState())] = output;
     }
 
     public String getName() {
@@ -665,6 +834,94 @@ public class MooreMachine {
         return allPinsValues.stream();
     }
 
+    public int getStateCount() {
+        return stateSymbols.size();
+    }
+
+    /**
+     * @return the dense id of the state, or -1 if the state is not on this machine
+     */
+    public int getStateId(String state) {
+        return stateSymbols.idOf(state);
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if there is no state with the id passed
+     */
+    public String getStateOfId(int id) {
+        return stateSymbols.symbolOf(id);
+    }
+
+    public int getInputPinCount() {
+        return inputPinSymbols.size();
+    }
+
+    /**
+     * @return the dense id of the input pin, or -1 if the pin is not an input of this machine
+     */
+    public int getInputPinId(Pin pin) {
+        return inputPinSymbols.idOf(pin);
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if there is no input pin with the id passed
+     */
+    public Pin getInputPinOfId(int id) {
+        return inputPinSymbols.symbolOf(id);
+    }
+
+    public int getOutputPinCount() {
+        return outputPinSymbols.size();
+    }
+
+    /**
+     * @return the dense id of the output pin, or -1 if the pin is not an output of this machine
+     */
+    public int getOutputPinId(Pin pin) {
+        return outputPinSymbols.idOf(pin);
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if there is no output pin with the id passed
+     */
+    public Pin getOutputPinOfId(int id) {
+        return outputPinSymbols.symbolOf(id);
+    }
+
+    /**
+     * Returns the interned value of a pin of this machine, the same instance used by the
+     * transitions and outputs built through {@link Builder#getBoolPinOfValue}
+     *
+     * @throws IllegalArgumentException if the pin is not on this machine
+     */
+    public BoolPin getBoolPinOfValue(Pin pin, boolean high) {
+        int id = inputPinSymbols.idOf(pin);
+        if (id >= 0) return inputPinValues[2 * id + (high ? 1 : 0)];
+        id = outputPinSymbols.idOf(pin);
+        if (id >= 0) return outputPinValues[2 * id + (high ? 1 : 0)];
+        throw new IllegalArgumentException("MooreMachine#getBoolPinOfValue: pin " + pin +
+                " is not on this machine");
+    }
+
+    /**
+     * @param stateId id of a state of this machine
+     * @return a read-only list of the transitions leaving the state, in the order they were
+     * added to the builder
+     * @throws IndexOutOfBoundsException if there is no state with the id passed
+     */
+    public List<Transition> getTransitionsOfState(int stateId) {
+        return Collections.unmodifiableList(transitionsOfState.get(stateId));
+    }
+
+    /**
+     * @param stateId id of a state of this machine
+     * @return the output of the state, or null if the state has none
+     * @throws IndexOutOfBoundsException if there is no state with the id passed
+     */
+    public Output getOutputOfState(int stateId) {
+        return outputOfState[stateId];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null) return false;
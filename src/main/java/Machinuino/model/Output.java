@@ -1,6 +1,5 @@
 package Machinuino.model;
 
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -16,7 +15,7 @@ public class Output {
 
     private Output(String state, Set<BoolPin> boolPins) {
         this.state = state;
-        this.boolPins = new HashSet<>(boolPins);
+        this.boolPins = BoolPinSet.copyOf(boolPins);
     }
 
     /**
@@ -43,8 +42,11 @@ public class Output {
         return state;
     }
 
+    /**
+     * @return a read-only view of the values of the output pins on this state
+     */
     public Set<BoolPin> getBoolPins() {
-        return new HashSet<>(boolPins);
+        return boolPins;
     }
 
     @Override
@@ -0,0 +1,84 @@
+package Machinuino.model;
+
+import Machinuino.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives each symbol a dense integer id, in the order the symbols were first interned, so the
+ * passes over a machine can keep their data on arrays indexed by id instead of on hash sets
+ *
+ * @param <T> type of the symbols, states or pins
+ */
+
+public class SymbolTable<T> {
+
+    private static final String NAME_TAG = "SymbolTable";
+    private final Map<T, Integer> ids;
+    private final List<T> symbols;
+
+    public SymbolTable() {
+        this.ids = new HashMap<>();
+        this.symbols = new ArrayList<>();
+    }
+
+    public SymbolTable(SymbolTable<T> table) {
+        this.ids = new HashMap<>(table.ids);
+        this.symbols = new ArrayList<>(table.symbols);
+    }
+
+    /**
+     * Returns the id of the symbol, giving it the next free id if it has none yet
+     *
+     * @param symbol symbol to be interned, can not be null
+     * @return the id of the symbol
+     */
+    public int intern(T symbol) {
+        Utils.verifyNullity(NAME_TAG + "#intern", "symbol", symbol);
+        Integer id = ids.get(symbol);
+        if (id != null) return id;
+
+        ids.put(symbol, symbols.size());
+        symbols.add(symbol);
+        return symbols.size() - 1;
+    }
+
+    /**
+     * @return the id of the symbol, or -1 if it was never interned
+     */
+    public int idOf(T symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id an id given by this table
+     * @return the symbol with the id passed
+     * @throws IndexOutOfBoundsException if no symbol has the id passed
+     */
+    public T symbolOf(int id) {
+        return symbols.get(id);
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    /**
+     * @return a read-only view of the symbols ordered by id
+     */
+    public List<T> getSymbols() {
+        return Collections.unmodifiableList(symbols);
+    }
+
+    @Override
+    public String toString() {
+        return "SymbolTable {" +
+                "symbols=" + symbols +
+                '}';
+    }
+}
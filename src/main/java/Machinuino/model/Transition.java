@@ -1,6 +1,5 @@
 package Machinuino.model;
 
-import java.util.HashSet;
 import java.util.Set;
 
 public class Transition {
@@ -11,7 +10,7 @@ public class Transition {
     private Transition(String previousState, String nextState, Set<BoolPin> input) {
         this.previousState = previousState;
         this.nextState = nextState;
-        this.input = new HashSet<>(input);
+        this.input = BoolPinSet.copyOf(input);
     }
 
     /**
@@ -41,8 +40,11 @@ public class Transition {
         return nextState;
     }
 
+    /**
+     * @return a read-only view of the values of the pins that cause the transition
+     */
     public Set<BoolPin> getInput() {
-        return new HashSet<>(input);
+        return input;
     }
 
     @Override
@@ -52,7 +54,7 @@ public class Transition {
         if (obj.getClass() != getClass()) return false;
         Transition transition = (Transition) obj;
         return previousState.equals(transition.getPreviousState()) &&
-                nextState.equals(transition.getNextState()) && input.equals(transition.getInput());
+                nextState.equals(transition.nextState) && input.equals(transition.input);
     }
 
     @Override
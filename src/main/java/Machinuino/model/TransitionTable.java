@@ -0,0 +1,218 @@
+package Machinuino.model;
+
+import Machinuino.Utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The transitions and outputs of a machine as dense tables indexed by state id. The input pins
+ * other than the clock are packed into an input word, bit i being the i-th of them by id, so the
+ * next state of a state on an input word is a single lookup. When more than one transition of a
+ * state accepts a word, the first one on {@link MooreMachine#getTransitionsOfState} is taken.
+ * The clock has a known level when the inputs are sampled, high by default, so a transition
+ * requiring the other level is never taken and one requiring that level only depends on its other
+ * pins
+ * Immutable
+ */
+
+public class TransitionTable {
+
+    public static final int NO_TRANSITION = -1;
+    public static final int MAX_INPUT_BITS = 16;
+    public static final int MAX_OUTPUT_BITS = Integer.SIZE;
+    private static final String NAME_TAG = "TransitionTable";
+    private final int stateCount;
+    private final Pin[] inputPins;
+    private final Pin[] outputPins;
+    private final int[] next;
+    private final int[] outputs;
+
+    private TransitionTable(int stateCount, Pin[] inputPins, Pin[] outputPins, int[] next,
+                            int[] outputs) {
+        this.stateCount = stateCount;
+        this.inputPins = inputPins;
+        this.outputPins = outputPins;
+        this.next = next;
+        this.outputs = outputs;
+    }
+
+    /**
+     * Tabulates the transitions and outputs of a machine
+     *
+     * @param machine the machine to be tabulated, can not be null
+     * @return the tables of the machine
+     * @throws IllegalArgumentException if the machine has more than {@link #MAX_INPUT_BITS} input
+     * pins besides the clock or more than {@link #MAX_OUTPUT_BITS} output pins
+     */
+    public static TransitionTable ofMachine(MooreMachine machine) {
+        return ofMachine(machine, true);
+    }
+
+    /**
+     * Tabulates the transitions and outputs of a machine whose inputs are sampled while the clock
+     * is on the level passed
+     *
+     * @see #ofMachine(MooreMachine)
+     */
+    public static TransitionTable ofMachine(MooreMachine machine, boolean clockHigh) {
+        Utils.verifyNullity(NAME_TAG + "#ofMachine", "machine", machine);
+        List<Pin> inputs = InputWord.inputBits(machine);
+        if (inputs.size() > MAX_INPUT_BITS) {
+            throw new IllegalArgumentException(NAME_TAG + "#ofMachine: " + machine.getName() +
+                    " has " + inputs.size() + " input pins, at most " + MAX_INPUT_BITS +
+                    " can be tabulated");
+        }
+        if (machine.getOutputPinCount() > MAX_OUTPUT_BITS) {
+            throw new IllegalArgumentException(NAME_TAG + "#ofMachine: " + machine.getName() +
+                    " has " + machine.getOutputPinCount() + " output pins, at most " +
+                    MAX_OUTPUT_BITS + " can be tabulated");
+        }
+        int[] bitOfInputId = new int[machine.getInputPinCount()];
+        for (int id = 0; id < bitOfInputId.length; id++) {
+            bitOfInputId[id] = inputs.indexOf(machine.getInputPinOfId(id));
+        }
+
+        int words = 1 << inputs.size();
+        int[] next = new int[machine.getStateCount() * words];
+        Arrays.fill(next, NO_TRANSITION);
+        int[] outputs = new int[machine.getStateCount()];
+        for (int state = 0; state < machine.getStateCount(); state++) {
+            for (Transition transition : machine.getTransitionsOfState(state)) {
+                fill(next, state * words, words - 1, transition, machine, bitOfInputId,
+                        clockHigh);
+            }
+            Output output = machine.getOutputOfState(state);
+            if (output == null) continue;
+            for (BoolPin boolPin : output.getBoolPins()) {
+                if (boolPin.isHigh()) {
+                    outputs[state] |= 1 << machine.getOutputPinId(boolPin.getPin());
+                }
+            }
+        }
+
+        Pin[] outputPins = new Pin[machine.getOutputPinCount()];
+        for (int id = 0; id < outputPins.length; id++) outputPins[id] = machine.getOutputPinOfId(id);
+        return new TransitionTable(machine.getStateCount(), inputs.toArray(new Pin[0]),
+                outputPins, next, outputs);
+    }
+
+    /**
+     * Sets the next state of every word the transition accepts which is still without one, the
+     * words are enumerated as the submasks of the pins the transition does not care about
+     */
+    private static void fill(int[] next, int offset, int allBits, Transition transition,
+                             MooreMachine machine, int[] bitOfInputId, boolean clockHigh) {
+        Guard guard = InputWord.guardOf(transition,
+                pin -> bitOfInputId[machine.getInputPinId(pin)], clockHigh);
+        if (guard == null) return;
+        int care = (int) guard.getCare(0);
+        int value = (int) guard.getValue(0);
+        int nextState = machine.getStateId(transition.getNextState());
+        int free = allBits & ~care;
+        int sub = free;
+        while (true) {
+            int word = value | sub;
+            if (next[offset + word] == NO_TRANSITION) next[offset + word] = nextState;
+            if (sub == 0) break;
+            sub = (sub - 1) & free;
+        }
+    }
+
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * @return the number of bits of an input word
+     */
+    public int getInputCount() {
+        return inputPins.length;
+    }
+
+    /**
+     * @return the number of distinct input words, 2 to the number of inputs
+     */
+    public int getWordCount() {
+        return 1 << inputPins.length;
+    }
+
+    /**
+     * @return the input pin sampled on the bit passed of an input word
+     */
+    public Pin getInputPin(int bit) {
+        return inputPins[bit];
+    }
+
+    public int getOutputCount() {
+        return outputPins.length;
+    }
+
+    /**
+     * @return the output pin driven by the bit passed of an output word
+     */
+    public Pin getOutputPin(int bit) {
+        return outputPins[bit];
+    }
+
+    /**
+     * @param state id of a state
+     * @param word an input word
+     * @return the id of the next state, or {@link #NO_TRANSITION} if no transition accepts the word
+     * @throws IndexOutOfBoundsException if the state or the word are out of the table
+     */
+    public int getNext(int state, int word) {
+        if (word < 0 || word >= getWordCount()) throw new IndexOutOfBoundsException("word " + word);
+        return next[state * getWordCount() + word];
+    }
+
+    /**
+     * Same as {@link #getNext} but staying on the current state when no transition accepts the
+     * word
+     */
+    public int getNextOrStay(int state, int word) {
+        int nextState = getNext(state, word);
+        return nextState == NO_TRANSITION ? state : nextState;
+    }
+
+    /**
+     * @param state id of a state
+     * @return the output word of the state, bit i set if the output pin of id i is high
+     */
+    public int getOutputWord(int state) {
+        return outputs[state];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null) return false;
+        if (o == this) return true;
+        if (o.getClass() != getClass()) return false;
+
+        TransitionTable table = (TransitionTable) o;
+        return stateCount == table.stateCount && Arrays.equals(inputPins, table.inputPins) &&
+                Arrays.equals(outputPins, table.outputPins) && Arrays.equals(next, table.next) &&
+                Arrays.equals(outputs, table.outputs);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = stateCount;
+        result = 31 * result + Arrays.hashCode(inputPins);
+        result = 31 * result + Arrays.hashCode(outputPins);
+        result = 31 * result + Arrays.hashCode(next);
+        result = 31 * result + Arrays.hashCode(outputs);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TransitionTable {" +
+                "stateCount=" + stateCount +
+                ", inputPins=" + Arrays.toString(inputPins) +
+                ", outputPins=" + Arrays.toString(outputPins) +
+                ", next=" + Arrays.toString(next) +
+                ", outputs=" + Arrays.toString(outputs) +
+                '}';
+    }
+}
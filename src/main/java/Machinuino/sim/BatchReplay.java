@@ -0,0 +1,83 @@
+package Machinuino.sim;
+
+import Machinuino.model.MooreMachine;
+
+/**
+ * Outcome of replaying many traces with a {@link BatchSimulator}: the output words and final
+ * state of each trace and how many edges, over all traces, the machine ended on each state
+ * Immutable
+ */
+
+public final class BatchReplay {
+
+    private final MooreMachine machine;
+    private final int[][] outputs;
+    private final int[] finalStates;
+    private final long[] visits;
+    private final long nanos;
+
+    BatchReplay(MooreMachine machine, int[][] outputs, int[] finalStates, long[] visits,
+                long nanos) {
+        this.machine = machine;
+        this.outputs = outputs;
+        this.finalStates = finalStates;
+        this.visits = visits;
+        this.nanos = nanos;
+    }
+
+    public int getTraceCount() {
+        return outputs.length;
+    }
+
+    /**
+     * @param trace index of a trace on the list replayed
+     * @return the output word after each edge of the trace
+     */
+    public int[] getOutputs(int trace) {
+        return outputs[trace].clone();
+    }
+
+    public int getFinalState(int trace) {
+        return finalStates[trace];
+    }
+
+    /**
+     * @param state id of a state
+     * @return the number of edges, over all traces, after which the machine was on the state
+     */
+    public long getVisits(int state) {
+        return visits[state];
+    }
+
+    public long getSteps() {
+        long steps = 0;
+        for (int[] trace : outputs) steps += trace.length;
+        return steps;
+    }
+
+    /**
+     * @return the visited state histogram and the speed of the replay, one state per line
+     */
+    public String report() {
+        String lineSeparator = System.lineSeparator();
+        StringBuilder builder = new StringBuilder();
+        long steps = getSteps();
+        builder.append(" Replayed ").append(outputs.length).append(" traces, ").append(steps)
+                .append(" edges in ").append(String.format("%.3f", nanos / 1e6)).append(" ms");
+        if (nanos > 0) builder.append(String.format(" (%.1f M steps/s)", steps * 1e3 / nanos));
+        builder.append(lineSeparator);
+        for (int state = 0; state < visits.length; state++) {
+            builder.append("    ").append(machine.getStateOfId(state)).append(": ")
+                    .append(visits[state]).append(lineSeparator);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchReplay {" +
+                "traces=" + outputs.length +
+                ", steps=" + getSteps() +
+                '}';
+    }
+}
@@ -0,0 +1,129 @@
+package Machinuino.sim;
+
+import Machinuino.Utils;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Replays many independent traces on the same machine, spreading them over a fork-join pool.
+ * The tables of the {@link Simulator} are immutable, so every worker reads the same ones. The
+ * output buffer of each trace is allocated before the replay starts and written by the single
+ * worker replaying the trace, the visits are counted on a buffer of each task and added up as the
+ * tasks are joined, so the result does not depend on how the traces were split
+ * Immutable
+ */
+
+public final class BatchSimulator {
+
+    private static final String NAME_TAG = "BatchSimulator";
+    // Steps below which a range of traces is replayed instead of split
+    private static final long SPLIT_STEPS = 1 << 16;
+    private final Simulator simulator;
+    private final int parallelism;
+
+    public BatchSimulator(Simulator simulator) {
+        this(simulator, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param simulator simulator of the machine, can not be null
+     * @param parallelism number of worker threads, must be positive
+     */
+    public BatchSimulator(Simulator simulator, int parallelism) {
+        Utils.verifyNullity(NAME_TAG + "#BatchSimulator", "simulator", simulator);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(NAME_TAG + "#BatchSimulator: parallelism must be " +
+                    "positive!");
+        }
+        this.simulator = simulator;
+        this.parallelism = parallelism;
+    }
+
+    public Simulator getSimulator() {
+        return simulator;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Replays each trace from the initial state
+     *
+     * @param traces the input words of each trace, can not be null neither contain null
+     * @return the outputs and final state of each trace, in the order of {@code traces}, and the
+     * visits of all of them
+     * @throws IllegalArgumentException if a word has bits beyond the inputs of the machine
+     */
+    public BatchReplay replayAll(List<int[]> traces) {
+        Utils.verifyCollectionNullity(NAME_TAG + "#replayAll", "traces", traces);
+        int[][] inputs = traces.toArray(new int[0][]);
+        int[][] outputs = new int[inputs.length][];
+        long[] steps = new long[inputs.length + 1];
+        for (int i = 0; i < inputs.length; i++) {
+            outputs[i] = new int[inputs[i].length];
+            steps[i + 1] = steps[i] + inputs[i].length;
+        }
+        int[] finalStates = new int[inputs.length];
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long[] visits;
+        try {
+            visits = pool.invoke(new Replay(inputs, outputs, finalStates, steps, 0,
+                    inputs.length));
+        } finally {
+            pool.shutdown();
+        }
+        return new BatchReplay(simulator.getMachine(), outputs, finalStates, visits,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Replays the traces on [from, to), returning the visits counted on them
+     */
+    private final class Replay extends RecursiveTask<long[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] inputs;
+        private final int[][] outputs;
+        private final int[] finalStates;
+        private final long[] steps;
+        private final int from;
+        private final int to;
+
+        private Replay(int[][] inputs, int[][] outputs, int[] finalStates, long[] steps,
+                       int from, int to) {
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.finalStates = finalStates;
+            this.steps = steps;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > 1 && steps[to] - steps[from] > SPLIT_STEPS) {
+                int middle = (from + to) >>> 1;
+                Replay left = new Replay(inputs, outputs, finalStates, steps, from, middle);
+                left.fork();
+                long[] right = new Replay(inputs, outputs, finalStates, steps, middle, to)
+                        .compute();
+                long[] visits = left.join();
+                for (int state = 0; state < visits.length; state++) visits[state] += right[state];
+                return visits;
+            }
+
+            long[] visits = new long[simulator.getStateCount()];
+            for (int trace = from; trace < to; trace++) {
+                finalStates[trace] = simulator.run(simulator.getInitialState(), inputs[trace],
+                        outputs[trace], visits);
+            }
+            return visits;
+        }
+    }
+}
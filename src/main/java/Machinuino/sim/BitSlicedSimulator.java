@@ -0,0 +1,224 @@
+package Machinuino.sim;
+
+import Machinuino.Utils;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays up to 64 traces at once, lane i of every long being trace i. Each input pin is a long
+ * holding its value on the 64 traces and the state id is kept as bit planes, one long per bit of
+ * the id. A step evaluates, for each state, which lanes are on it and which of those take each of
+ * its transitions, as boolean formulas over the planes built from the guards, first match
+ * winning as on the sketch, and the lanes no transition takes keep their state
+ * Immutable
+ */
+
+public final class BitSlicedSimulator {
+
+    public static final int LANES = Long.SIZE;
+    private static final String NAME_TAG = "BitSlicedSimulator";
+    private final MooreMachine machine;
+    private final int inputCount;
+    private final int stateBits;
+    // Guards of the transitions of each state, in order, as pairs of mask and value
+    private final int[][] guards;
+    private final int[][] next;
+    private final int[] outputs;
+
+    private BitSlicedSimulator(MooreMachine machine, boolean clockHigh) {
+        this.machine = machine;
+        List<Pin> inputs = MachineWords.inputBits(machine, NAME_TAG + "#ofMachine");
+        this.inputCount = inputs.size();
+        this.stateBits = Math.max(1, Integer.SIZE -
+                Integer.numberOfLeadingZeros(machine.getStateCount() - 1));
+        this.guards = new int[machine.getStateCount()][];
+        this.next = new int[machine.getStateCount()][];
+        for (int state = 0; state < guards.length; state++) {
+            List<Transition> transitions = machine.getTransitionsOfState(state);
+            int[] stateGuards = new int[transitions.size() * 2];
+            int[] stateNext = new int[transitions.size()];
+            int count = 0;
+            for (Transition transition : transitions) {
+                int[] guard = MachineWords.guardOf(transition, inputs, clockHigh);
+                if (guard == null) continue;
+                stateGuards[count * 2] = guard[0];
+                stateGuards[count * 2 + 1] = guard[1];
+                stateNext[count++] = machine.getStateId(transition.getNextState());
+            }
+            guards[state] = Arrays.copyOf(stateGuards, count * 2);
+            next[state] = Arrays.copyOf(stateNext, count);
+        }
+        this.outputs = MachineWords.outputWords(machine);
+    }
+
+    /**
+     * Same as {@link #ofMachine(MooreMachine, boolean)} sampling on the rising edge of the clock
+     */
+    public static BitSlicedSimulator ofMachine(MooreMachine machine) {
+        return ofMachine(machine, true);
+    }
+
+    /**
+     * @param machine the machine to be simulated, can not be null
+     * @param clockHigh the level of the clock right after the edge the machine steps on
+     * @return a bit sliced simulator of the machine
+     * @throws IllegalArgumentException if the machine has more than 32 input pins besides the
+     * clock or more than 32 output pins
+     */
+    public static BitSlicedSimulator ofMachine(MooreMachine machine, boolean clockHigh) {
+        Utils.verifyNullity(NAME_TAG + "#ofMachine", "machine", machine);
+        return new BitSlicedSimulator(machine, clockHigh);
+    }
+
+    public MooreMachine getMachine() {
+        return machine;
+    }
+
+    /**
+     * Replays each trace from the initial state, {@link #LANES} traces at a time
+     *
+     * @param traces the input words of each trace, can not be null neither contain null
+     * @return the outputs and final state of each trace, in the order of {@code traces}, and the
+     * visits of all of them
+     * @throws IllegalArgumentException if a word has bits beyond the inputs of the machine
+     */
+    public BatchReplay replayAll(List<int[]> traces) {
+        Utils.verifyCollectionNullity(NAME_TAG + "#replayAll", "traces", traces);
+        int[][] inputs = traces.toArray(new int[0][]);
+        int[][] outputs = new int[inputs.length][];
+        int[] finalStates = new int[inputs.length];
+        long[] visits = new long[machine.getStateCount()];
+        long start = System.nanoTime();
+        for (int first = 0; first < inputs.length; first += LANES) {
+            replayLanes(inputs, first, Math.min(inputs.length, first + LANES), outputs,
+                    finalStates, visits);
+        }
+        return new BatchReplay(machine, outputs, finalStates, visits, System.nanoTime() - start);
+    }
+
+    private void replayLanes(int[][] inputs, int first, int end, int[][] outputs,
+                             int[] finalStates, long[] visits) {
+        int lanes = end - first;
+        int length = 0;
+        for (int lane = 0; lane < lanes; lane++) {
+            outputs[first + lane] = new int[inputs[first + lane].length];
+            length = Math.max(length, inputs[first + lane].length);
+        }
+
+        long[] state = new long[stateBits];
+        long[] nextState = new long[stateBits];
+        long[] onState = new long[machine.getStateCount()];
+        long[] pins = new long[inputCount];
+        int initial = machine.getStateId(machine.getInitialState());
+        for (int bit = 0; bit < stateBits; bit++) state[bit] = (initial >> bit & 1) != 0 ? -1L : 0;
+        int invalidBits = inputCount == Integer.SIZE ? 0 : -1 << inputCount;
+
+        for (int step = 0; step < length; step++) {
+            // Lanes whose trace ended keep their state and are not counted
+            long active = 0;
+            Arrays.fill(pins, 0);
+            for (int lane = 0; lane < lanes; lane++) {
+                int[] trace = inputs[first + lane];
+                if (step >= trace.length) continue;
+                active |= 1L << lane;
+                int word = trace[step];
+                if ((word & invalidBits) != 0) {
+                    throw new IllegalArgumentException(NAME_TAG + ": input word " +
+                            Integer.toHexString(word) + " has bits beyond the inputs of " +
+                            machine.getName());
+                }
+                while (word != 0) {
+                    int bit = Integer.numberOfTrailingZeros(word);
+                    pins[bit] |= 1L << lane;
+                    word &= word - 1;
+                }
+            }
+
+            System.arraycopy(state, 0, nextState, 0, stateBits);
+            for (int s = 0; s < onState.length; s++) {
+                long remaining = lanesOn(state, s) & active;
+                if (remaining == 0) continue;
+                int[] stateGuards = guards[s];
+                for (int t = 0; t < next[s].length && remaining != 0; t++) {
+                    long taken = remaining & satisfying(pins, stateGuards[t * 2],
+                            stateGuards[t * 2 + 1]);
+                    if (taken == 0) continue;
+                    remaining &= ~taken;
+                    int target = next[s][t];
+                    for (int bit = 0; bit < stateBits; bit++) {
+                        if ((target >> bit & 1) != 0) {
+                            nextState[bit] |= taken;
+                        } else {
+                            nextState[bit] &= ~taken;
+                        }
+                    }
+                }
+            }
+            long[] swap = state;
+            state = nextState;
+            nextState = swap;
+
+            for (int s = 0; s < onState.length; s++) {
+                onState[s] = lanesOn(state, s) & active;
+                visits[s] += Long.bitCount(onState[s]);
+            }
+            writeOutputs(onState, step, first, outputs);
+        }
+
+        for (int lane = 0; lane < lanes; lane++) {
+            int id = 0;
+            for (int bit = 0; bit < stateBits; bit++) {
+                if ((state[bit] >>> lane & 1) != 0) id |= 1 << bit;
+            }
+            finalStates[first + lane] = id;
+        }
+    }
+
+    /**
+     * @return the lanes whose state planes spell the state id passed
+     */
+    private long lanesOn(long[] state, int id) {
+        long lanes = -1L;
+        for (int bit = 0; bit < stateBits; bit++) {
+            lanes &= (id >> bit & 1) != 0 ? state[bit] : ~state[bit];
+        }
+        return lanes;
+    }
+
+    /**
+     * @return the lanes whose inputs satisfy the guard with the mask and value passed
+     */
+    private static long satisfying(long[] pins, int mask, int value) {
+        long lanes = -1L;
+        while (mask != 0) {
+            int bit = Integer.numberOfTrailingZeros(mask);
+            lanes &= (value >> bit & 1) != 0 ? pins[bit] : ~pins[bit];
+            mask &= mask - 1;
+        }
+        return lanes;
+    }
+
+    private void writeOutputs(long[] onState, int step, int first, int[][] outputs) {
+        for (int s = 0; s < onState.length; s++) {
+            long lanesOn = onState[s];
+            while (lanesOn != 0) {
+                int lane = Long.numberOfTrailingZeros(lanesOn);
+                outputs[first + lane][step] = this.outputs[s];
+                lanesOn &= lanesOn - 1;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BitSlicedSimulator {" +
+                "machine=" + machine.getName() +
+                ", stateBits=" + stateBits +
+                ", inputs=" + inputCount +
+                '}';
+    }
+}
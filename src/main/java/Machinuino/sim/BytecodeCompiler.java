@@ -0,0 +1,297 @@
+package Machinuino.sim;
+
+import Machinuino.Utils;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodTooLargeException;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a subclass of {@link CompiledMachine} for a machine and loads it at runtime. The
+ * generated step is a tableswitch over the state ids, each case testing the transitions of the
+ * state in order with {@code (inputs & mask) == value} and staying on the state when none
+ * matches, the same code {@link Machinuino.CodeGenerator} emits for the board. The input word
+ * packs the input pins but the clock by id, as {@link Machinuino.model.TransitionTable} does.
+ * The states are split in blocks of consecutive ids, each switched on by its own method, so
+ * large machines neither overflow the 64 KB limit of a method nor grow methods too large for the
+ * JIT to compile. The last classes are cached by machine and ids of its states and pins, so
+ * compiling an equal machine again only instantiates its class
+ */
+
+public final class BytecodeCompiler {
+
+    public static final int MAX_INPUT_BITS = MachineWords.MAX_BITS;
+    public static final int MAX_OUTPUT_BITS = MachineWords.MAX_BITS;
+    private static final String NAME_TAG = "BytecodeCompiler";
+    private static final String PACKAGE = "Machinuino/sim/generated/";
+    private static final String SUPER = Type.getInternalName(CompiledMachine.class);
+    private static final String CONSTRUCTOR = Type.getMethodDescriptor(Type.VOID_TYPE,
+            Type.getType(MooreMachine.class), Type.getType(int[].class), Type.INT_TYPE);
+    private static final String BLOCK = "(II)I";
+    // Keeps the blocks below the size HotSpot compiles, about 20 bytes of code by transition
+    private static final int MAX_BLOCK_TRANSITIONS = 384;
+    private static final int MAX_BLOCK_SHIFT = 8;
+    private static final int CACHE_SIZE = 64;
+    private static final Map<Key, Constructor<? extends CompiledMachine>> CACHE =
+            Collections.synchronizedMap(new LinkedHashMap<Key, Constructor<? extends
+                    CompiledMachine>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Key, Constructor<? extends CompiledMachine>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+    private static final AtomicInteger CLASSES = new AtomicInteger();
+
+    private BytecodeCompiler() {
+    }
+
+    /**
+     * Same as {@link #compile(MooreMachine, boolean)} sampling on the rising edge of the clock
+     */
+    public static CompiledMachine compile(MooreMachine machine) {
+        return compile(machine, true);
+    }
+
+    /**
+     * @param machine the machine to be compiled, can not be null
+     * @param clockHigh the level of the clock right after the edge the machine steps on
+     * @return a new instance of the class of the machine, on its initial state
+     * @throws IllegalArgumentException if the machine has more than {@link #MAX_INPUT_BITS}
+     * input pins besides the clock or more than {@link #MAX_OUTPUT_BITS} output pins, or has a
+     * state with too many transitions to fit a method
+     */
+    public static CompiledMachine compile(MooreMachine machine, boolean clockHigh) {
+        Utils.verifyNullity(NAME_TAG + "#compile", "machine", machine);
+        List<Pin> inputs = MachineWords.inputBits(machine, NAME_TAG + "#compile");
+
+        Constructor<? extends CompiledMachine> constructor = CACHE.computeIfAbsent(
+                new Key(machine, clockHigh), key -> define(machine, inputs, clockHigh));
+        try {
+            return constructor.newInstance(machine, MachineWords.outputWords(machine),
+                    inputs.size());
+        } catch (InstantiationException | IllegalAccessException |
+                InvocationTargetException e) {
+            throw new IllegalStateException(NAME_TAG + "#compile: could not instantiate the " +
+                    "class of " + machine.getName(), e);
+        }
+    }
+
+    private static Constructor<? extends CompiledMachine> define(MooreMachine machine,
+                                                                 List<Pin> inputs,
+                                                                 boolean clockHigh) {
+        String name = PACKAGE + "Machine" + CLASSES.incrementAndGet();
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER,
+                name, null, SUPER, null);
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", CONSTRUCTOR, null,
+                null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitVarInsn(Opcodes.ALOAD, 1);
+        init.visitVarInsn(Opcodes.ALOAD, 2);
+        init.visitVarInsn(Opcodes.ILOAD, 3);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, SUPER, "<init>", CONSTRUCTOR, false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        defineStep(writer, name, machine, inputs, clockHigh);
+        writer.visitEnd();
+
+        byte[] bytes;
+        try {
+            bytes = writer.toByteArray();
+        } catch (MethodTooLargeException e) {
+            throw new IllegalArgumentException(NAME_TAG + "#compile: " + machine.getName() +
+                    " has too many transitions to be compiled, use the table executor", e);
+        }
+        // A loader of its own lets the class be unloaded once it leaves the cache
+        Class<?> defined = new Loader(CompiledMachine.class.getClassLoader())
+                .define(name.replace('/', '.'), bytes);
+        try {
+            return defined.asSubclass(CompiledMachine.class).getConstructor(MooreMachine.class,
+                    int[].class, int.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(NAME_TAG + "#compile: generated class without " +
+                    "constructor", e);
+        }
+    }
+
+    /**
+     * The step switches on the block of the state, calling the method of the block, which
+     * returns the next state
+     */
+    private static void defineStep(ClassWriter writer, String name, MooreMachine machine,
+                                   List<Pin> inputs, boolean clockHigh) {
+        int states = machine.getStateCount();
+        int shift = blockShift(machine);
+        int blocks = (states + (1 << shift) - 1) >>> shift;
+
+        MethodVisitor step = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, "step",
+                "(I)I", null, null);
+        step.visitCode();
+        Label stay = new Label();
+        Label store = new Label();
+        Label[] cases = new Label[blocks];
+        for (int block = 0; block < blocks; block++) cases[block] = new Label();
+
+        step.visitVarInsn(Opcodes.ALOAD, 0);
+        step.visitFieldInsn(Opcodes.GETFIELD, SUPER, "state", "I");
+        step.visitVarInsn(Opcodes.ISTORE, 2);
+        step.visitVarInsn(Opcodes.ILOAD, 2);
+        step.visitLdcInsn(shift);
+        step.visitInsn(Opcodes.IUSHR);
+        step.visitTableSwitchInsn(0, blocks - 1, stay, cases);
+        for (int block = 0; block < blocks; block++) {
+            step.visitLabel(cases[block]);
+            step.visitVarInsn(Opcodes.ILOAD, 2);
+            step.visitVarInsn(Opcodes.ILOAD, 1);
+            step.visitMethodInsn(Opcodes.INVOKESTATIC, name, "block" + block, BLOCK, false);
+            step.visitJumpInsn(Opcodes.GOTO, store);
+
+            int first = block << shift;
+            defineBlock(writer, machine, inputs, clockHigh, block, first,
+                    Math.min(states, first + (1 << shift)) - 1);
+        }
+        step.visitLabel(store);
+        step.visitVarInsn(Opcodes.ISTORE, 2);
+        step.visitVarInsn(Opcodes.ALOAD, 0);
+        step.visitVarInsn(Opcodes.ILOAD, 2);
+        step.visitFieldInsn(Opcodes.PUTFIELD, SUPER, "state", "I");
+        step.visitLabel(stay);
+        step.visitVarInsn(Opcodes.ILOAD, 2);
+        step.visitInsn(Opcodes.IRETURN);
+        step.visitMaxs(0, 0);
+        step.visitEnd();
+    }
+
+    /**
+     * The largest blocks, of up to {@code 1 << MAX_BLOCK_SHIFT} states, whose transitions all fit
+     * {@link #MAX_BLOCK_TRANSITIONS}, down to blocks of a single state
+     */
+    private static int blockShift(MooreMachine machine) {
+        int states = machine.getStateCount();
+        int[] transitions = new int[states];
+        for (int state = 0; state < states; state++) {
+            transitions[state] = machine.getTransitionsOfState(state).size();
+        }
+        for (int shift = MAX_BLOCK_SHIFT; shift > 0; shift--) {
+            boolean fits = true;
+            for (int first = 0; first < states && fits; first += 1 << shift) {
+                int count = 0;
+                for (int state = first; state < Math.min(states, first + (1 << shift)); state++) {
+                    count += transitions[state];
+                }
+                fits = count <= MAX_BLOCK_TRANSITIONS;
+            }
+            if (fits) return shift;
+        }
+        return 0;
+    }
+
+    /**
+     * The case of a state returns the next state of the first transition matching the inputs,
+     * every case falls to the default, which returns the current state
+     */
+    private static void defineBlock(ClassWriter writer, MooreMachine machine, List<Pin> inputs,
+                                    boolean clockHigh, int block, int first, int last) {
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC,
+                "block" + block, BLOCK, null, null);
+        method.visitCode();
+        Label stay = new Label();
+        Label[] cases = new Label[last - first + 1];
+        for (int i = 0; i < cases.length; i++) cases[i] = new Label();
+
+        method.visitVarInsn(Opcodes.ILOAD, 0);
+        method.visitTableSwitchInsn(first, last, stay, cases);
+        for (int state = first; state <= last; state++) {
+            method.visitLabel(cases[state - first]);
+            for (Transition transition : machine.getTransitionsOfState(state)) {
+                int[] guard = MachineWords.guardOf(transition, inputs, clockHigh);
+                if (guard == null) continue;
+
+                Label skip = new Label();
+                if (guard[0] != 0) {
+                    method.visitVarInsn(Opcodes.ILOAD, 1);
+                    method.visitLdcInsn(guard[0]);
+                    method.visitInsn(Opcodes.IAND);
+                    method.visitLdcInsn(guard[1]);
+                    method.visitJumpInsn(Opcodes.IF_ICMPNE, skip);
+                }
+                method.visitLdcInsn(machine.getStateId(transition.getNextState()));
+                method.visitInsn(Opcodes.IRETURN);
+                method.visitLabel(skip);
+            }
+            method.visitJumpInsn(Opcodes.GOTO, stay);
+        }
+        method.visitLabel(stay);
+        method.visitVarInsn(Opcodes.ILOAD, 0);
+        method.visitInsn(Opcodes.IRETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    /**
+     * Equal machines may give their states and pins different ids, which the generated code
+     * depends on, so the ids are part of the key
+     */
+    private static final class Key {
+        private final MooreMachine machine;
+        private final List<String> states;
+        private final List<Pin> inputs;
+        private final boolean clockHigh;
+
+        private Key(MooreMachine machine, boolean clockHigh) {
+            this.machine = machine;
+            this.states = new ArrayList<>();
+            for (int id = 0; id < machine.getStateCount(); id++) {
+                states.add(machine.getStateOfId(id));
+            }
+            this.inputs = new ArrayList<>();
+            for (int id = 0; id < machine.getInputPinCount(); id++) {
+                inputs.add(machine.getInputPinOfId(id));
+            }
+            this.clockHigh = clockHigh;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return clockHigh == key.clockHigh && states.equals(key.states) &&
+                    inputs.equals(key.inputs) && machine.equals(key.machine);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(machine, clockHigh);
+        }
+    }
+
+    private static final class Loader extends ClassLoader {
+        private Loader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
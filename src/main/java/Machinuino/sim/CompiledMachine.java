@@ -0,0 +1,90 @@
+package Machinuino.sim;
+
+import Machinuino.Utils;
+import Machinuino.model.MooreMachine;
+
+/**
+ * A machine turned into a JVM class by {@link BytecodeCompiler}, whose {@link #step} is a switch
+ * over the state ids testing the guard masks of each state inline, as the switch of the sketch.
+ * Each instance keeps the state it is on, so it must not be shared between threads
+ */
+
+public abstract class CompiledMachine {
+
+    private static final String NAME_TAG = "CompiledMachine";
+    /**
+     * The id of the state the machine is on, written by the generated step
+     */
+    protected int state;
+    private final MooreMachine machine;
+    private final int[] outputs;
+    private final int invalidBits;
+
+    /**
+     * @param machine the machine compiled
+     * @param outputs the output word of each state id
+     * @param inputCount number of bits of an input word
+     */
+    protected CompiledMachine(MooreMachine machine, int[] outputs, int inputCount) {
+        this.machine = machine;
+        this.outputs = outputs;
+        this.invalidBits = inputCount == Integer.SIZE ? 0 : -1 << inputCount;
+        this.state = machine.getStateId(machine.getInitialState());
+    }
+
+    /**
+     * Takes a clock edge, the input word is not checked
+     *
+     * @param inputs the input word sampled on the edge
+     * @return the id of the state after the edge
+     */
+    public abstract int step(int inputs);
+
+    public MooreMachine getMachine() {
+        return machine;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Moves the machine back to its initial state
+     */
+    public void reset() {
+        state = machine.getStateId(machine.getInitialState());
+    }
+
+    public int getOutputWord() {
+        return outputs[state];
+    }
+
+    /**
+     * Same as {@link Simulator#run} from the state the machine is on
+     *
+     * @return the id of the state after the last word of the trace
+     */
+    public int run(int[] trace, int[] outputs, long[] visits) {
+        Utils.verifyNullity(NAME_TAG + "#run", "trace", trace);
+        for (int i = 0; i < trace.length; i++) {
+            int word = trace[i];
+            if ((word & invalidBits) != 0) {
+                throw new IllegalArgumentException(NAME_TAG + ": input word " +
+                        Integer.toHexString(word) + " has bits beyond the inputs of " +
+                        machine.getName());
+            }
+            int next = step(word);
+            if (outputs != null) outputs[i] = this.outputs[next];
+            if (visits != null) visits[next]++;
+        }
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledMachine {" +
+                "machine=" + machine.getName() +
+                ", state=" + machine.getStateOfId(state) +
+                '}';
+    }
+}
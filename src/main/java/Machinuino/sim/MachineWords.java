@@ -0,0 +1,72 @@
+package Machinuino.sim;
+
+import Machinuino.model.BoolPin;
+import Machinuino.model.Guard;
+import Machinuino.model.InputWord;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Output;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+
+import java.util.List;
+
+/**
+ * The input and output words of a machine as the executors of this package see them: bit i of an
+ * input word is the i-th input pin by id, the clock left out, and bit i of an output word is the
+ * output pin of id i, the same layout as {@link Machinuino.model.TransitionTable}
+ */
+
+final class MachineWords {
+
+    static final int MAX_BITS = Integer.SIZE;
+
+    private MachineWords() {
+    }
+
+    /**
+     * @param tag prefix of the exception message
+     * @return the input pins of the machine on the bits of the input word
+     * @throws IllegalArgumentException if there are more than {@link #MAX_BITS} input pins
+     * besides the clock or more than {@link #MAX_BITS} output pins
+     */
+    static List<Pin> inputBits(MooreMachine machine, String tag) {
+        List<Pin> inputs = InputWord.inputBits(machine);
+        if (inputs.size() > MAX_BITS) {
+            throw new IllegalArgumentException(tag + ": " + machine.getName() + " has " +
+                    inputs.size() + " input pins, at most " + MAX_BITS + " can be simulated");
+        }
+        if (machine.getOutputPinCount() > MAX_BITS) {
+            throw new IllegalArgumentException(tag + ": " + machine.getName() + " has " +
+                    machine.getOutputPinCount() + " output pins, at most " + MAX_BITS +
+                    " can be simulated");
+        }
+        return inputs;
+    }
+
+    /**
+     * @return the mask and value of the guard of the transition on the input word, null if the
+     * transition requires the clock on the level it does not have
+     */
+    static int[] guardOf(Transition transition, List<Pin> inputs, boolean clockHigh) {
+        Guard guard = InputWord.guardOf(transition, inputs::indexOf, clockHigh);
+        if (guard == null) return null;
+        return new int[]{(int) guard.getCare(0), (int) guard.getValue(0)};
+    }
+
+    /**
+     * @return the output word of each state id
+     */
+    static int[] outputWords(MooreMachine machine) {
+        int[] outputs = new int[machine.getStateCount()];
+        for (int state = 0; state < outputs.length; state++) {
+            Output output = machine.getOutputOfState(state);
+            if (output == null) continue;
+            for (BoolPin boolPin : output.getBoolPins()) {
+                if (boolPin.isHigh()) {
+                    outputs[state] |= 1 << machine.getOutputPinId(boolPin.getPin());
+                }
+            }
+        }
+        return outputs;
+    }
+}
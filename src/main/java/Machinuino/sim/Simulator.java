@@ -0,0 +1,136 @@
+package Machinuino.sim;
+
+import Machinuino.Utils;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.TransitionTable;
+
+/**
+ * Runs a machine on the host the way the generated sketch runs it on the board: it starts on the
+ * initial state and, on each clock edge, takes the next state of the sampled input word, staying
+ * on the state when no transition accepts the word. The transitions and outputs are flattened
+ * into int arrays indexed by state id and input word, so a step is a single array lookup
+ * Immutable
+ */
+
+public final class Simulator {
+
+    private static final String NAME_TAG = "Simulator";
+    private final MooreMachine machine;
+    private final TransitionTable table;
+    private final int inputCount;
+    private final int[] next;
+    private final int[] outputs;
+
+    private Simulator(MooreMachine machine, TransitionTable table) {
+        this.machine = machine;
+        this.table = table;
+        this.inputCount = table.getInputCount();
+        int words = table.getWordCount();
+        this.next = new int[table.getStateCount() * words];
+        this.outputs = new int[table.getStateCount()];
+        for (int state = 0; state < table.getStateCount(); state++) {
+            for (int word = 0; word < words; word++) {
+                next[state * words + word] = table.getNextOrStay(state, word);
+            }
+            outputs[state] = table.getOutputWord(state);
+        }
+    }
+
+    /**
+     * Same as {@link #ofMachine(MooreMachine, boolean)} sampling on the rising edge of the clock
+     */
+    public static Simulator ofMachine(MooreMachine machine) {
+        return ofMachine(machine, true);
+    }
+
+    /**
+     * @param machine the machine to be simulated, can not be null
+     * @param clockHigh the level of the clock right after the edge the machine steps on
+     * @return a simulator of the machine
+     * @throws IllegalArgumentException if the machine can not be tabulated
+     * @see TransitionTable#ofMachine(MooreMachine, boolean)
+     */
+    public static Simulator ofMachine(MooreMachine machine, boolean clockHigh) {
+        Utils.verifyNullity(NAME_TAG + "#ofMachine", "machine", machine);
+        return new Simulator(machine, TransitionTable.ofMachine(machine, clockHigh));
+    }
+
+    public MooreMachine getMachine() {
+        return machine;
+    }
+
+    /**
+     * @return the table the simulator was flattened from, which gives the bit of each pin on the
+     * input and output words
+     */
+    public TransitionTable getTable() {
+        return table;
+    }
+
+    public int getStateCount() {
+        return outputs.length;
+    }
+
+    public int getInitialState() {
+        return machine.getStateId(machine.getInitialState());
+    }
+
+    /**
+     * @param state id of a state
+     * @param word an input word
+     * @return the id of the state after a clock edge with the input word passed
+     * @throws IllegalArgumentException if the word has bits beyond the inputs of the machine
+     */
+    public int step(int state, int word) {
+        verifyWord(word);
+        return next[(state << inputCount) + word];
+    }
+
+    public int getOutputWord(int state) {
+        return outputs[state];
+    }
+
+    /**
+     * Steps the machine over every word of the trace
+     *
+     * @param state id of the state to start from
+     * @param trace the input words sampled on each edge, can not be null
+     * @param outputs where the output word after each edge is stored, can be null if the output
+     *                stream is not wanted, otherwise at least as long as the trace
+     * @param visits where the number of edges after which the machine is on each state is added
+     *               up, can be null, otherwise as long as the number of states
+     * @return the id of the state after the last word of the trace
+     * @throws IllegalArgumentException if a word has bits beyond the inputs of the machine
+     */
+    public int run(int state, int[] trace, int[] outputs, long[] visits) {
+        Utils.verifyNullity(NAME_TAG + "#run", "trace", trace);
+        int[] next = this.next;
+        int inputCount = this.inputCount;
+        int invalid = -1 << inputCount;
+        for (int i = 0; i < trace.length; i++) {
+            int word = trace[i];
+            if ((word & invalid) != 0) verifyWord(word);
+            state = next[(state << inputCount) + word];
+            if (outputs != null) outputs[i] = this.outputs[state];
+            if (visits != null) visits[state]++;
+        }
+        return state;
+    }
+
+    private void verifyWord(int word) {
+        if ((word & -1 << inputCount) != 0) {
+            throw new IllegalArgumentException(NAME_TAG + ": input word " +
+                    Integer.toHexString(word) + " has bits beyond the " + inputCount +
+                    " inputs of " + machine.getName());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Simulator {" +
+                "machine=" + machine.getName() +
+                ", states=" + outputs.length +
+                ", inputs=" + inputCount +
+                '}';
+    }
+}
@@ -0,0 +1,219 @@
+package Machinuino.sim;
+
+import Machinuino.Utils;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.TransitionTable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the input traces replayed by the {@link Simulator} and writes the outputs it produces.
+ * A trace is either a CSV file, whose header names the input pins and each row of which has the
+ * 0 or 1 value of the pins on an edge, or a binary file of big endian 32 bit input words, bit i
+ * of a word being the input i of the {@link TransitionTable}. The machine may be passed instead of
+ * its table, the words then have the same layout but up to 32 inputs, as a
+ * {@link CompiledMachine} takes them
+ */
+
+public final class TraceFiles {
+
+    public static final String CSV_EXTENSION = ".csv";
+    private static final String NAME_TAG = "TraceFiles";
+
+    private TraceFiles() {
+    }
+
+    /**
+     * Reads a trace, as CSV if the file ends with {@link #CSV_EXTENSION} or as binary otherwise
+     */
+    public static int[] read(Path file, TransitionTable table) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#read", "file", file);
+        return file.toString().endsWith(CSV_EXTENSION) ? readCsv(file, table) : readBinary(file);
+    }
+
+    /**
+     * @see #read(Path, TransitionTable)
+     */
+    public static int[] read(Path file, MooreMachine machine) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#read", "file", file);
+        return file.toString().endsWith(CSV_EXTENSION) ? readCsv(file, machine) :
+                readBinary(file);
+    }
+
+    /**
+     * @param file a CSV trace, can not be null
+     * @param table gives the bit of each input pin, can not be null
+     * @return the input words of the trace
+     * @throws IllegalArgumentException if the header does not name every input of the table or a
+     * row is malformed
+     */
+    public static int[] readCsv(Path file, TransitionTable table) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#readCsv", "file", file);
+        Utils.verifyNullity(NAME_TAG + "#readCsv", "table", table);
+        List<Pin> inputs = new ArrayList<>();
+        for (int bit = 0; bit < table.getInputCount(); bit++) inputs.add(table.getInputPin(bit));
+        return readCsv(file, inputs);
+    }
+
+    /**
+     * @param machine gives the bit of each input pin, can not be null
+     * @throws IllegalArgumentException if the machine has more than 32 input or output pins
+     * @see #readCsv(Path, TransitionTable)
+     */
+    public static int[] readCsv(Path file, MooreMachine machine) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#readCsv", "file", file);
+        Utils.verifyNullity(NAME_TAG + "#readCsv", "machine", machine);
+        return readCsv(file, MachineWords.inputBits(machine, NAME_TAG + "#readCsv"));
+    }
+
+    private static int[] readCsv(Path file, List<Pin> inputs) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) return new int[0];
+            int[] bitOfColumn = bitsOfColumns(header.split(","), inputs, file);
+
+            int[] words = new int[1024];
+            int count = 0;
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) continue;
+                String[] values = line.split(",");
+                if (values.length != bitOfColumn.length) {
+                    throw new IllegalArgumentException(file + ":" + lineNumber + ": expected " +
+                            bitOfColumn.length + " values but found " + values.length);
+                }
+                int word = 0;
+                for (int column = 0; column < values.length; column++) {
+                    String value = values[column].trim();
+                    if (value.equals("1")) {
+                        word |= 1 << bitOfColumn[column];
+                    } else if (!value.equals("0")) {
+                        throw new IllegalArgumentException(file + ":" + lineNumber +
+                                ": expected 0 or 1 but found " + value);
+                    }
+                }
+                if (count == words.length) words = Arrays.copyOf(words, count * 2);
+                words[count++] = word;
+            }
+            return Arrays.copyOf(words, count);
+        }
+    }
+
+    private static int[] bitsOfColumns(String[] names, List<Pin> inputs, Path file) {
+        int[] bitOfColumn = new int[names.length];
+        int seen = 0;
+        for (int column = 0; column < names.length; column++) {
+            bitOfColumn[column] = -1;
+            for (int bit = 0; bit < inputs.size(); bit++) {
+                if (inputs.get(bit).getName().equals(names[column].trim())) {
+                    bitOfColumn[column] = bit;
+                }
+            }
+            if (bitOfColumn[column] < 0) {
+                throw new IllegalArgumentException(file + ": " + names[column].trim() +
+                        " is not an input pin of the machine");
+            }
+            if ((seen & 1 << bitOfColumn[column]) != 0) {
+                throw new IllegalArgumentException(file + ": " + names[column].trim() +
+                        " is named twice");
+            }
+            seen |= 1 << bitOfColumn[column];
+        }
+        if (Integer.bitCount(seen) != inputs.size()) {
+            throw new IllegalArgumentException(file + ": the header must name every input pin " +
+                    "but the clock");
+        }
+        return bitOfColumn;
+    }
+
+    /**
+     * Maps a binary trace into memory and copies its words
+     *
+     * @param file a binary trace, can not be null
+     * @return the input words of the trace
+     * @throws IllegalArgumentException if the size of the file is not a multiple of 4 bytes
+     */
+    public static int[] readBinary(Path file) throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#readBinary", "file", file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % Integer.BYTES != 0 || size / Integer.BYTES > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(file + ": a binary trace must be made of " +
+                        "whole 32 bit words");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            IntBuffer ints = buffer.order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+            int[] words = new int[ints.remaining()];
+            ints.get(words);
+            return words;
+        }
+    }
+
+    /**
+     * Writes the output words as CSV, the header naming the output pins of the table
+     *
+     * @param file where the outputs are written, can not be null
+     * @param table gives the bit of each output pin, can not be null
+     * @param outputs the output words, can not be null
+     */
+    public static void writeCsv(Path file, TransitionTable table, int[] outputs)
+            throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#writeCsv", "file", file);
+        Utils.verifyNullity(NAME_TAG + "#writeCsv", "table", table);
+        Utils.verifyNullity(NAME_TAG + "#writeCsv", "outputs", outputs);
+        List<Pin> pins = new ArrayList<>();
+        for (int bit = 0; bit < table.getOutputCount(); bit++) pins.add(table.getOutputPin(bit));
+        writeCsv(file, pins, outputs);
+    }
+
+    /**
+     * @param machine gives the bit of each output pin, can not be null
+     * @see #writeCsv(Path, TransitionTable, int[])
+     */
+    public static void writeCsv(Path file, MooreMachine machine, int[] outputs)
+            throws IOException {
+        Utils.verifyNullity(NAME_TAG + "#writeCsv", "file", file);
+        Utils.verifyNullity(NAME_TAG + "#writeCsv", "machine", machine);
+        Utils.verifyNullity(NAME_TAG + "#writeCsv", "outputs", outputs);
+        List<Pin> pins = new ArrayList<>();
+        for (int id = 0; id < machine.getOutputPinCount(); id++) {
+            pins.add(machine.getOutputPinOfId(id));
+        }
+        writeCsv(file, pins, outputs);
+    }
+
+    private static void writeCsv(Path file, List<Pin> pins, int[] outputs) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int bit = 0; bit < pins.size(); bit++) {
+                if (bit > 0) writer.write(',');
+                writer.write(pins.get(bit).getName());
+            }
+            writer.newLine();
+            char[] row = new char[Math.max(0, pins.size() * 2 - 1)];
+            for (int output : outputs) {
+                for (int bit = 0; bit < pins.size(); bit++) {
+                    if (bit > 0) row[bit * 2 - 1] = ',';
+                    row[bit * 2] = (output & 1 << bit) != 0 ? '1' : '0';
+                }
+                writer.write(row);
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package Machinuino.sim;
+
+import Machinuino.Utils;
+import Machinuino.model.MooreMachine;
+
+/**
+ * Outcome of replaying an input trace on a {@link Simulator} or a {@link CompiledMachine}: the
+ * output word after each edge and how many edges the machine ended on each state
+ * Immutable
+ */
+
+public final class TraceReplay {
+
+    private static final String NAME_TAG = "TraceReplay";
+    private final MooreMachine machine;
+    private final int[] outputs;
+    private final long[] visits;
+    private final int finalState;
+    private final long nanos;
+
+    private TraceReplay(MooreMachine machine, int[] outputs, long[] visits, int finalState,
+                        long nanos) {
+        this.machine = machine;
+        this.outputs = outputs;
+        this.visits = visits;
+        this.finalState = finalState;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Replays the trace from the initial state
+     *
+     * @param simulator simulator of the machine, can not be null
+     * @param trace the input word of each edge, can not be null
+     * @return the outputs and the visited states of the replay
+     * @throws IllegalArgumentException if a word has bits beyond the inputs of the machine
+     */
+    public static TraceReplay replay(Simulator simulator, int[] trace) {
+        Utils.verifyNullity(NAME_TAG + "#replay", "simulator", simulator);
+        Utils.verifyNullity(NAME_TAG + "#replay", "trace", trace);
+        int[] outputs = new int[trace.length];
+        long[] visits = new long[simulator.getStateCount()];
+        long start = System.nanoTime();
+        int finalState = simulator.run(simulator.getInitialState(), trace, outputs, visits);
+        return new TraceReplay(simulator.getMachine(), outputs, visits, finalState,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Replays the trace on the compiled machine from its initial state, the compiled machine is
+     * left on the state after the last edge
+     *
+     * @see #replay(Simulator, int[])
+     */
+    public static TraceReplay replay(CompiledMachine compiled, int[] trace) {
+        Utils.verifyNullity(NAME_TAG + "#replay", "compiled", compiled);
+        Utils.verifyNullity(NAME_TAG + "#replay", "trace", trace);
+        MooreMachine machine = compiled.getMachine();
+        int[] outputs = new int[trace.length];
+        long[] visits = new long[machine.getStateCount()];
+        compiled.reset();
+        long start = System.nanoTime();
+        int finalState = compiled.run(trace, outputs, visits);
+        return new TraceReplay(machine, outputs, visits, finalState, System.nanoTime() - start);
+    }
+
+    /**
+     * @return the output word after each edge, bit i being output i of the simulator's table
+     */
+    public int[] getOutputs() {
+        return outputs.clone();
+    }
+
+    /**
+     * @param state id of a state
+     * @return the number of edges after which the machine was on the state
+     */
+    public long getVisits(int state) {
+        return visits[state];
+    }
+
+    public int getFinalState() {
+        return finalState;
+    }
+
+    public int getSteps() {
+        return outputs.length;
+    }
+
+    /**
+     * @return the visited state histogram and the speed of the replay, one state per line
+     */
+    public String report() {
+        String lineSeparator = System.lineSeparator();
+        StringBuilder builder = new StringBuilder();
+        builder.append(" Replayed ").append(outputs.length).append(" edges in ")
+                .append(String.format("%.3f", nanos / 1e6)).append(" ms");
+        if (nanos > 0) {
+            builder.append(String.format(" (%.1f M steps/s)", outputs.length * 1e3 / nanos));
+        }
+        builder.append(", ending on ").append(machine.getStateOfId(finalState))
+                .append(lineSeparator);
+        for (int state = 0; state < visits.length; state++) {
+            builder.append("    ").append(machine.getStateOfId(state)).append(": ")
+                    .append(visits[state]).append(lineSeparator);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "TraceReplay {" +
+                "steps=" + outputs.length +
+                ", finalState=" + finalState +
+                '}';
+    }
+}
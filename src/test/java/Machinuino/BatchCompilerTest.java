@@ -0,0 +1,106 @@
+package Machinuino;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchCompilerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File template;
+    private File nested;
+    private File faulty;
+
+    @Before
+    public void init() throws IOException {
+        template = folder.newFile("template.moore");
+        Files.copy(Paths.get("src/test/testCases/noErrors/template.moore"), template.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        folder.newFolder("sub");
+        nested = new File(folder.getRoot(), "sub/example1.moore");
+        Files.copy(Paths.get("doc/example1.moore"), nested.toPath());
+        faulty = new File(folder.getRoot(), "sub/duplicateOutput.moore");
+        Files.copy(Paths.get("src/test/testCases/semanticErrors/duplicateOutput.moore"),
+                faulty.toPath());
+        folder.newFile("notes.txt");
+    }
+
+    @Test
+    public void collectSourcesOfDirectory() throws IOException {
+        List<String> sources = BatchCompiler.collectSources(
+                Collections.singletonList(folder.getRoot().getPath()));
+        Assert.assertEquals(Arrays.asList(faulty.getPath(), nested.getPath(), template.getPath()),
+                sources);
+    }
+
+    @Test
+    public void collectSourcesOfGlob() throws IOException {
+        List<String> sources = BatchCompiler.collectSources(
+                Collections.singletonList(folder.getRoot().getPath() + "/sub/*.moore"));
+        Assert.assertEquals(Arrays.asList(faulty.getPath(), nested.getPath()), sources);
+    }
+
+    @Test
+    public void collectSourcesWithoutDuplicates() throws IOException {
+        List<String> sources = BatchCompiler.collectSources(Arrays.asList(template.getPath(),
+                folder.getRoot().getPath()));
+        Assert.assertEquals(Arrays.asList(template.getPath(), faulty.getPath(), nested.getPath()),
+                sources);
+    }
+
+    @Test
+    public void compileAllKeepsOrderAndWritesOutputs() throws IOException {
+        List<String> sources = BatchCompiler.collectSources(
+                Collections.singletonList(folder.getRoot().getPath()));
+        List<CompilationResult> results = new BatchCompiler(2).compileAll(sources);
+
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals(faulty.getPath(), results.get(0).getFile());
+        Assert.assertFalse(results.get(0).succeeded());
+        Assert.assertFalse(results.get(0).getFault().getErrors().isEmpty());
+        Assert.assertTrue(results.get(1).succeeded());
+        Assert.assertTrue(results.get(2).succeeded());
+        Assert.assertTrue(new File(folder.getRoot(), "template.ino").exists());
+        Assert.assertTrue(new File(folder.getRoot(), "sub/example1.gv").exists());
+        Assert.assertFalse(new File(folder.getRoot(), "sub/duplicateOutput.ino").exists());
+    }
+
+    @Test
+    public void unexpectedFailureOnlyFailsItsFile() {
+        MooreCompiler throwing = new MooreCompiler() {
+            @Override
+            CompilationResult compile(String file) {
+                if (file.equals(nested.getPath())) throw new NullPointerException("broken");
+                return super.compile(file);
+            }
+        };
+        List<CompilationResult> results = new BatchCompiler(2, throwing)
+                .compileAll(Arrays.asList(nested.getPath(), template.getPath()));
+
+        Assert.assertFalse(results.get(0).succeeded());
+        Assert.assertTrue(results.get(0).getReport().contains("broken"));
+        Assert.assertTrue(results.get(1).succeeded());
+        Assert.assertTrue(new File(folder.getRoot(), "template.ino").exists());
+    }
+
+    @Test
+    public void reportSummarizesFailures() {
+        CompilationResult failed = new MooreCompiler().compile("inexistent.moore");
+        String report = BatchCompiler.report(Collections.singletonList(failed), 0);
+        Assert.assertTrue(report.contains("0 succeeded, 1 failed."));
+        Assert.assertTrue(report.contains(" Failed: inexistent.moore"));
+    }
+}
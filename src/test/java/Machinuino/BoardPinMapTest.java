@@ -0,0 +1,94 @@
+package Machinuino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BoardPinMapTest {
+
+    @Test(expected = NullPointerException.class)
+    public void nullBoardShouldThrowException() {
+        BoardPinMap.forBoard(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownBoardShouldThrowException() {
+        BoardPinMap.forBoard("due");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pinNotOnBoardShouldThrowException() {
+        BoardPinMap.forBoard("uno").getPort(20);
+    }
+
+    @Test
+    public void everyBoardLoads() {
+        for (String board : BoardPinMap.BOARDS) {
+            BoardPinMap map = BoardPinMap.forBoard(board);
+            Assert.assertEquals(board, map.getBoard());
+            Assert.assertTrue(map.hasPin(13));
+        }
+    }
+
+    @Test
+    public void boardNameIsCaseInsensitive() {
+        Assert.assertEquals("uno", BoardPinMap.forBoard("UNO").getBoard());
+    }
+
+    @Test
+    public void unoPins() {
+        BoardPinMap uno = BoardPinMap.forBoard("uno");
+        Assert.assertEquals('D', uno.getPort(7));
+        Assert.assertEquals(7, uno.getBit(7));
+        Assert.assertEquals('B', uno.getPort(13));
+        Assert.assertEquals(0x20, uno.getMask(13));
+        Assert.assertEquals('C', uno.getPort(14));
+        Assert.assertEquals(0, uno.getBit(14));
+        Assert.assertFalse(uno.hasPin(20));
+    }
+
+    @Test
+    public void nanoPinsMatchUno() {
+        BoardPinMap uno = BoardPinMap.forBoard("uno");
+        BoardPinMap nano = BoardPinMap.forBoard("nano");
+        for (int pin = 0; pin < 20; pin++) {
+            Assert.assertEquals(uno.getPort(pin), nano.getPort(pin));
+            Assert.assertEquals(uno.getBit(pin), nano.getBit(pin));
+        }
+    }
+
+    @Test
+    public void megaPins() {
+        BoardPinMap mega = BoardPinMap.forBoard("mega");
+        Assert.assertEquals('E', mega.getPort(2));
+        Assert.assertEquals(4, mega.getBit(2));
+        Assert.assertEquals('B', mega.getPort(13));
+        Assert.assertEquals(7, mega.getBit(13));
+        Assert.assertEquals('L', mega.getPort(49));
+        Assert.assertEquals(0, mega.getBit(49));
+        Assert.assertEquals('K', mega.getPort(69));
+        Assert.assertEquals(7, mega.getBit(69));
+    }
+
+    @Test
+    public void interruptPins() {
+        BoardPinMap uno = BoardPinMap.forBoard("uno");
+        Assert.assertTrue(uno.hasExternalInterrupt(2));
+        Assert.assertTrue(uno.hasExternalInterrupt(3));
+        Assert.assertFalse(uno.hasExternalInterrupt(10));
+        Assert.assertEquals(0, uno.getPinChangeGroup(10));
+        Assert.assertEquals(0x04, uno.getPinChangeMask(10));
+        Assert.assertEquals(2, uno.getPinChangeGroup(7));
+        Assert.assertEquals(1, uno.getPinChangeGroup(14));
+
+        BoardPinMap mega = BoardPinMap.forBoard("mega");
+        Assert.assertTrue(mega.hasExternalInterrupt(21));
+        Assert.assertEquals(-1, mega.getPinChangeGroup(22));
+        Assert.assertEquals(2, mega.getPinChangeGroup(69));
+        Assert.assertEquals(0x80, mega.getPinChangeMask(69));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pinWithoutPinChangeShouldThrowException() {
+        BoardPinMap.forBoard("mega").getPinChangeMask(22);
+    }
+}
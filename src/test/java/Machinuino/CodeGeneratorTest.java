@@ -5,7 +5,11 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -68,84 +72,76 @@ public class CodeGeneratorTest {
 
     @Test(expected = NullPointerException.class)
     public void generateCodeNullMooreMachineShouldThrowException() {
-        CodeGenerator codeGenerator = CodeGenerator.getInstance();
+        CodeGenerator codeGenerator = new CodeGenerator();
         codeGenerator.generateCode(null);
     }
 
     @Test
     public void generateCode() {
-        CodeGenerator codeGenerator = CodeGenerator.getInstance();
+        CodeGenerator codeGenerator = new CodeGenerator();
         String lineSeparator = System.lineSeparator();
         Assert.assertEquals("/* Input */" + lineSeparator +
                 "const int clock = 10;" + lineSeparator +
                 "const int _switch = 12;" + lineSeparator +
                 "const int _button = 11;" + lineSeparator +
-                "" + lineSeparator +
+                lineSeparator +
                 "/* Output */" + lineSeparator +
                 "const int _motor = 5;" + lineSeparator +
                 "const int _led = 6;" + lineSeparator +
-                "" + lineSeparator +
+                lineSeparator +
                 "/* States */" + lineSeparator +
                 "const int __q1 = 0;" + lineSeparator +
                 "const int __q2 = 1;" + lineSeparator +
                 "const int __q0 = 2;" + lineSeparator +
-                "" + lineSeparator +
-                "bool isHigh(int pin) {" + lineSeparator +
-                "    return digitalRead(pin) == HIGH ? true : false;" + lineSeparator +
+                lineSeparator +
+                "unsigned int readInputs() {" + lineSeparator +
+                "    unsigned int inputs = 0;" + lineSeparator +
+                "    if (digitalRead(_switch) == HIGH) inputs |= 0x1u;" + lineSeparator +
+                "    if (digitalRead(_button) == HIGH) inputs |= 0x2u;" + lineSeparator +
+                "    return inputs;" + lineSeparator +
                 "}" + lineSeparator +
                 lineSeparator +
-                "int transition(int current) {" + lineSeparator +
+                "int transition(int current, unsigned int inputs) {" + lineSeparator +
                 "    switch(current) {" + lineSeparator +
                 "        case __q1:" + lineSeparator +
-                "            if (!isHigh(_switch) && isHigh(_button)) return __q0;" +
-                lineSeparator +
-                "            if (!isHigh(_button) && isHigh(_switch)) return __q0;" +
-                lineSeparator +
-                "            if (isHigh(_switch) && isHigh(_button)) return __q0;" +
-                lineSeparator +
-                "            if (!isHigh(_button) && !isHigh(_switch)) return __q2;" +
-                lineSeparator +
+                "            if ((inputs & 0x3u) == 0x2u) return __q0;" + lineSeparator +
+                "            if ((inputs & 0x3u) == 0x1u) return __q0;" + lineSeparator +
+                "            if ((inputs & 0x3u) == 0x3u) return __q0;" + lineSeparator +
+                "            if ((inputs & 0x3u) == 0x0u) return __q2;" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        case __q2:" + lineSeparator +
-                "            if (!isHigh(_switch) && isHigh(_button)) return __q1;" +
-                lineSeparator +
-                "            if (!isHigh(_button) && isHigh(_switch)) return __q2;" +
-                lineSeparator +
-                "            if (isHigh(_switch) && isHigh(_button)) return __q1;" +
-                lineSeparator +
-                "            if (!isHigh(_button) && !isHigh(_switch)) return __q2;" +
-                lineSeparator +
+                "            if ((inputs & 0x3u) == 0x2u) return __q1;" + lineSeparator +
+                "            if ((inputs & 0x3u) == 0x1u) return __q2;" + lineSeparator +
+                "            if ((inputs & 0x3u) == 0x3u) return __q1;" + lineSeparator +
+                "            if ((inputs & 0x3u) == 0x0u) return __q2;" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        case __q0:" + lineSeparator +
-                "            if (isHigh(_switch) && isHigh(_button)) return __q1;" +
-                lineSeparator +
-                "            if (!isHigh(_switch) && isHigh(_button)) return __q0;" +
-                lineSeparator +
-                "            if (!isHigh(_button) && isHigh(_switch)) return __q2;" +
-                lineSeparator +
-                "            if (!isHigh(_button) && !isHigh(_switch)) return __q1;" +
-                lineSeparator +
+                "            if ((inputs & 0x3u) == 0x3u) return __q1;" + lineSeparator +
+                "            if ((inputs & 0x3u) == 0x2u) return __q0;" + lineSeparator +
+                "            if ((inputs & 0x3u) == 0x1u) return __q2;" + lineSeparator +
+                "            if ((inputs & 0x3u) == 0x0u) return __q1;" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        default:" + lineSeparator +
                 "            // Not reachable" + lineSeparator +
                 "            exit(1);" + lineSeparator +
                 "            break;" + lineSeparator +
                 "    }" + lineSeparator +
+                "    return current;" + lineSeparator +
                 "}" + lineSeparator +
                 lineSeparator +
                 "void output(int current) {" + lineSeparator +
                 "    switch(current) {" + lineSeparator +
                 "        case __q1:" + lineSeparator +
-                "            digitalWrite(_led, LOW);" + lineSeparator +
                 "            digitalWrite(_motor, LOW);" + lineSeparator +
+                "            digitalWrite(_led, LOW);" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        case __q2:" + lineSeparator +
                 "            digitalWrite(_motor, HIGH);" + lineSeparator +
                 "            digitalWrite(_led, HIGH);" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        case __q0:" + lineSeparator +
-                "            digitalWrite(_led, LOW);" + lineSeparator +
                 "            digitalWrite(_motor, HIGH);" + lineSeparator +
+                "            digitalWrite(_led, LOW);" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        default:" + lineSeparator +
                 "            // Not reachable" + lineSeparator +
@@ -161,7 +157,7 @@ public class CodeGeneratorTest {
                 "    pinMode(clock, INPUT);" + lineSeparator +
                 "    pinMode(_switch, INPUT);" + lineSeparator +
                 "    pinMode(_button, INPUT);" + lineSeparator +
-                "" + lineSeparator +
+                lineSeparator +
                 "    /* Output */" + lineSeparator +
                 "    pinMode(_motor, OUTPUT);" + lineSeparator +
                 "    pinMode(_led, OUTPUT);" + lineSeparator +
@@ -173,8 +169,9 @@ public class CodeGeneratorTest {
                 lineSeparator +
                 "void loop() {" + lineSeparator +
                 "    while (digitalRead(clock) == LOW);" + lineSeparator +
+                "    unsigned int inputs = readInputs();" + lineSeparator +
                 lineSeparator +
-                "    currentState = transition(currentState);" + lineSeparator +
+                "    currentState = transition(currentState, inputs);" + lineSeparator +
                 "    output(currentState);" + lineSeparator +
                 lineSeparator +
                 "    while (digitalRead(clock) == HIGH);" + lineSeparator +
@@ -227,49 +224,52 @@ public class CodeGeneratorTest {
                 .collect(Collectors.toSet()));
 
         MooreMachine machine2 = builder.build();
-        CodeGenerator codeGenerator = CodeGenerator.getInstance();
+        CodeGenerator codeGenerator = new CodeGenerator();
         String lineSeparator = System.lineSeparator();
         Assert.assertEquals("/* Input */" + lineSeparator +
                 "const int clock = 4;" + lineSeparator +
                 "const int _input = 5;" + lineSeparator +
-                "" + lineSeparator +
+                lineSeparator +
                 "/* Output */" + lineSeparator +
                 "const int _led1 = 6;" + lineSeparator +
                 "const int _led2 = 7;" + lineSeparator +
-                "" + lineSeparator +
+                lineSeparator +
                 "/* States */" + lineSeparator +
                 "const int __q1 = 0;" + lineSeparator +
                 "const int __q2 = 1;" + lineSeparator +
                 "const int __q3 = 2;" + lineSeparator +
                 "const int __q0 = 3;" + lineSeparator +
-                "" + lineSeparator +
-                "bool isHigh(int pin) {" + lineSeparator +
-                "    return digitalRead(pin) == HIGH ? true : false;" + lineSeparator +
+                lineSeparator +
+                "unsigned int readInputs() {" + lineSeparator +
+                "    unsigned int inputs = 0;" + lineSeparator +
+                "    if (digitalRead(_input) == HIGH) inputs |= 0x1u;" + lineSeparator +
+                "    return inputs;" + lineSeparator +
                 "}" + lineSeparator +
                 lineSeparator +
-                "int transition(int current) {" + lineSeparator +
+                "int transition(int current, unsigned int inputs) {" + lineSeparator +
                 "    switch(current) {" + lineSeparator +
                 "        case __q1:" + lineSeparator +
-                "            if (!isHigh(_input)) return __q0;" + lineSeparator +
-                "            if (isHigh(_input)) return __q2;" + lineSeparator +
+                "            if ((inputs & 0x1u) == 0x0u) return __q0;" + lineSeparator +
+                "            if ((inputs & 0x1u) == 0x1u) return __q2;" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        case __q2:" + lineSeparator +
-                "            if (!isHigh(_input)) return __q1;" + lineSeparator +
-                "            if (isHigh(_input)) return __q3;" + lineSeparator +
+                "            if ((inputs & 0x1u) == 0x0u) return __q1;" + lineSeparator +
+                "            if ((inputs & 0x1u) == 0x1u) return __q3;" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        case __q3:" + lineSeparator +
-                "            if (isHigh(_input)) return __q0;" + lineSeparator +
-                "            if (!isHigh(_input)) return __q2;" + lineSeparator +
+                "            if ((inputs & 0x1u) == 0x1u) return __q0;" + lineSeparator +
+                "            if ((inputs & 0x1u) == 0x0u) return __q2;" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        case __q0:" + lineSeparator +
-                "            if (!isHigh(_input)) return __q3;" + lineSeparator +
-                "            if (isHigh(_input)) return __q1;" + lineSeparator +
+                "            if ((inputs & 0x1u) == 0x0u) return __q3;" + lineSeparator +
+                "            if ((inputs & 0x1u) == 0x1u) return __q1;" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        default:" + lineSeparator +
                 "            // Not reachable" + lineSeparator +
                 "            exit(1);" + lineSeparator +
                 "            break;" + lineSeparator +
                 "    }" + lineSeparator +
+                "    return current;" + lineSeparator +
                 "}" + lineSeparator +
                 lineSeparator +
                 "void output(int current) {" + lineSeparator +
@@ -279,8 +279,8 @@ public class CodeGeneratorTest {
                 "            digitalWrite(_led2, HIGH);" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        case __q2:" + lineSeparator +
-                "            digitalWrite(_led2, LOW);" + lineSeparator +
                 "            digitalWrite(_led1, HIGH);" + lineSeparator +
+                "            digitalWrite(_led2, LOW);" + lineSeparator +
                 "            break;" + lineSeparator +
                 "        case __q3:" + lineSeparator +
                 "            digitalWrite(_led1, HIGH);" + lineSeparator +
@@ -303,7 +303,7 @@ public class CodeGeneratorTest {
                 "    /* Input */" + lineSeparator +
                 "    pinMode(clock, INPUT);" + lineSeparator +
                 "    pinMode(_input, INPUT);" + lineSeparator +
-                "" + lineSeparator +
+                lineSeparator +
                 "    /* Output */" + lineSeparator +
                 "    pinMode(_led1, OUTPUT);" + lineSeparator +
                 "    pinMode(_led2, OUTPUT);" + lineSeparator +
@@ -315,11 +315,329 @@ public class CodeGeneratorTest {
                 lineSeparator +
                 "void loop() {" + lineSeparator +
                 "    while (digitalRead(clock) == LOW);" + lineSeparator +
+                "    unsigned int inputs = readInputs();" + lineSeparator +
                 lineSeparator +
-                "    currentState = transition(currentState);" + lineSeparator +
+                "    currentState = transition(currentState, inputs);" + lineSeparator +
                 "    output(currentState);" + lineSeparator +
                 lineSeparator +
                 "    while (digitalRead(clock) == HIGH);" + lineSeparator +
                 "}" + lineSeparator, codeGenerator.generateCode(machine2));
     }
+
+    private MooreMachine toggleMachine() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("Toggle");
+        builder.addState("off").addState("on").initialState("off");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("input", 3));
+        builder.addOutputPin(Pin.ofValue("led", 4));
+        BoolPin input = builder.getBoolPinOfValue(builder.getInputPinOfName("input"), true);
+        builder.addTransition(Transition.ofValue("off", "on",
+                Stream.of(input).collect(Collectors.toSet())));
+        builder.addTransition(Transition.ofValue("on", "off",
+                Stream.of(input).collect(Collectors.toSet())));
+        Pin led = builder.getOutputPinOfName("led");
+        builder.addOutput("off", Stream.of(builder.getBoolPinOfValue(led, false))
+                .collect(Collectors.toSet()));
+        builder.addOutput("on", Stream.of(builder.getBoolPinOfValue(led, true))
+                .collect(Collectors.toSet()));
+        return builder.build();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void builderNullBackendShouldThrowException() {
+        new CodeGenerator.Builder().backend(null);
+    }
+
+    @Test
+    public void builderDefaultBackendIsSwitch() {
+        Assert.assertEquals(CodeGenerator.Backend.SWITCH, new CodeGenerator().getBackend());
+        Assert.assertEquals(CodeGenerator.Backend.SWITCH,
+                new CodeGenerator.Builder().build().getBackend());
+    }
+
+    @Test
+    public void generateCodeTableBackend() {
+        CodeGenerator codeGenerator = new CodeGenerator.Builder()
+                .backend(CodeGenerator.Backend.TABLE).build();
+        String lineSeparator = System.lineSeparator();
+        Assert.assertEquals("/* Input */" + lineSeparator +
+                "const int clock = 2;" + lineSeparator +
+                "const int _input = 3;" + lineSeparator +
+                lineSeparator +
+                "/* Output */" + lineSeparator +
+                "const int _led = 4;" + lineSeparator +
+                lineSeparator +
+                "/* States */" + lineSeparator +
+                "const int __off = 0;" + lineSeparator +
+                "const int __on = 1;" + lineSeparator +
+                lineSeparator +
+                "/* Tables, 6 bytes of flash */" + lineSeparator +
+                "const int outputPins[1] = {_led};" + lineSeparator +
+                "const uint8_t nextState[2][2] PROGMEM = {" + lineSeparator +
+                "    {0, 1}," + lineSeparator +
+                "    {1, 0}," + lineSeparator +
+                "};" + lineSeparator +
+                "const uint8_t outputTable[2] PROGMEM = {0x0, 0x1};" + lineSeparator +
+                lineSeparator +
+                "unsigned int readInputs() {" + lineSeparator +
+                "    unsigned int inputs = 0;" + lineSeparator +
+                "    if (digitalRead(_input) == HIGH) inputs |= 0x1u;" + lineSeparator +
+                "    return inputs;" + lineSeparator +
+                "}" + lineSeparator +
+                lineSeparator +
+                "int transition(int current, unsigned int inputs) {" + lineSeparator +
+                "    return pgm_read_byte(&nextState[current][inputs]);" + lineSeparator +
+                "}" + lineSeparator +
+                lineSeparator +
+                "void output(int current) {" + lineSeparator +
+                "    uint8_t outputs = pgm_read_byte(&outputTable[current]);" + lineSeparator +
+                "    for (int i = 0; i < 1; i++) {" + lineSeparator +
+                "        digitalWrite(outputPins[i], (outputs >> i) & 1 ? HIGH : LOW);" +
+                lineSeparator +
+                "    }" + lineSeparator +
+                "}" + lineSeparator +
+                lineSeparator +
+                "int currentState;" + lineSeparator +
+                lineSeparator +
+                "void setup() {" + lineSeparator +
+                "    /* Input */" + lineSeparator +
+                "    pinMode(clock, INPUT);" + lineSeparator +
+                "    pinMode(_input, INPUT);" + lineSeparator +
+                lineSeparator +
+                "    /* Output */" + lineSeparator +
+                "    pinMode(_led, OUTPUT);" + lineSeparator +
+                lineSeparator +
+                "    /* Initial state */" + lineSeparator +
+                "    currentState = __off;" + lineSeparator +
+                "    output(__off);" + lineSeparator +
+                "}" + lineSeparator +
+                lineSeparator +
+                "void loop() {" + lineSeparator +
+                "    while (digitalRead(clock) == LOW);" + lineSeparator +
+                "    unsigned int inputs = readInputs();" + lineSeparator +
+                lineSeparator +
+                "    currentState = transition(currentState, inputs);" + lineSeparator +
+                "    output(currentState);" + lineSeparator +
+                lineSeparator +
+                "    while (digitalRead(clock) == HIGH);" + lineSeparator +
+                "}" + lineSeparator, codeGenerator.generateCode(toggleMachine()));
+    }
+
+    @Test
+    public void generateCodeTableBackendMatchesTemplateTransitions() {
+        CodeGenerator codeGenerator = new CodeGenerator.Builder()
+                .backend(CodeGenerator.Backend.TABLE).build();
+        String code = codeGenerator.generateCode(machine);
+        TransitionTable table = TransitionTable.ofMachine(machine);
+        for (int state = 0; state < table.getStateCount(); state++) {
+            for (int word = 0; word < table.getWordCount(); word++) {
+                Assert.assertNotEquals(TransitionTable.NO_TRANSITION, table.getNext(state, word));
+            }
+        }
+        Assert.assertTrue(code.contains("const uint8_t nextState[3][4] PROGMEM = {"));
+        Assert.assertTrue(code.contains("const uint8_t outputTable[3] PROGMEM = {"));
+    }
+
+    @Test
+    public void generateCodeClockGuards() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("Clocked");
+        builder.addState("q0").addState("q1").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("input", 3));
+        Pin clock = builder.getInputPinOfName("clock");
+        builder.addTransition(Transition.ofValue("q0", "q1",
+                Stream.of(builder.getBoolPinOfValue(clock, true)).collect(Collectors.toSet())));
+        builder.addTransition(Transition.ofValue("q1", "q0",
+                Stream.of(builder.getBoolPinOfValue(clock, false)).collect(Collectors.toSet())));
+        String code = new CodeGenerator().generateCode(builder.build());
+        String lineSeparator = System.lineSeparator();
+        Assert.assertTrue(code.contains("        case __q0:" + lineSeparator +
+                "            if ((inputs & 0x0u) == 0x0u) return __q1;" + lineSeparator +
+                "            break;" + lineSeparator +
+                "        case __q1:" + lineSeparator +
+                "            break;" + lineSeparator));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void builderNullBoardShouldThrowException() {
+        new CodeGenerator.Builder().board(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void generateCodePinNotOnBoardShouldThrowException() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("Off board");
+        builder.addState("q0").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addOutputPin(Pin.ofValue("led", 60));
+        new CodeGenerator.Builder().board(BoardPinMap.forBoard("uno")).build()
+                .generateCode(builder.build());
+    }
+
+    /**
+     * Outputs spread over three ports of the Mega, every state writes each port once with the
+     * mask and value of the pin map
+     */
+    @Test
+    public void generateCodePortMasksMatchPinMap() {
+        BoardPinMap mega = BoardPinMap.forBoard("mega");
+        int[] numbers = {2, 3, 5, 13, 22, 23};
+        MooreMachine.Builder builder = new MooreMachine.Builder("Ports");
+        builder.addState("q0").addState("q1").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 10)).addInputPin(Pin.ofValue("input", 11));
+        for (int number : numbers) builder.addOutputPin(Pin.ofValue("o" + number, number));
+        Set<BoolPin> even = Stream.of(2, 5, 22).map(number -> builder.getBoolPinOfValue(
+                builder.getOutputPinOfName("o" + number), true)).collect(Collectors.toSet());
+        builder.addOutput("q0", even);
+        builder.addOutput("q1", Stream.of(builder.getBoolPinOfValue(
+                builder.getOutputPinOfName("o13"), true)).collect(Collectors.toSet()));
+        MooreMachine ports = builder.build();
+
+        Map<Character, Integer> masks = new HashMap<>();
+        for (int number : numbers) masks.merge(mega.getPort(number), mega.getMask(number),
+                (first, second) -> first | second);
+
+        for (CodeGenerator.Backend backend : CodeGenerator.Backend.values()) {
+            String code = new CodeGenerator.Builder().backend(backend).board(mega).build()
+                    .generateCode(ports);
+            Matcher writes = Pattern.compile("PORT(\\w) = \\(PORT(\\w) & ~0x(\\p{XDigit}+)\\)")
+                    .matcher(code);
+            int count = 0;
+            while (writes.find()) {
+                char port = writes.group(1).charAt(0);
+                Assert.assertEquals(writes.group(1), writes.group(2));
+                Assert.assertEquals(masks.get(port).intValue(),
+                        Integer.parseInt(writes.group(3), 16));
+                count++;
+            }
+            Assert.assertEquals(backend == CodeGenerator.Backend.SWITCH ? 6 : 3, count);
+            Assert.assertTrue(code.contains("while (!(PINB & 0x10));"));
+            Assert.assertTrue(code.contains("if (portB & 0x20) inputs |= 0x1u;"));
+        }
+
+        String code = new CodeGenerator.Builder().board(mega).build().generateCode(ports);
+        int q0E = mega.getMask(2) | mega.getMask(5);
+        String lineSeparator = System.lineSeparator();
+        Assert.assertTrue(code.contains("        case __q0:" + lineSeparator +
+                "            PORTA = (PORTA & ~0x03) | 0x01;" + lineSeparator +
+                "            PORTB = (PORTB & ~0x80) | 0x00;" + lineSeparator +
+                "            PORTE = (PORTE & ~0x" + Integer.toHexString(masks.get('E')) +
+                ") | 0x" + Integer.toHexString(q0E) + ";" + lineSeparator));
+        Assert.assertTrue(code.contains("    DDRE |= 0x" +
+                Integer.toHexString(masks.get('E')) + ";"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void builderSleepWithPollingShouldThrowException() {
+        new CodeGenerator.Builder().sleep(true).build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void builderInterruptWithoutBoardShouldThrowException() {
+        new CodeGenerator.Builder().clockMode(CodeGenerator.ClockMode.INTERRUPT).build();
+    }
+
+    /**
+     * The clock is on pin 2 of the Uno, which has an external interrupt
+     */
+    @Test
+    public void generateCodeInterruptClock() {
+        String code = new CodeGenerator.Builder().clockMode(CodeGenerator.ClockMode.INTERRUPT)
+                .board(BoardPinMap.forBoard("uno")).build().generateCode(clockOnPin2());
+        String lineSeparator = System.lineSeparator();
+        Assert.assertTrue(code.contains("volatile unsigned int sampledInputs = 0;"));
+        Assert.assertTrue(code.contains("void onClock() {" + lineSeparator +
+                "    if (clockEdge) missedEdges++;" + lineSeparator +
+                "    sampledInputs = readInputs();" + lineSeparator +
+                "    clockEdge = true;" + lineSeparator +
+                "}" + lineSeparator));
+        Assert.assertTrue(code.contains(
+                "    attachInterrupt(digitalPinToInterrupt(clock), onClock, RISING);"));
+        Assert.assertTrue(code.contains("void loop() {" + lineSeparator +
+                "    noInterrupts();" + lineSeparator +
+                "    if (!clockEdge) {" + lineSeparator +
+                "        interrupts();" + lineSeparator +
+                "        return;" + lineSeparator +
+                "    }" + lineSeparator +
+                "    unsigned int inputs = sampledInputs;" + lineSeparator +
+                "    clockEdge = false;" + lineSeparator +
+                "    interrupts();" + lineSeparator));
+        Assert.assertFalse(code.contains("while ("));
+        Assert.assertFalse(code.contains("#include <avr/sleep.h>"));
+    }
+
+    @Test
+    public void generateCodeInterruptClockSleeps() {
+        String code = new CodeGenerator.Builder().clockMode(CodeGenerator.ClockMode.INTERRUPT)
+                .board(BoardPinMap.forBoard("uno")).sleep(true).build()
+                .generateCode(clockOnPin2());
+        Assert.assertTrue(code.startsWith("#include <avr/sleep.h>"));
+        Assert.assertTrue(code.contains("        sleep_cpu();"));
+    }
+
+    /**
+     * The clock is on pin 10 of the Uno, which only has a pin change interrupt
+     */
+    @Test
+    public void generateCodeInterruptClockPinChange() {
+        String code = new CodeGenerator.Builder().clockMode(CodeGenerator.ClockMode.INTERRUPT)
+                .board(BoardPinMap.forBoard("uno")).build().generateCode(machine);
+        String lineSeparator = System.lineSeparator();
+        Assert.assertTrue(code.contains("ISR(PCINT0_vect) {" + lineSeparator +
+                "    if (PINB & 0x04) onClock();" + lineSeparator +
+                "}" + lineSeparator));
+        Assert.assertTrue(code.contains("    PCMSK0 |= 0x04;" + lineSeparator +
+                "    PCICR |= 0x01;" + lineSeparator));
+        Assert.assertFalse(code.contains("attachInterrupt"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void generateCodeClockWithoutInterruptShouldThrowException() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("No interrupt");
+        builder.addState("q0").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 22)).addOutputPin(Pin.ofValue("led", 13));
+        new CodeGenerator.Builder().clockMode(CodeGenerator.ClockMode.INTERRUPT)
+                .board(BoardPinMap.forBoard("mega")).build().generateCode(builder.build());
+    }
+
+    private static MooreMachine clockOnPin2() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("Interrupted");
+        builder.addState("q0").addState("q1").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("button", 11))
+                .addOutputPin(Pin.ofValue("led", 13));
+        builder.addTransition(Transition.ofValue("q0", "q1", Stream.of(builder.getBoolPinOfValue(
+                builder.getInputPinOfName("button"), true)).collect(Collectors.toSet())));
+        builder.addTransition(Transition.ofValue("q1", "q0", Stream.of(builder.getBoolPinOfValue(
+                builder.getInputPinOfName("button"), false)).collect(Collectors.toSet())));
+        return builder.build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void generateCodeTooManyInputsShouldThrowException() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("Wide");
+        builder.addState("q0").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addOutputPin(Pin.ofValue("led", 1));
+        for (int i = 0; i <= CodeGenerator.MAX_INPUT_BITS; i++) {
+            builder.addInputPin(Pin.ofValue("i" + i, i + 3));
+        }
+        new CodeGenerator().generateCode(builder.build());
+    }
+
+    @Test
+    public void generateCodeFallingEdge() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("Clocked");
+        builder.addState("q0").addState("q1").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("input", 3));
+        Pin clock = builder.getInputPinOfName("clock");
+        builder.addTransition(Transition.ofValue("q0", "q1",
+                Stream.of(builder.getBoolPinOfValue(clock, true)).collect(Collectors.toSet())));
+        builder.addTransition(Transition.ofValue("q1", "q0",
+                Stream.of(builder.getBoolPinOfValue(clock, false)).collect(Collectors.toSet())));
+        String code = new CodeGenerator.Builder().edge(CodeGenerator.Edge.FALLING).build()
+                .generateCode(builder.build());
+        String lineSeparator = System.lineSeparator();
+        Assert.assertTrue(code.contains("        case __q0:" + lineSeparator +
+                "            break;" + lineSeparator +
+                "        case __q1:" + lineSeparator +
+                "            if ((inputs & 0x0u) == 0x0u) return __q0;" + lineSeparator +
+                "            break;" + lineSeparator));
+        Assert.assertTrue(code.contains("void loop() {" + lineSeparator +
+                "    while (digitalRead(clock) == HIGH);" + lineSeparator));
+    }
 }
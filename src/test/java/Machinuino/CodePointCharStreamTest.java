@@ -0,0 +1,140 @@
+package Machinuino;
+
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CodePointCharStreamTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static CodePointCharStream utf8(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) bytes[i] = (byte) values[i];
+        return CodePointCharStream.fromBytes("bytes", ByteBuffer.wrap(bytes),
+                StandardCharsets.UTF_8);
+    }
+
+    private static List<String> tokensOf(CodePointCharStream input) {
+        return new MachinuinoLexer(input).getAllTokens().stream()
+                .map(Token::getText).collect(Collectors.toList());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void fromNullFileShouldThrowException() throws IOException {
+        CodePointCharStream.fromFile(null);
+    }
+
+    @Test(expected = IOException.class)
+    public void fromMissingFileShouldThrowException() throws IOException {
+        CodePointCharStream.fromFile(folder.getRoot().toPath().resolve("missing.moore"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void consumeEofShouldThrowException() {
+        CodePointCharStream input = CodePointCharStream.fromString("s", "a");
+        input.consume();
+        input.consume();
+    }
+
+    @Test
+    public void asciiFileIsLexedFromItsBytes() throws IOException {
+        Path file = folder.newFile("t.moore").toPath();
+        String source = new String(Files.readAllBytes(
+                Paths.get("src/test/testCases/noErrors/template.moore")), StandardCharsets.UTF_8);
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+
+        CodePointCharStream input = CodePointCharStream.fromFile(file);
+        Assert.assertTrue(input.isByteBacked());
+        Assert.assertEquals(file.toString(), input.getSourceName());
+        Assert.assertEquals(source.length(), input.size());
+        Assert.assertEquals(source, input.toString());
+        Assert.assertEquals(tokensOf(CodePointCharStream.fromString("s", source)),
+                tokensOf(input));
+    }
+
+    @Test
+    public void byteOrderMarkIsSkipped() {
+        CodePointCharStream input = utf8(0xEF, 0xBB, 0xBF, 'a', 'b');
+        Assert.assertEquals(2, input.size());
+        Assert.assertEquals("ab", input.toString());
+    }
+
+    @Test
+    public void codePointOutOfBasicPlaneIsOneSymbol() {
+        String source = "ab😀c";
+        CodePointCharStream input = CodePointCharStream.fromBytes("s",
+                ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        Assert.assertFalse(input.isByteBacked());
+        Assert.assertEquals(4, input.size());
+        Assert.assertEquals(0xFFFD, input.LA(3));
+        Assert.assertEquals("😀c", input.getText(Interval.of(2, 3)));
+    }
+
+    @Test
+    public void malformedBytesAreReplaced() {
+        CodePointCharStream input = utf8('a', 0xC3, 'b', 0xE0, 0x80, 0x80, 0xFF);
+        Assert.assertEquals("a�b����", input.toString());
+    }
+
+    @Test
+    public void latin1BytesAreCodePoints() {
+        CodePointCharStream input = CodePointCharStream.fromBytes("s",
+                ByteBuffer.wrap(new byte[]{'a', (byte) 0xE9}), StandardCharsets.ISO_8859_1);
+        Assert.assertTrue(input.isByteBacked());
+        Assert.assertEquals("aé", input.toString());
+    }
+
+    @Test
+    public void otherCharsetsAreDecoded() {
+        CodePointCharStream input = CodePointCharStream.fromBytes("s",
+                ByteBuffer.wrap("qé".getBytes(StandardCharsets.UTF_16)),
+                StandardCharsets.UTF_16);
+        Assert.assertEquals("qé", input.toString());
+    }
+
+    @Test
+    public void streamIsReadToItsEnd() throws IOException {
+        CodePointCharStream input = CodePointCharStream.fromStream("stdin",
+                new ByteArrayInputStream("moore M1".getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8);
+        Assert.assertEquals("stdin", input.getSourceName());
+        Assert.assertEquals("moore M1", input.toString());
+    }
+
+    @Test
+    public void lookAheadAndSeek() {
+        CodePointCharStream input = CodePointCharStream.fromString("s", "abc");
+        Assert.assertEquals('a', input.LA(1));
+        Assert.assertEquals(IntStream.EOF, input.LA(-1));
+        input.seek(2);
+        Assert.assertEquals('b', input.LA(-1));
+        Assert.assertEquals('c', input.LA(1));
+        Assert.assertEquals(IntStream.EOF, input.LA(2));
+        input.seek(10);
+        Assert.assertEquals(3, input.index());
+        Assert.assertEquals("", input.getText(Interval.of(2, 1)));
+    }
+
+    @Test
+    public void lexicalErrorShowsTheWholeCodePoint() {
+        Assert.assertEquals("1: Lexical Error: 😀 - invalid symbol" +
+                        System.lineSeparator(),
+                SyntacticAnalyzer.analyze(CompilationUnit.fromString("s", "moore 😀")));
+    }
+}
@@ -0,0 +1,111 @@
+package Machinuino;
+
+import Machinuino.model.BoolPin;
+import Machinuino.model.Fault;
+import Machinuino.model.Guard;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CoverageAnalyzerTest {
+
+    private MooreMachine.Builder builder;
+    private BoolPin a;
+    private BoolPin notA;
+    private BoolPin b;
+
+    private static Set<BoolPin> setOf(BoolPin... boolPins) {
+        return Stream.of(boolPins).collect(Collectors.toSet());
+    }
+
+    @Before
+    public void setupBuilder() {
+        builder = new MooreMachine.Builder("M1");
+        builder.addState("q0").addState("q1").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("a", 3))
+                .addInputPin(Pin.ofValue("b", 4));
+        a = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), true);
+        notA = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), false);
+        b = builder.getBoolPinOfValue(builder.getInputPinOfName("b"), true);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void uncoveredInputsNullMachineShouldThrowException() {
+        new CoverageAnalyzer().uncoveredInputs(null, 0, true);
+    }
+
+    @Test
+    public void completeStateHasNoUncoveredInputs() {
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(a)))
+                .addTransition(Transition.ofValue("q0", "q0", setOf(notA)));
+        MooreMachine machine = builder.build();
+        Assert.assertTrue(new CoverageAnalyzer()
+                .uncoveredInputs(machine, machine.getStateId("q0"), true).isEmpty());
+    }
+
+    @Test
+    public void stateWithoutTransitionsMissesAnyInput() {
+        MooreMachine machine = builder.build();
+        Fault fault = Fault.getInstance();
+        new CoverageAnalyzer().reportUncoveredInputs(machine, fault, true);
+        Assert.assertEquals("State q0 has no transition on any input. Will stay on q0." +
+                System.lineSeparator() +
+                "State q1 has no transition on any input. Will stay on q1." +
+                System.lineSeparator(), fault.getWarnings());
+    }
+
+    @Test
+    public void uncoveredInputsAreReported() {
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(a, b)))
+                .addTransition(Transition.ofValue("q1", "q0", setOf()));
+        Fault fault = Fault.getInstance();
+        new CoverageAnalyzer().reportUncoveredInputs(builder.build(), fault, true);
+        Assert.assertEquals("State q0 has no transition on !a, a & !b. Will stay on q0." +
+                System.lineSeparator(), fault.getWarnings());
+    }
+
+    /**
+     * A transition on the low clock is never taken when sampling on the rising edge
+     */
+    @Test
+    public void clockLevelIsTakenIntoAccount() {
+        BoolPin notClock = builder.getBoolPinOfValue(builder.getInputPinOfName("clock"), false);
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(notClock)));
+        MooreMachine machine = builder.build();
+        int q0 = machine.getStateId("q0");
+        CoverageAnalyzer analyzer = new CoverageAnalyzer();
+        Assert.assertEquals(1, analyzer.uncoveredInputs(machine, q0, true).size());
+        Assert.assertTrue(analyzer.uncoveredInputs(machine, q0, false).isEmpty());
+    }
+
+    /**
+     * 40 pins, far too many to enumerate, each transition tests a single pin high
+     */
+    @Test
+    public void widePinsAreNotEnumerated() {
+        MooreMachine.Builder wide = new MooreMachine.Builder("Wide");
+        wide.addState("q0").initialState("q0").addInputPin(Pin.ofValue("clock", 1));
+        int pins = 40;
+        for (int i = 0; i < pins; i++) {
+            wide.addInputPin(Pin.ofValue("p" + i, i + 2));
+            wide.addTransition(Transition.ofValue("q0", "q0", setOf(wide.getBoolPinOfValue(
+                    wide.getInputPinOfName("p" + i), true))));
+        }
+        MooreMachine machine = wide.build();
+        List<Guard> uncovered = new CoverageAnalyzer().uncoveredInputs(machine, 0, true);
+        Assert.assertEquals(1, uncovered.size());
+        for (int i = 0; i < pins; i++) {
+            int id = machine.getInputPinId(Pin.ofValue("p" + i, i + 2));
+            Assert.assertTrue(uncovered.get(0).tests(id));
+            Assert.assertFalse(uncovered.get(0).requiresHigh(id));
+        }
+    }
+}
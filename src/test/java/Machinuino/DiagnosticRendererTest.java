@@ -0,0 +1,87 @@
+package Machinuino;
+
+import Machinuino.model.Diagnostic;
+import Machinuino.model.Fault;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DiagnosticRendererTest {
+
+    @Test(expected = NullPointerException.class)
+    public void nullFaultShouldThrowException() {
+        DiagnosticRenderer.toJson("a.moore", null);
+    }
+
+    @Test
+    public void emptyJson() {
+        Assert.assertEquals("{\"source\":\"a.moore\",\"diagnostics\":[]}",
+                DiagnosticRenderer.toJson("a.moore", Fault.getInstance()));
+    }
+
+    @Test
+    public void json() {
+        Fault fault = Fault.getInstance();
+        fault.addErrorSyntactic("q1", 6, 25);
+        fault.add(Diagnostic.of(Diagnostic.Code.EMPTY_SECTION, Diagnostic.Severity.WARNING, 2,
+                Diagnostic.NO_POSITION, "States"));
+        Assert.assertEquals("{\"source\":\"a.moore\",\"diagnostics\":[" +
+                "{\"code\":\"SYNTACTIC\",\"severity\":\"error\",\"line\":6,\"column\":25," +
+                "\"startIndex\":-1,\"stopIndex\":-1," +
+                "\"message\":\"Syntactic error next to 'q1'\",\"args\":[\"q1\"]}," +
+                "{\"code\":\"EMPTY_SECTION\",\"severity\":\"warning\",\"line\":2,\"column\":0," +
+                "\"startIndex\":-1,\"stopIndex\":-1," +
+                "\"message\":\"Empty \\\"States\\\" section\",\"args\":[\"States\"]}]}",
+                DiagnosticRenderer.toJson("a.moore", fault));
+    }
+
+    @Test
+    public void jsonStringsAreEscaped() {
+        Fault fault = Fault.getInstance();
+        fault.addError("a\\b\t\u0001\n");
+        Assert.assertEquals("{\"source\":\"dir\\\\a.moore\",\"diagnostics\":[" +
+                "{\"code\":\"MESSAGE\",\"severity\":\"error\",\"line\":0,\"column\":0," +
+                "\"startIndex\":-1,\"stopIndex\":-1,\"message\":\"a\\\\b\\t\\u0001\\n\"," +
+                "\"args\":[\"a\\\\b\\t\\u0001\\n\"]}]}",
+                DiagnosticRenderer.toJson("dir\\a.moore", fault));
+    }
+
+    /**
+     * The region of a diagnostic on a token covers its characters
+     */
+    @Test
+    public void sarifRegionOfToken() {
+        Fault fault = Fault.getInstance();
+        fault.add(Diagnostic.at(Diagnostic.Code.UNDECLARED_STATE, Diagnostic.Severity.ERROR, 17,
+                13, 301, 302, "q3"));
+        Assert.assertTrue(DiagnosticRenderer.toSarif(Collections.singletonMap("a.moore", fault))
+                .contains("\"region\":{\"startLine\":17,\"startColumn\":13,\"charOffset\":301," +
+                        "\"charLength\":2}"));
+    }
+
+    @Test
+    public void sarif() {
+        Fault first = Fault.getInstance();
+        first.add(Diagnostic.of(Diagnostic.Code.UNDECLARED_STATE, Diagnostic.Severity.ERROR, 3,
+                Diagnostic.NO_POSITION, "q9"));
+        Fault second = Fault.getInstance();
+        second.addErrorTooMany(1);
+        Map<String, Fault> faults = new LinkedHashMap<>();
+        faults.put("a.moore", first);
+        faults.put("b.moore", second);
+        Assert.assertEquals("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\"," +
+                "\"version\":\"2.1.0\",\"runs\":[{\"tool\":{\"driver\":{\"name\":\"Machinuino\"," +
+                "\"rules\":[{\"id\":\"TOO_MANY_ERRORS\"},{\"id\":\"UNDECLARED_STATE\"}]}}," +
+                "\"results\":[{\"ruleId\":\"UNDECLARED_STATE\",\"level\":\"error\"," +
+                "\"message\":{\"text\":\"State q9 undeclared.\"},\"locations\":[{" +
+                "\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"a.moore\"}," +
+                "\"region\":{\"startLine\":3}}}]}," +
+                "{\"ruleId\":\"TOO_MANY_ERRORS\",\"level\":\"error\"," +
+                "\"message\":{\"text\":\"Too many errors, stopped after 1.\"},\"locations\":[{" +
+                "\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"b.moore\"}}}]}]}]}",
+                DiagnosticRenderer.toSarif(faults));
+    }
+}
@@ -0,0 +1,33 @@
+package Machinuino;
+
+import Machinuino.model.BoolPin;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class DotGeneratorTest {
+
+    /**
+     * A state without output is drawn with its bare name instead of failing the graph
+     */
+    @Test
+    public void generateImageStateWithoutOutput() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("M1");
+        builder.addState("q0").addState("q1").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 10)).addInputPin(Pin.ofValue("button", 11))
+                .addOutputPin(Pin.ofValue("led", 13));
+        BoolPin button = builder.getBoolPinOfValue(builder.getInputPinOfName("button"), true);
+        BoolPin led = builder.getBoolPinOfValue(builder.getOutputPinOfName("led"), true);
+        builder.addTransition(Transition.ofValue("q0", "q1",
+                Stream.of(button).collect(Collectors.toSet())));
+        builder.addOutput("q0", Stream.of(led).collect(Collectors.toSet()));
+
+        String graph = new DotGenerator().generateImage(builder.build());
+        Assert.assertTrue(graph.contains("    \"q0 \\\\ \\nled\" -> \"q1\"[ label = \"button\"]"));
+    }
+}
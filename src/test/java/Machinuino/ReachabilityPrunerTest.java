@@ -0,0 +1,137 @@
+package Machinuino;
+
+import Machinuino.model.BoolPin;
+import Machinuino.model.Fault;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+import Machinuino.model.TransitionTable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ReachabilityPrunerTest {
+
+    private MooreMachine.Builder builder;
+    private BoolPin a;
+
+    @Before
+    public void setupBuilder() {
+        builder = new MooreMachine.Builder("M1");
+        builder.addState("q0").addState("q1").addState("q2").addState("q3").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("a", 3));
+        builder.addOutputPin(Pin.ofValue("x", 5));
+        a = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), true);
+        builder.addTransition(Transition.ofValue("q0", "q1", Collections.singleton(a)))
+                .addTransition(Transition.ofValue("q1", "q0", Collections.singleton(a)))
+                .addTransition(Transition.ofValue("q3", "q2", Collections.singleton(a)));
+        builder.addOutput("q3", Collections.singleton(
+                builder.getBoolPinOfValue(builder.getOutputPinOfName("x"), true)));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void pruneNullMachineShouldThrowException() {
+        new ReachabilityPruner().prune(null, Fault.getInstance());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void pruneNullFaultShouldThrowException() {
+        new ReachabilityPruner().prune(builder.build(), null);
+    }
+
+    @Test
+    public void reachableStates() {
+        MooreMachine machine = builder.build();
+        BitSet expected = new BitSet();
+        expected.set(machine.getStateId("q0"));
+        expected.set(machine.getStateId("q1"));
+        Assert.assertEquals(expected, new ReachabilityPruner().reachableStates(machine));
+    }
+
+    /**
+     * An empty states section only warns, leaving a machine without initial state
+     */
+    @Test
+    public void machineWithoutStatesIsKept() {
+        MooreMachine.Builder empty = new MooreMachine.Builder("Empty");
+        empty.addInputPin(Pin.ofValue("clock", 2));
+        MooreMachine machine = empty.build();
+        Fault fault = Fault.getInstance();
+
+        Assert.assertTrue(new ReachabilityPruner().reachableStates(machine).isEmpty());
+        Assert.assertSame(machine, new ReachabilityPruner().prune(machine, fault));
+        Assert.assertEquals("", fault.getWarnings());
+    }
+
+    @Test
+    public void unreachableStatesAreRemoved() {
+        Fault fault = Fault.getInstance();
+        MooreMachine pruned = new ReachabilityPruner().prune(builder.build(), fault);
+        Assert.assertEquals(Stream.of("q0", "q1").collect(Collectors.toSet()),
+                pruned.getStates().collect(Collectors.toSet()));
+        Assert.assertEquals(2, pruned.getTransitions().count());
+        Assert.assertEquals(0, pruned.getOutputs().count());
+        Assert.assertEquals("States q2, q3 unreachable from the initial state. Will be removed." +
+                System.lineSeparator(), fault.getWarnings());
+    }
+
+    @Test
+    public void reachableMachineIsReturned() {
+        builder.removeTransition(Transition.ofValue("q3", "q2", Collections.singleton(a)))
+                .removeOutput("q3").removeState("q2").removeState("q3");
+        MooreMachine machine = builder.build();
+        Fault fault = Fault.getInstance();
+        Assert.assertSame(machine, new ReachabilityPruner().prune(machine, fault));
+        Assert.assertTrue(fault.getWarnings().isEmpty());
+    }
+
+    /**
+     * Overlapping guards to different states are decided by the order of the transitions, which
+     * rebuilding the machine with fewer transitions must keep
+     */
+    @Test
+    public void pruneKeepsTheTransitionTaken() {
+        MooreMachine.Builder overlapping = new MooreMachine.Builder("Overlapping");
+        for (int i = 0; i < 5; i++) overlapping.addState("s" + i);
+        for (int i = 0; i < 29; i++) overlapping.addState("d" + i);
+        overlapping.initialState("s0");
+        overlapping.addInputPin(Pin.ofValue("clock", 2));
+        BoolPin[] guards = new BoolPin[3];
+        for (int i = 0; i < guards.length; i++) {
+            Pin pin = Pin.ofValue("i" + i, 3 + i);
+            overlapping.addInputPin(pin);
+            guards[i] = overlapping.getBoolPinOfValue(pin, true);
+        }
+        for (int i = 0; i < 5; i++) {
+            for (int guard = 0; guard < guards.length; guard++) {
+                overlapping.addTransition(Transition.ofValue("s" + i, "s" + (i + guard + 1) % 5,
+                        Collections.singleton(guards[guard])));
+            }
+        }
+        for (int i = 0; i < 29; i++) {
+            for (int guard = 0; guard < guards.length; guard++) {
+                overlapping.addTransition(Transition.ofValue("d" + i, "s" + (i + guard) % 5,
+                        Collections.singleton(guards[guard])));
+            }
+        }
+        MooreMachine machine = overlapping.build();
+        MooreMachine pruned = new ReachabilityPruner().prune(machine, Fault.getInstance());
+
+        Assert.assertEquals(5, pruned.getStateCount());
+        TransitionTable before = TransitionTable.ofMachine(machine);
+        TransitionTable after = TransitionTable.ofMachine(pruned);
+        for (int state = 0; state < pruned.getStateCount(); state++) {
+            String name = pruned.getStateOfId(state);
+            for (int word = 0; word < after.getWordCount(); word++) {
+                Assert.assertEquals(name + " on " + word,
+                        machine.getStateOfId(before.getNextOrStay(machine.getStateId(name), word)),
+                        pruned.getStateOfId(after.getNextOrStay(state, word)));
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package Machinuino;
+
+import Machinuino.model.Fault;
+import Machinuino.model.MooreMachine;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SemanticAnalyzerPoolTest {
+
+    private static final int MACHINES = 2000;
+    private static final int THREADS = 8;
+
+    /**
+     * A small machine whose shape, pin numbers and transitions depend on {@code seed}, so every
+     * seed yields a distinct machine. Some seeds reuse a pin number, which is an error
+     */
+    private static String machineSource(int seed) {
+        int states = 2 + seed % 5;
+        int inputs = 1 + seed % 3;
+        int clock = 2 + seed % 14;
+        StringBuilder source = new StringBuilder();
+        source.append("moore M").append(seed).append(" {\n    states { ");
+        for (int s = 0; s < states; s++) source.append(s == 0 ? "" : ", ").append("q").append(s);
+        source.append(" }\n    input {\n        pins { clock: ").append(clock);
+        for (int p = 0; p < inputs; p++) {
+            int number = seed % 7 == 0 && p == 0 ? clock : 14 + p;
+            source.append(", in").append(p).append(": ").append(number);
+        }
+        source.append(" }\n        transition {\n");
+        for (int s = 0; s < states; s++) {
+            source.append("            q").append(s).append(" { in0 -> q")
+                    .append((s + seed) % states).append(", !in0 -> q")
+                    .append((s + 1) % states).append(" }\n");
+        }
+        source.append("        }\n    }\n    output {\n        pins { led: 40, motor: 41 }\n")
+                .append("        function {\n");
+        for (int s = 0; s < states; s++) {
+            source.append("            q").append(s).append(" { ")
+                    .append((seed >> s) % 2 == 0 ? "led" : "!led").append(", motor }\n");
+        }
+        source.append("        }\n    }\n}\n");
+        return source.toString();
+    }
+
+    private static String analyze(SemanticAnalyzer analyzer, int seed) {
+        CompilationUnit unit = CompilationUnit.fromString("M" + seed, machineSource(seed));
+        Fault fault = analyzer.analyze(unit);
+        String result = fault.getErrors() + "|" + fault.getWarnings();
+        if (fault.getErrors().isEmpty()) {
+            MooreMachine machine = analyzer.buildMachine();
+            result += "|" + machine.hashCode() + "|" + machine;
+        }
+        return result;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeMaxIdleShouldThrowException() {
+        new SemanticAnalyzerPool(-1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void releaseNullShouldThrowException() {
+        new SemanticAnalyzerPool().release(null);
+    }
+
+    @Test
+    public void releasedAnalyzerIsReused() {
+        SemanticAnalyzerPool pool = new SemanticAnalyzerPool(1);
+        SemanticAnalyzer analyzer = pool.acquire();
+        pool.release(analyzer);
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertSame(analyzer, pool.acquire());
+        Assert.assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void poolKeepsAtMostMaxIdle() {
+        SemanticAnalyzerPool pool = new SemanticAnalyzerPool(1);
+        SemanticAnalyzer first = pool.acquire();
+        SemanticAnalyzer second = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releasedAnalyzerForgetsMachine() {
+        SemanticAnalyzerPool pool = new SemanticAnalyzerPool();
+        SemanticAnalyzer analyzer = pool.acquire();
+        analyzer.analyze(CompilationUnit.fromString("M1", machineSource(1)));
+        pool.release(analyzer);
+        analyzer.buildMachine();
+    }
+
+    @Test
+    public void reusedAnalyzerDoesNotInheritPinNumbers() {
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        // Machine 12 uses pin 14 as clock, machine 1 uses it as an input pin
+        analyze(analyzer, 12);
+        Assert.assertTrue(analyze(analyzer, 1).startsWith("|"));
+        Assert.assertEquals("4:31: Pin Number 9 already used." + System.lineSeparator() + "|",
+                analyze(analyzer, 7));
+    }
+
+    @Test
+    public void concurrentAnalysisMatchesSerialAnalysis() throws Exception {
+        List<String> serial = new ArrayList<>();
+        for (int seed = 0; seed < MACHINES; seed++) {
+            serial.add(analyze(new SemanticAnalyzer(), seed));
+        }
+
+        SemanticAnalyzerPool pool = new SemanticAnalyzerPool(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int seed = 0; seed < MACHINES; seed++) {
+                final int machine = seed;
+                futures.add(executor.submit(() -> {
+                    SemanticAnalyzer analyzer = pool.acquire();
+                    try {
+                        return analyze(analyzer, machine);
+                    } finally {
+                        pool.release(analyzer);
+                    }
+                }));
+            }
+
+            for (int seed = 0; seed < MACHINES; seed++) {
+                Assert.assertEquals("Machine " + seed, serial.get(seed), futures.get(seed).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertTrue(pool.getIdleCount() <= THREADS);
+    }
+}
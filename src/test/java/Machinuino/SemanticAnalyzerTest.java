@@ -1,21 +1,26 @@
 package Machinuino;
 
+import Machinuino.model.Diagnostic;
 import Machinuino.model.Fault;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 public class SemanticAnalyzerTest {
     private SemanticAnalyzer semanticAnalyzer;
     private static final String LS = System.lineSeparator();
 
     private String pathSemanticErrors = "src/test/testCases/semanticErrors/";
+    private String pathNoErrors = "src/test/testCases/noErrors/";
 
     @Before
     public void init() {
-        semanticAnalyzer = SemanticAnalyzer.getInstance();
+        semanticAnalyzer = new SemanticAnalyzer();
     }
 
     private void compareExpectedFaults(String file, String errorsExpected,
@@ -37,114 +42,142 @@ public class SemanticAnalyzerTest {
     @Test
     public void emptyStates() {
         String file = pathSemanticErrors + "emptyStates.moore";
-        compareExpectedFaults(file, "", "2: Empty \"state\" section" + LS +
-                "5: Empty \"Input Pins\" section" + LS +
-                "9: Empty \"Transition\" section" + LS +
-                "13: Empty \"Output pins\" section" + LS);
+        compareExpectedFaults(file, "", "2:5: Empty \"state\" section" + LS +
+                "5:9: Empty \"Input Pins\" section" + LS +
+                "9:9: Empty \"Transition\" section" + LS +
+                "13:9: Empty \"Output pins\" section" + LS);
     }
 
     @Test
     public void duplicateState() {
         String file = pathSemanticErrors + "duplicateState.moore";
-        compareExpectedFaults(file, "", "3: Symbol q0 already used. Will be ignored." + LS);
+        compareExpectedFaults(file, "", "4:17: Symbol q0 already used. Will be ignored." + LS);
     }
 
     @Test
     public void duplicateInputPin() {
         String file = pathSemanticErrors + "duplicateInputPin.moore";
-        compareExpectedFaults(file, "9: Duplicate pin switch." + LS, "");
+        compareExpectedFaults(file, "13:13: Duplicate pin switch." + LS, "");
     }
 
     @Test
     public void emptyTransition() {
         String file = pathSemanticErrors + "emptyTransition.moore";
-        compareExpectedFaults(file, "", "11: Empty \"Transition\" section" + LS +
-                "15: Empty \"Output pins\" section" + LS);
+        compareExpectedFaults(file, "", "11:9: Empty \"Transition\" section" + LS +
+                "15:9: Empty \"Output pins\" section" + LS);
     }
 
     @Test
     public void undeclaredActualState() {
         String file = pathSemanticErrors + "undeclaredActualState.moore";
-        compareExpectedFaults(file, "16: State q3 undeclared." + LS, "");
+        compareExpectedFaults(file, "17:13: State q3 undeclared." + LS, "");
     }
 
     @Test
     public void undeclaredTargetState() {
         String file = pathSemanticErrors + "undeclaredTargetState.moore";
-        compareExpectedFaults(file, "20: State q3 undeclared." + LS, "");
+        compareExpectedFaults(file, "20:38: State q3 undeclared." + LS, "");
     }
 
     @Test
     public void undeclaredInputPin() {
         String file = pathSemanticErrors + "undeclaredInputPin.moore";
-        compareExpectedFaults(file, "20: Input Pin errrrr undeclared." + LS, "");
+        compareExpectedFaults(file, "20:27: Input Pin errrrr undeclared." + LS, "");
     }
 
     @Test
     public void emptyOutputPins() {
         String file = pathSemanticErrors + "emptyOutputPins.moore";
-        compareExpectedFaults(file, "", "41: Empty \"Output pins\" section" + LS);
+        compareExpectedFaults(file, "", "41:9: Empty \"Output pins\" section" + LS);
     }
 
     @Test
     public void undeclaredOutputPin() {
         String file = pathSemanticErrors + "undeclaredOutputPin.moore";
-        compareExpectedFaults(file, "49: Output Pin wrongPin undeclared." + LS, "");
+        compareExpectedFaults(file, "49:17: Output Pin wrongPin undeclared." + LS, "");
     }
 
     @Test
     public void undeclaredFunctionState() {
         String file = pathSemanticErrors + "undeclaredFunctionState.moore";
-        compareExpectedFaults(file, "47: State q3 undeclared." + LS, "");
+        compareExpectedFaults(file, "48:13: State q3 undeclared." + LS, "");
     }
 
     @Test
     public void emptyTransBlock() {
         String file = pathSemanticErrors + "emptyTransBlock.moore";
-        compareExpectedFaults(file, "", "11: Empty \"Transition block of a1\" section" + LS +
-                "11: Empty \"Transition block of a2\" section" + LS);
+        compareExpectedFaults(file, "", "12:13: Empty \"Transition block of a1\" section" + LS +
+                "14:13: Empty \"Transition block of a2\" section" + LS);
     }
 
     @Test
     public void emptyInputPins() {
         String file = pathSemanticErrors + "emptyInputPins.moore";
-        compareExpectedFaults(file, "", "9: Empty \"Input Pins\" section" + LS +
-                "14: Empty \"Transition\" section" + LS);
+        compareExpectedFaults(file, "", "9:9: Empty \"Input Pins\" section" + LS +
+                "14:9: Empty \"Transition\" section" + LS);
     }
 
     @Test
     public void duplicateOutputPin() {
         String file = pathSemanticErrors + "duplicateOutputPin.moore";
-        compareExpectedFaults(file, "41: Duplicate pin motor." + LS, "");
+        compareExpectedFaults(file, "43:13: Duplicate pin motor." + LS, "");
     }
 
     @Test
     public void duplicatePinNumber() {
         String file = pathSemanticErrors + "duplicatePinNumber.moore";
-        compareExpectedFaults(file, "9: Pin Number 10 already used." + LS, "");
+        compareExpectedFaults(file, "11:21: Pin Number 10 already used." + LS, "");
     }
 
     @Test
     public void duplicatePinNumber2() {
         String file = pathSemanticErrors + "duplicatePinNumber2.moore";
-        compareExpectedFaults(file, "41: Pin Number 10 already used." + LS, "");
+        compareExpectedFaults(file, "42:20: Pin Number 10 already used." + LS, "");
     }
 
     @Test
     public void duplicateOutput() {
         String file = pathSemanticErrors + "duplicateOutput.moore";
-        compareExpectedFaults(file, "54: Output \"motor\" already defined." + LS, "");
+        compareExpectedFaults(file, "56:17: Output \"motor\" already defined." + LS, "");
     }
 
     @Test
     public void duplicateInputInExp() {
         String file = pathSemanticErrors + "duplicateInputInExp.moore";
-        compareExpectedFaults(file, "18: Input Pin \"button\" already used in expression." + LS, "");
+        compareExpectedFaults(file, "18:36: Input Pin \"button\" already used in expression." + LS, "");
     }
 
     @Test
     public void duplicateTransition() {
         String file = pathSemanticErrors + "duplicateTransition.moore";
-        compareExpectedFaults(file, "19: Transition coming from state \"q0\" already defined." + LS,  "");
+        compareExpectedFaults(file, "19:17: Transition coming from state \"q0\" already defined." + LS,  "");
+    }
+
+    /* Positions */
+    @Test
+    public void diagnosticCoversOffendingToken() throws IOException {
+        String file = pathSemanticErrors + "duplicateInputPin.moore";
+        Diagnostic diagnostic = semanticAnalyzer.analyzeFile(file).getDiagnostics()
+                .findFirst().orElseThrow(AssertionError::new);
+        String source = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+
+        Assert.assertEquals(13, diagnostic.getLine());
+        Assert.assertEquals(13, diagnostic.getColumn());
+        Assert.assertEquals("switch", source.substring(diagnostic.getStartIndex(),
+                diagnostic.getStopIndex() + 1));
+    }
+
+    /* Shared compilation unit */
+    @Test
+    public void analyzeParsedCompilationUnit() throws IOException {
+        CompilationUnit unit = CompilationUnit.fromFile(pathNoErrors + "template.moore");
+        Assert.assertEquals("", SyntacticAnalyzer.analyze(unit));
+        MachinuinoParser.MooreContext tree = unit.parse();
+
+        Fault fault = semanticAnalyzer.analyze(unit);
+
+        Assert.assertSame(tree, unit.parse());
+        Assert.assertEquals("", fault.getErrors());
+        Assert.assertEquals("M1", semanticAnalyzer.buildMachine().getName());
     }
 }
@@ -0,0 +1,132 @@
+package Machinuino;
+
+import Machinuino.model.Fault;
+import Machinuino.model.MooreMachine;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpecGeneratorTest {
+
+    /**
+     * Errors of the source, syntactic ones first and semantic ones only if there are none
+     */
+    private static String errorsOf(String source) {
+        CompilationUnit unit = CompilationUnit.fromString("Synthetic.moore", source);
+        String syntacticErrors = SyntacticAnalyzer.analyze(unit);
+        if (!syntacticErrors.isEmpty()) return syntacticErrors;
+        return new SemanticAnalyzer().analyze(unit).getErrors();
+    }
+
+    private static MooreMachine machineOf(String source) {
+        CompilationUnit unit = CompilationUnit.fromString("Synthetic.moore", source);
+        Assert.assertEquals("", SyntacticAnalyzer.analyze(unit));
+        SemanticAnalyzer analyzer = new SemanticAnalyzer();
+        Fault fault = analyzer.analyze(unit);
+        Assert.assertEquals("", fault.getErrors());
+        return analyzer.buildMachine();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noStatesShouldThrowException() {
+        new SpecGenerator.Builder().states(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void commentDensityAboveOneShouldThrowException() {
+        new SpecGenerator.Builder().commentDensity(1.5);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullDefectShouldThrowException() {
+        new SpecGenerator.Builder().defect(null, 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void guardWiderThanInputsShouldThrowException() {
+        new SpecGenerator.Builder().inputPins(2).guardWidth(3).build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void tooManyDeterministicTransitionsShouldThrowException() {
+        new SpecGenerator.Builder().inputPins(8).guardWidth(2).transitionsPerState(5).build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void moreDefectsThanTransitionsShouldThrowException() {
+        new SpecGenerator.Builder().states(2).transitionsPerState(1)
+                .defect(SpecGenerator.Defect.MISSING_ARROW, 3).build();
+    }
+
+    @Test
+    public void sameSeedGeneratesSameSource() {
+        SpecGenerator.Builder builder = new SpecGenerator.Builder().states(50).inputPins(6)
+                .commentDensity(0.5).seed(42);
+        Assert.assertEquals(builder.build().generate(), builder.build().generate());
+        Assert.assertNotEquals(builder.build().generate(), builder.seed(43).build().generate());
+    }
+
+    @Test
+    public void generatedMachineHasTheSizesAsked() {
+        MooreMachine machine = machineOf(new SpecGenerator.Builder().states(300).inputPins(30)
+                .outputPins(5).transitionsPerState(7).guardWidth(12).seed(1).build().generate());
+        Assert.assertEquals(300, machine.getStateCount());
+        Assert.assertEquals(31, machine.getInputPinCount());
+        Assert.assertEquals(5, machine.getOutputPinCount());
+        Assert.assertEquals("st0", machine.getInitialState());
+        for (int state = 0; state < machine.getStateCount(); state++) {
+            Assert.assertEquals(7, machine.getTransitionsOfState(state).size());
+        }
+    }
+
+    @Test
+    public void completeMachineCoversEveryInput() {
+        MooreMachine machine = machineOf(new SpecGenerator.Builder().states(40).inputPins(5)
+                .guardWidth(3).complete(true).seed(2).build().generate());
+        CoverageAnalyzer coverage = new CoverageAnalyzer();
+        for (int state = 0; state < machine.getStateCount(); state++) {
+            Assert.assertEquals(8, machine.getTransitionsOfState(state).size());
+            Assert.assertTrue(coverage.uncoveredInputs(machine, state, true).isEmpty());
+        }
+    }
+
+    @Test
+    public void commentsDoNotChangeTheMachine() {
+        SpecGenerator.Builder builder = new SpecGenerator.Builder().states(20).seed(3);
+        String commented = builder.commentDensity(1).build().generate();
+        Assert.assertTrue(commented.contains("/* transition 0 */"));
+        Assert.assertEquals(20, machineOf(commented).getStateCount());
+        Assert.assertFalse(builder.commentDensity(0).build().generate().contains("/*"));
+    }
+
+    @Test
+    public void overlappingGuardsAreReportedAsNondeterministic() {
+        String source = new SpecGenerator.Builder().states(20).inputPins(3).guardWidth(1)
+                .transitionsPerState(3).deterministic(false).seed(4).build().generate();
+        Assert.assertTrue(errorsOf(source).contains("st"));
+    }
+
+    @Test
+    public void plantedSemanticDefectsAreReported() {
+        String source = new SpecGenerator.Builder().states(30).seed(5)
+                .defect(SpecGenerator.Defect.UNDECLARED_STATE, 2)
+                .defect(SpecGenerator.Defect.UNDECLARED_PIN, 1)
+                .defect(SpecGenerator.Defect.DUPLICATE_PIN, 1).build().generate();
+        String errors = errorsOf(source);
+        Assert.assertFalse(errors.isEmpty());
+        Assert.assertTrue(errors.contains("ghost"));
+        Assert.assertEquals(4, errors.split(System.lineSeparator()).length);
+    }
+
+    @Test
+    public void plantedSyntacticDefectIsReported() {
+        Assert.assertFalse(errorsOf(new SpecGenerator.Builder().seed(6)
+                .defect(SpecGenerator.Defect.MISSING_ARROW, 1).build().generate()).isEmpty());
+    }
+
+    @Test
+    public void plantedLexicalDefectIsReported() {
+        Assert.assertTrue(errorsOf(new SpecGenerator.Builder().seed(7)
+                .defect(SpecGenerator.Defect.INVALID_SYMBOL, 1).build().generate())
+                .contains("Lexical Error: #"));
+    }
+}
@@ -0,0 +1,149 @@
+package Machinuino;
+
+import Machinuino.model.BoolPin;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+import Machinuino.model.TransitionTable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class StateMinimizerTest {
+
+    private MooreMachine.Builder builder;
+    private BoolPin a;
+    private BoolPin notA;
+    private Set<BoolPin> on;
+    private Set<BoolPin> off;
+
+    private static Set<BoolPin> setOf(BoolPin... boolPins) {
+        return Stream.of(boolPins).collect(Collectors.toSet());
+    }
+
+    @Before
+    public void setupBuilder() {
+        builder = new MooreMachine.Builder("M1");
+        builder.addState("q0").addState("q1").addState("q2").addState("q3").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("a", 3));
+        builder.addOutputPin(Pin.ofValue("x", 5));
+        a = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), true);
+        notA = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), false);
+        on = setOf(builder.getBoolPinOfValue(builder.getOutputPinOfName("x"), true));
+        off = setOf(builder.getBoolPinOfValue(builder.getOutputPinOfName("x"), false));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void minimizeNullMachineShouldThrowException() {
+        new StateMinimizer().minimize(null);
+    }
+
+    /**
+     * q1 and q2 both turn x on and go back to q0 on a, q3 turns x on but stays on a
+     */
+    @Test
+    public void equivalentStatesAreMerged() {
+        builder.addOutput("q0", off).addOutput("q1", on).addOutput("q2", on)
+                .addOutput("q3", on);
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(a)))
+                .addTransition(Transition.ofValue("q0", "q2", setOf(notA)))
+                .addTransition(Transition.ofValue("q1", "q0", setOf(a)))
+                .addTransition(Transition.ofValue("q2", "q0", setOf(a)))
+                .addTransition(Transition.ofValue("q3", "q0", setOf(notA)));
+        MooreMachine machine = builder.build();
+
+        MooreMachine minimized = new StateMinimizer().minimize(machine);
+        Assert.assertEquals(3, minimized.getStateCount());
+        Assert.assertEquals("q0", minimized.getInitialState());
+        Assert.assertEquals(Stream.of("q0", "q1", "q3").collect(Collectors.toSet()),
+                minimized.getStates().collect(Collectors.toSet()));
+        TransitionTable table = TransitionTable.ofMachine(minimized);
+        int q0 = minimized.getStateId("q0");
+        int q1 = minimized.getStateId("q1");
+        Assert.assertEquals(q1, table.getNextOrStay(q0, 0));
+        Assert.assertEquals(q1, table.getNextOrStay(q0, 1));
+        Assert.assertEquals(q0, table.getNextOrStay(q1, 1));
+        Assert.assertEquals(q1, table.getNextOrStay(q1, 0));
+    }
+
+    @Test
+    public void minimalMachineIsReturned() {
+        builder.addOutput("q0", off).addOutput("q1", on);
+        builder.removeState("q2").removeState("q3");
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(a)))
+                .addTransition(Transition.ofValue("q1", "q0", setOf(a)));
+        MooreMachine machine = builder.build();
+        Assert.assertSame(machine, new StateMinimizer().minimize(machine));
+    }
+
+    /**
+     * The whole chain has the same output, so it collapses onto the initial state
+     */
+    @Test
+    public void statesWithSameOutputAndNoDifferenceCollapse() {
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(a)))
+                .addTransition(Transition.ofValue("q1", "q2", setOf(a)))
+                .addTransition(Transition.ofValue("q2", "q3", setOf(a)));
+        MooreMachine minimized = new StateMinimizer().minimize(builder.build());
+        Assert.assertEquals(Collections.singletonList("q0"),
+                minimized.getStates().collect(Collectors.toList()));
+        for (Transition transition : minimized.getTransitionsOfState(0)) {
+            Assert.assertEquals("q0", transition.getNextState());
+        }
+    }
+
+    /**
+     * q1 and q2 only differ on a transition taken when the clock is low, which still tells them
+     * apart as the sketch may sample on either edge
+     */
+    @Test
+    public void clockLevelTellsStatesApart() {
+        builder.removeState("q3");
+        builder.addOutput("q0", off).addOutput("q1", on).addOutput("q2", on);
+        BoolPin notClock = builder.getBoolPinOfValue(builder.getInputPinOfName("clock"), false);
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(a)))
+                .addTransition(Transition.ofValue("q0", "q2", setOf(notA)))
+                .addTransition(Transition.ofValue("q1", "q0", setOf(notClock)));
+        Assert.assertEquals(3, new StateMinimizer().minimize(builder.build()).getStateCount());
+    }
+
+    @Test
+    public void longChainIsRefined() {
+        MooreMachine.Builder chain = new MooreMachine.Builder("Chain");
+        chain.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("a", 3));
+        chain.addOutputPin(Pin.ofValue("x", 5));
+        BoolPin step = chain.getBoolPinOfValue(chain.getInputPinOfName("a"), true);
+        Set<BoolPin> x = setOf(chain.getBoolPinOfValue(chain.getOutputPinOfName("x"), true));
+        int length = 64;
+        for (int i = 0; i < length; i++) chain.addState("s" + i);
+        chain.initialState("s0");
+        for (int i = 0; i + 1 < length; i++) {
+            chain.addTransition(Transition.ofValue("s" + i, "s" + (i + 1), setOf(step)));
+        }
+        chain.addOutput("s" + (length - 1), x);
+
+        // Only the distance to the last state tells the states apart
+        Assert.assertEquals(length,
+                new StateMinimizer().minimize(chain.build()).getStateCount());
+    }
+
+    /**
+     * 64 states on 2^16 input words are more pairs than a pass may allocate
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void machineOverTheTableBudgetShouldThrowException() {
+        MooreMachine.Builder wide = new MooreMachine.Builder("Wide");
+        wide.addInputPin(Pin.ofValue("clock", 2)).addOutputPin(Pin.ofValue("x", 1));
+        for (int i = 0; i < TransitionTable.MAX_INPUT_BITS; i++) {
+            wide.addInputPin(Pin.ofValue("i" + i, i + 3));
+        }
+        for (int i = 0; i < StateMinimizer.MAX_TABLE_ENTRIES >> 15; i++) wide.addState("s" + i);
+        wide.initialState("s0");
+        new StateMinimizer().minimize(wide.build());
+    }
+}
@@ -1,5 +1,6 @@
 package Machinuino;
 
+import Machinuino.model.Fault;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -206,4 +207,73 @@ public class SyntacticAnalyzerTest {
         compareExpectedToResult("19: Lexical Error: - - invalid symbol" + System.lineSeparator(),
                 pathLexicalErrors + "invalidArrow.moore");
     }
+
+    /* Recovery */
+    private static String analyzeRecovering(String source, int maxErrors) {
+        return SyntacticAnalyzer.analyze(CompilationUnit.fromString("test", source), maxErrors)
+                .getErrors();
+    }
+
+    private static final String RECOVERY_SOURCE = "moore M1 {\n" +
+            "    states { q0, q1 }\n" +
+            "    input {\n" +
+            "        pins { clock: 2, button: 3 }\n" +
+            "        transition {\n" +
+            "            q0 { button q1, !button -> q0 }\n" +
+            "            q1 { button -> q0 $, !button -> q1 }\n" +
+            "        }\n" +
+            "    }\n" +
+            "    output {\n" +
+            "        pins { motor 5 }\n" +
+            "        function { q0 { motor } q1 { !motor } }\n" +
+            "    }\n" +
+            "}\n";
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveMaxErrorsShouldThrowException() {
+        SyntacticAnalyzer.analyze(CompilationUnit.fromString("test", ""), 0);
+    }
+
+    @Test
+    public void recoveringReportsNoErrorsOnValidSource() throws IOException {
+        Assert.assertEquals("", SyntacticAnalyzer.analyze(
+                CompilationUnit.fromFile(pathNoErrors + "template.moore"), 10).getErrors());
+    }
+
+    /**
+     * A missing arrow, an invalid symbol and a missing colon, the lexical error being found by
+     * the lexer ahead of the parser but still reported in order
+     */
+    @Test
+    public void recoveringReportsEveryErrorWithColumns() {
+        Assert.assertEquals("6:25: Syntactic error next to 'q1'" + System.lineSeparator() +
+                        "7:31: Lexical Error: $ - invalid symbol" + System.lineSeparator() +
+                        "11:22: Syntactic error next to '5'" + System.lineSeparator(),
+                analyzeRecovering(RECOVERY_SOURCE, 10));
+    }
+
+    @Test
+    public void recoveringStopsOnMaxErrors() {
+        Assert.assertEquals("6:25: Syntactic error next to 'q1'" + System.lineSeparator() +
+                        "7:31: Lexical Error: $ - invalid symbol" + System.lineSeparator() +
+                        "Too many errors, stopped after 2." + System.lineSeparator(),
+                analyzeRecovering(RECOVERY_SOURCE, 2));
+    }
+
+    @Test
+    public void recoveringDoesNotStopOnExactlyMaxErrors() {
+        Assert.assertEquals("6:25: Syntactic error next to 'q1'" + System.lineSeparator() +
+                        "7:31: Lexical Error: $ - invalid symbol" + System.lineSeparator() +
+                        "11:22: Syntactic error next to '5'" + System.lineSeparator(),
+                analyzeRecovering(RECOVERY_SOURCE, 3));
+    }
+
+    @Test
+    public void recoveringReportsEveryPlantedInvalidSymbol() {
+        String source = new SpecGenerator.Builder().states(30).seed(7)
+                .defect(SpecGenerator.Defect.INVALID_SYMBOL, 5).build().generate();
+        Fault fault = SyntacticAnalyzer.analyze(CompilationUnit.fromString("test", source), 100);
+        Assert.assertEquals(5, fault.getErrorCount());
+        Assert.assertFalse(fault.getErrors().contains("Syntactic"));
+    }
 }
@@ -0,0 +1,99 @@
+package Machinuino;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TwoStageParserTest {
+
+    /**
+     * Collects the lines of the errors it is told of
+     */
+    private static class Listener extends BaseErrorListener {
+
+        private final List<Integer> lines = new ArrayList<>();
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int col, String msg, RecognitionException e) {
+            lines.add(line);
+        }
+    }
+
+    private static String treeOfLL(String source) {
+        MachinuinoParser parser = new MachinuinoParser(new CommonTokenStream(
+                new MachinuinoLexer(new ANTLRInputStream(source))));
+        return parser.moore().toStringTree(Arrays.asList(MachinuinoParser.ruleNames));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void parseNullInputShouldThrowException() {
+        TwoStageParser.forCurrentThread().parse(null, new Listener());
+    }
+
+    @Test
+    public void validSourceHasSameTreeAsLL() {
+        String source = new SpecGenerator.Builder().states(50).commentDensity(0.3).seed(1)
+                .build().generate();
+        Listener listener = new Listener();
+        MachinuinoParser.MooreContext tree = TwoStageParser.forCurrentThread()
+                .parse(new ANTLRInputStream(source), listener);
+        Assert.assertTrue(listener.lines.isEmpty());
+        Assert.assertEquals(treeOfLL(source),
+                tree.toStringTree(Arrays.asList(MachinuinoParser.ruleNames)));
+    }
+
+    @Test
+    public void syntacticErrorIsReportedByLLStage() {
+        Listener listener = new Listener();
+        TwoStageParser.forCurrentThread().parse(new ANTLRInputStream(
+                "moore M1 {\n states {\n q0 q1\n }\n}"), listener);
+        Assert.assertFalse(listener.lines.isEmpty());
+        Assert.assertEquals(3, (int) listener.lines.get(0));
+    }
+
+    @Test
+    public void lexicalErrorIsNotRetried() {
+        Listener listener = new Listener();
+        try {
+            TwoStageParser.forCurrentThread().parse(new ANTLRInputStream("moore M1 # {"),
+                    listener);
+            Assert.fail();
+        } catch (ParseCancellationException e) {
+            Assert.assertTrue(e.getMessage().contains("Lexical Error: #"));
+        }
+        Assert.assertTrue(listener.lines.isEmpty());
+    }
+
+    @Test
+    public void parserIsReusedAfterErrors() {
+        TwoStageParser parser = TwoStageParser.forCurrentThread();
+        try {
+            parser.parse(new ANTLRInputStream("moore M1 # {"), new Listener());
+        } catch (ParseCancellationException e) {
+            // Expected, the parser must still be usable.
+        }
+        parser.parse(new ANTLRInputStream("moore M1 {"), new Listener());
+
+        Assert.assertSame(parser, TwoStageParser.forCurrentThread());
+        String source = new SpecGenerator.Builder().seed(2).build().generate();
+        Listener listener = new Listener();
+        Assert.assertNotNull(parser.parse(new ANTLRInputStream(source), listener).input());
+        Assert.assertTrue(listener.lines.isEmpty());
+    }
+
+    @Test
+    public void warmUpCanBeCalledTwice() {
+        TwoStageParser.warmUp();
+        TwoStageParser.warmUp();
+    }
+}
@@ -0,0 +1,70 @@
+package Machinuino.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+public class BoolPinSetTest {
+
+    private Set<BoolPin> manyBoolPins() {
+        Set<BoolPin> boolPins = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            boolPins.add(BoolPin.ofValue(Pin.ofValue("pin" + i, i), i % 3 == 0));
+        }
+        return boolPins;
+    }
+
+    @Test
+    public void keepsHashSetOrder() {
+        Set<BoolPin> boolPins = manyBoolPins();
+        Assert.assertEquals(new ArrayList<>(new HashSet<>(boolPins)),
+                new ArrayList<>(BoolPinSet.copyOf(boolPins)));
+    }
+
+    @Test
+    public void equalToHashSetEqualHashcode() {
+        Set<BoolPin> boolPins = manyBoolPins();
+        BoolPinSet copy = BoolPinSet.copyOf(boolPins);
+        Assert.assertEquals(boolPins, copy);
+        Assert.assertEquals(copy, boolPins);
+        Assert.assertEquals(boolPins.hashCode(), copy.hashCode());
+    }
+
+    @Test
+    public void notEqualToDifferentSet() {
+        Set<BoolPin> boolPins = manyBoolPins();
+        BoolPinSet copy = BoolPinSet.copyOf(boolPins);
+        boolPins.add(BoolPin.ofValue(Pin.ofValue("extra", 99), true));
+        Assert.assertNotEquals(boolPins, copy);
+        Assert.assertNotEquals(BoolPinSet.copyOf(boolPins), copy);
+    }
+
+    @Test
+    public void copyOfCopyIsSameInstance() {
+        BoolPinSet copy = BoolPinSet.copyOf(manyBoolPins());
+        Assert.assertSame(copy, BoolPinSet.copyOf(copy));
+    }
+
+    @Test
+    public void containsNullElement() {
+        Set<BoolPin> boolPins = new HashSet<>();
+        boolPins.add(null);
+        Assert.assertTrue(BoolPinSet.copyOf(boolPins).contains(null));
+        Assert.assertFalse(BoolPinSet.copyOf(manyBoolPins()).contains(null));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void addShouldThrowException() {
+        BoolPinSet.copyOf(manyBoolPins()).add(BoolPin.ofValue(Pin.ofValue("extra", 99), true));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void removeThroughIteratorShouldThrowException() {
+        BoolPinSet copy = BoolPinSet.copyOf(manyBoolPins());
+        copy.iterator().next();
+        copy.iterator().remove();
+    }
+}
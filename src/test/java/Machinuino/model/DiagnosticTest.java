@@ -0,0 +1,71 @@
+package Machinuino.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class DiagnosticTest {
+
+    @Test(expected = NullPointerException.class)
+    public void nullCodeShouldThrowException() {
+        Diagnostic.of(null, Diagnostic.Severity.ERROR, 1, 1, "q0");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullArgShouldThrowException() {
+        Diagnostic.of(Diagnostic.Code.UNDECLARED_STATE, Diagnostic.Severity.ERROR, 1, 1,
+                (String) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLineShouldThrowException() {
+        Diagnostic.of(Diagnostic.Code.UNDECLARED_STATE, Diagnostic.Severity.ERROR, -1, 1, "q0");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongNumberOfArgsShouldThrowException() {
+        Diagnostic.of(Diagnostic.Code.UNCOVERED_INPUTS, Diagnostic.Severity.WARNING, 1, 1, "q0");
+    }
+
+    @Test
+    public void formatWithPosition() {
+        Diagnostic diagnostic = Diagnostic.of(Diagnostic.Code.UNDECLARED_STATE,
+                Diagnostic.Severity.ERROR, 12, 7, "q9");
+        Assert.assertEquals("State q9 undeclared.", diagnostic.getMessage());
+        Assert.assertEquals("12:7: State q9 undeclared." + System.lineSeparator(),
+                diagnostic.format());
+        Assert.assertEquals(Arrays.asList("q9"), diagnostic.getArgs());
+    }
+
+    @Test
+    public void formatWithoutColumnOrLine() {
+        Assert.assertEquals("12: State q9 undeclared." + System.lineSeparator(),
+                Diagnostic.of(Diagnostic.Code.UNDECLARED_STATE, Diagnostic.Severity.ERROR, 12,
+                        Diagnostic.NO_POSITION, "q9").format());
+        Assert.assertEquals("State q0 has no transition on a, b. Will stay on q0." +
+                System.lineSeparator(), Diagnostic.of(Diagnostic.Code.UNCOVERED_INPUTS,
+                Diagnostic.Severity.WARNING, Diagnostic.NO_POSITION, Diagnostic.NO_POSITION,
+                "q0", "a, b", "q0").format());
+    }
+
+    @Test
+    public void messageIsFormattedAsItIs() {
+        Assert.assertEquals("Custom\n", Diagnostic.of(Diagnostic.Code.MESSAGE,
+                Diagnostic.Severity.ERROR, 3, 0, "Custom\n").format());
+    }
+
+    @Test
+    public void equalDiagnostics() {
+        Diagnostic diagnostic = Diagnostic.of(Diagnostic.Code.DUPLICATE_PIN,
+                Diagnostic.Severity.ERROR, 4, 0, "button");
+        Diagnostic same = Diagnostic.of(Diagnostic.Code.DUPLICATE_PIN,
+                Diagnostic.Severity.ERROR, 4, 0, "button");
+        Assert.assertEquals(diagnostic, same);
+        Assert.assertEquals(diagnostic.hashCode(), same.hashCode());
+        Assert.assertNotEquals(diagnostic, Diagnostic.of(Diagnostic.Code.DUPLICATE_PIN,
+                Diagnostic.Severity.ERROR, 5, 0, "button"));
+        Assert.assertNotEquals(diagnostic, Diagnostic.of(Diagnostic.Code.DUPLICATE_PIN,
+                Diagnostic.Severity.WARNING, 4, 0, "button"));
+    }
+}
@@ -3,9 +3,21 @@ package Machinuino.model;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
 // TODO: Use System.lineSeparator()
 public class FaultTest {
 
+    private static Diagnostic error(Diagnostic.Code code, int line, String arg) {
+        return Diagnostic.of(code, Diagnostic.Severity.ERROR, line, Diagnostic.NO_POSITION, arg);
+    }
+
+    private static Diagnostic warning(Diagnostic.Code code, int line, String arg) {
+        return Diagnostic.of(code, Diagnostic.Severity.WARNING, line, Diagnostic.NO_POSITION, arg);
+    }
+
     @Test
     public void startWithoutErrors() {
         Fault fault = Fault.getInstance();
@@ -78,8 +90,61 @@ public class FaultTest {
     @Test
     public void emptySections() {
         Fault fault = Fault.getInstance();
-        fault.addWarningEmptySection("States", 11);
+        fault.add(warning(Diagnostic.Code.EMPTY_SECTION, 11, "States"));
         Assert.assertEquals("Fault {errors=[], warnings=[11: Empty \"States\" section" + System.lineSeparator() +
                 "]}", fault.toString());
     }
+
+    @Test
+    public void unreachableStatesWarning() {
+        Fault fault = Fault.getInstance();
+        fault.addWarningUnreachableStates(Arrays.asList("q2", "q3"));
+        Assert.assertEquals("States q2, q3 unreachable from the initial state. Will be removed." +
+                System.lineSeparator(), fault.getWarnings());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyUnreachableStatesShouldThrowException() {
+        Fault.getInstance().addWarningUnreachableStates(Collections.emptyList());
+    }
+
+    @Test
+    public void uncoveredInputsWarning() {
+        Fault fault = Fault.getInstance();
+        fault.addWarningUncoveredInputs("q0", Arrays.asList("!a & b", "a & !b"));
+        Assert.assertEquals("State q0 has no transition on !a & b, a & !b. Will stay on q0." +
+                System.lineSeparator(), fault.getWarnings());
+    }
+
+    @Test
+    public void duplicateDiagnosticsAreIgnored() {
+        Fault fault = Fault.getInstance();
+        fault.add(error(Diagnostic.Code.UNDECLARED_STATE, 3, "q9"));
+        fault.add(error(Diagnostic.Code.DUPLICATE_PIN, 4, "button"));
+        fault.add(error(Diagnostic.Code.UNDECLARED_STATE, 3, "q9"));
+        Assert.assertEquals(2, fault.getErrorCount());
+        Assert.assertEquals("3: State q9 undeclared." + System.lineSeparator() +
+                "4: Duplicate pin button." + System.lineSeparator(), fault.getErrors());
+    }
+
+    @Test
+    public void formattedErrorsFollowAdditions() {
+        Fault fault = Fault.getInstance();
+        fault.add(error(Diagnostic.Code.UNDECLARED_STATE, 3, "q9"));
+        Assert.assertEquals("3: State q9 undeclared." + System.lineSeparator(), fault.getErrors());
+        fault.add(error(Diagnostic.Code.UNDECLARED_OUTPUT_PIN, 5, "led"));
+        Assert.assertEquals("3: State q9 undeclared." + System.lineSeparator() +
+                "5: Output Pin led undeclared." + System.lineSeparator(), fault.getErrors());
+    }
+
+    @Test
+    public void diagnosticsAreErrorsThenWarnings() {
+        Fault fault = Fault.getInstance();
+        fault.add(warning(Diagnostic.Code.EMPTY_SECTION, 2, "States"));
+        fault.add(error(Diagnostic.Code.UNDECLARED_STATE, 3, "q9"));
+        Assert.assertTrue(fault.hasErrors());
+        Assert.assertEquals(Arrays.asList(Diagnostic.Code.UNDECLARED_STATE,
+                Diagnostic.Code.EMPTY_SECTION),
+                fault.getDiagnostics().map(Diagnostic::getCode).collect(Collectors.toList()));
+    }
 }
@@ -0,0 +1,145 @@
+package Machinuino.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class GuardTest {
+
+    private final Pin a = Pin.ofValue("a", 1);
+    private final Pin b = Pin.ofValue("b", 2);
+    private final Pin wide = Pin.ofValue("wide", 3);
+    private final ToIntFunction<Pin> ordinal = pin -> {
+        Map<Pin, Integer> ordinals = new HashMap<>();
+        ordinals.put(a, 0);
+        ordinals.put(b, 1);
+        ordinals.put(wide, 100);
+        return ordinals.get(pin);
+    };
+
+    private Guard guardOf(BoolPin... boolPins) {
+        return Guard.ofValue(Stream.of(boolPins).collect(Collectors.toSet()), ordinal);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullBoolPinsShouldThrowException() {
+        Guard.ofValue(null, ordinal);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullOrdinalShouldThrowException() {
+        Guard.ofValue(new HashSet<>(), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pinWithTwoValuesShouldThrowException() {
+        guardOf(BoolPin.ofValue(a, true), BoolPin.ofValue(a, false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeOrdinalShouldThrowException() {
+        Set<BoolPin> boolPins = Stream.of(BoolPin.ofValue(a, true)).collect(Collectors.toSet());
+        Guard.ofValue(boolPins, pin -> -1);
+    }
+
+    @Test
+    public void emptyGuardIsSubsetOfEveryGuard() {
+        Assert.assertTrue(guardOf().isSubsetOf(guardOf(BoolPin.ofValue(a, true))));
+        Assert.assertFalse(guardOf(BoolPin.ofValue(a, true)).isSubsetOf(guardOf()));
+    }
+
+    @Test
+    public void subsetWithSameValues() {
+        Guard aHigh = guardOf(BoolPin.ofValue(a, true));
+        Guard aHighBLow = guardOf(BoolPin.ofValue(a, true), BoolPin.ofValue(b, false));
+        Assert.assertTrue(aHigh.isSubsetOf(aHighBLow));
+        Assert.assertFalse(aHighBLow.isSubsetOf(aHigh));
+        Assert.assertTrue(aHigh.isComparableTo(aHighBLow));
+        Assert.assertTrue(aHighBLow.isComparableTo(aHigh));
+    }
+
+    @Test
+    public void notSubsetWithDifferentValues() {
+        Guard aHigh = guardOf(BoolPin.ofValue(a, true));
+        Guard aLowBLow = guardOf(BoolPin.ofValue(a, false), BoolPin.ofValue(b, false));
+        Assert.assertFalse(aHigh.isComparableTo(aLowBLow));
+    }
+
+    @Test
+    public void notComparableWithDisjointPins() {
+        Guard aHigh = guardOf(BoolPin.ofValue(a, true));
+        Guard bHigh = guardOf(BoolPin.ofValue(b, true));
+        Assert.assertFalse(aHigh.isComparableTo(bHigh));
+    }
+
+    @Test
+    public void guardsOfDifferentWidths() {
+        Guard aHigh = guardOf(BoolPin.ofValue(a, true));
+        Guard aHighWide = guardOf(BoolPin.ofValue(a, true), BoolPin.ofValue(wide, true));
+        Assert.assertTrue(aHigh.isSubsetOf(aHighWide));
+        Assert.assertFalse(aHighWide.isSubsetOf(aHigh));
+    }
+
+    @Test
+    public void equalGuardsEqualHashcode() {
+        Guard first = guardOf(BoolPin.ofValue(a, true), BoolPin.ofValue(b, false));
+        Guard second = guardOf(BoolPin.ofValue(b, false), BoolPin.ofValue(a, true));
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+        Assert.assertNotEquals(first, guardOf(BoolPin.ofValue(a, true)));
+    }
+
+    @Test
+    public void disjointGuards() {
+        Guard aHigh = guardOf(BoolPin.ofValue(a, true));
+        Assert.assertTrue(aHigh.isDisjointFrom(guardOf(BoolPin.ofValue(a, false))));
+        Assert.assertFalse(aHigh.isDisjointFrom(guardOf(BoolPin.ofValue(b, false))));
+        Assert.assertFalse(aHigh.isDisjointFrom(guardOf()));
+    }
+
+    @Test
+    public void minusDisjointGuardIsThisGuard() {
+        Guard aHigh = guardOf(BoolPin.ofValue(a, true));
+        Assert.assertEquals(Collections.singletonList(aHigh),
+                aHigh.minus(guardOf(BoolPin.ofValue(a, false))));
+    }
+
+    @Test
+    public void minusSupersetIsEmpty() {
+        Guard aAndB = guardOf(BoolPin.ofValue(a, true), BoolPin.ofValue(b, true));
+        Assert.assertTrue(aAndB.minus(guardOf(BoolPin.ofValue(a, true))).isEmpty());
+    }
+
+    /**
+     * Everything but a & wide is !a, or a & !wide
+     */
+    @Test
+    public void minusSplitsOnEachPinNotTested() {
+        Guard any = guardOf();
+        Set<Guard> difference = new HashSet<>(any.minus(
+                guardOf(BoolPin.ofValue(a, true), BoolPin.ofValue(wide, true))));
+        Set<Guard> expected = Stream.of(guardOf(BoolPin.ofValue(a, false)),
+                guardOf(BoolPin.ofValue(a, true), BoolPin.ofValue(wide, false)))
+                .collect(Collectors.toSet());
+        Assert.assertEquals(expected, difference);
+    }
+
+    @Test
+    public void testedPins() {
+        Guard guard = guardOf(BoolPin.ofValue(a, true), BoolPin.ofValue(wide, false));
+        Assert.assertTrue(guard.tests(0));
+        Assert.assertTrue(guard.requiresHigh(0));
+        Assert.assertFalse(guard.tests(1));
+        Assert.assertTrue(guard.tests(100));
+        Assert.assertFalse(guard.requiresHigh(100));
+        Assert.assertFalse(guard.tests(200));
+    }
+}
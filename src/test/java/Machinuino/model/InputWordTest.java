@@ -0,0 +1,58 @@
+package Machinuino.model;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class InputWordTest {
+
+    private MooreMachine machine;
+    private List<Pin> inputs;
+
+    @Before
+    public void init() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("M1");
+        builder.addState("q0").addState("q1").initialState("q0");
+        builder.addInputPin(Pin.ofValue("a", 3)).addInputPin(Pin.ofValue(InputWord.CLOCK, 2))
+                .addInputPin(Pin.ofValue("b", 4));
+        machine = builder.build();
+        inputs = InputWord.inputBits(machine);
+    }
+
+    private Transition transitionOf(BoolPin... boolPins) {
+        return Transition.ofValue("q0", "q1", Stream.of(boolPins).collect(Collectors.toSet()));
+    }
+
+    private BoolPin valueOf(String name, boolean high) {
+        for (int id = 0; id < machine.getInputPinCount(); id++) {
+            Pin pin = machine.getInputPinOfId(id);
+            if (pin.getName().equals(name)) return BoolPin.ofValue(pin, high);
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Test
+    public void inputBitsLeaveTheClockOut() {
+        Assert.assertEquals(Arrays.asList(Pin.ofValue("a", 3), Pin.ofValue("b", 4)), inputs);
+    }
+
+    @Test
+    public void guardOfLeavesTheClockOut() {
+        Guard guard = InputWord.guardOf(transitionOf(valueOf("b", true),
+                valueOf(InputWord.CLOCK, true), valueOf("a", false)), inputs::indexOf, true);
+        Assert.assertEquals(0x3, guard.getCare(0));
+        Assert.assertEquals(0x2, guard.getValue(0));
+        Assert.assertEquals(0, guard.getCare(1));
+    }
+
+    @Test
+    public void guardOnTheOtherClockLevelIsNull() {
+        Assert.assertNull(InputWord.guardOf(transitionOf(valueOf(InputWord.CLOCK, false)),
+                inputs::indexOf, true));
+    }
+}
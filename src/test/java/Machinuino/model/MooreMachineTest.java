@@ -711,6 +711,42 @@ public class MooreMachineTest {
                 .contains(transition));
     }
 
+    @Test
+    public void builderAddTransitionAfterRemovingConflictingOne() {
+        MooreMachine.Builder builder = new MooreMachine.Builder(defaultBuilder);
+        Set<BoolPin> clock = new HashSet<>();
+        clock.add(builder.getBoolPinOfValue(builder.getInputPinOfName("clock"), true));
+        Transition conflicting = Transition.ofValue("q0", "q0", clock);
+        Assert.assertTrue(builder.transitionCausesNonDeterminism(conflicting));
+        builder.removeTransition(Transition.ofValue("q0", "q1", clock));
+        Assert.assertFalse(builder.transitionCausesNonDeterminism(conflicting));
+        builder.addTransition(conflicting);
+        Assert.assertTrue(builder.build().getTransitions().anyMatch(conflicting::equals));
+    }
+
+    @Test(timeout = 10000)
+    public void builderAddTransitionsOfManyStates() {
+        int states = 5000;
+        MooreMachine.Builder builder = new MooreMachine.Builder("big");
+        for (int i = 0; i < states; i++) builder.addState("q" + i);
+        Pin a = Pin.ofValue("a", 1);
+        Pin b = Pin.ofValue("b", 2);
+        builder.addInputPin(a);
+        builder.addInputPin(b);
+        for (int i = 0; i < states; i++) {
+            for (int combination = 0; combination < 4; combination++) {
+                Set<BoolPin> boolPins = new HashSet<>();
+                boolPins.add(builder.getBoolPinOfValue(a, (combination & 1) != 0));
+                boolPins.add(builder.getBoolPinOfValue(b, (combination & 2) != 0));
+                Transition transition = Transition.ofValue("q" + i,
+                        "q" + ((i + combination) % states), boolPins);
+                Assert.assertFalse(builder.transitionCausesNonDeterminism(transition));
+                builder.addTransition(transition);
+            }
+        }
+        Assert.assertEquals(4 * states, builder.build().getTransitions().count());
+    }
+
     @Test(expected = NullPointerException.class)
     public void builderRemoveNullTransitionShouldThrowException() {
         MooreMachine.Builder builder = new MooreMachine.Builder(defaultBuilder);
@@ -1007,6 +1043,55 @@ public class MooreMachineTest {
         Assert.assertEquals(outputs, mooreMachine.getOutputs().collect(Collectors.toSet()));
     }
 
+    @Test
+    public void builderRemoveOutputKeepsOutputIndex() {
+        defaultBuilder.removeOutput("q1");
+        Assert.assertFalse(defaultBuilder.hasOutput("q1"));
+        Assert.assertTrue(defaultBuilder.hasOutput("q0"));
+        defaultBuilder.addOutput("q1", new HashSet<>());
+        Assert.assertTrue(defaultBuilder.hasOutput("q1"));
+    }
+
+    @Test
+    public void builderRemoveInputPinKeepsNameIndex() {
+        defaultBuilder.addInputPin(Pin.ofValue("switch", 5));
+        defaultBuilder.removeInputPin(Pin.ofValue("switch", 5));
+        Assert.assertNull(defaultBuilder.getInputPinOfName("switch"));
+        Assert.assertEquals(Pin.ofValue("button", 2), defaultBuilder.getInputPinOfName("button"));
+    }
+
+    @Test
+    public void builderSetInputPinsReplacesNameIndex() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("m1");
+        builder.inputPins(Stream.of(Pin.ofValue("a", 1), Pin.ofValue("b", 2))
+                .collect(Collectors.toSet()));
+        builder.inputPins(Stream.of(Pin.ofValue("b", 3)).collect(Collectors.toSet()));
+        Assert.assertNull(builder.getInputPinOfName("a"));
+        Assert.assertEquals(Pin.ofValue("b", 3), builder.getInputPinOfName("b"));
+        Assert.assertEquals(2, builder.build().getAllPinsValues().count());
+    }
+
+    @Test
+    public void builderRemoveOutputPinKeepsValueIndex() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("m1");
+        Pin pin = Pin.ofValue("led", 3);
+        builder.addOutputPin(pin);
+        builder.removeOutputPin(pin);
+        Assert.assertNull(builder.getOutputPinOfName("led"));
+        Assert.assertEquals(0, builder.build().getAllPinsValues().count());
+        builder.addInputPin(pin);
+        Assert.assertEquals(BoolPin.ofValue(pin, false), builder.getBoolPinOfValue(pin, false));
+    }
+
+    @Test
+    public void builderGetBoolPinOfValueReturnsSameInstance() {
+        Pin button = defaultBuilder.getInputPinOfName("button");
+        Assert.assertSame(defaultBuilder.getBoolPinOfValue(button, true),
+                defaultBuilder.getBoolPinOfValue(button, true));
+        Assert.assertNotSame(defaultBuilder.getBoolPinOfValue(button, true),
+                defaultBuilder.getBoolPinOfValue(button, false));
+    }
+
     @Test
     public void builderReturnFromGetEqualsInitialValues() {
         MooreMachine.Builder builder = new MooreMachine.Builder("M1");
@@ -1135,4 +1220,60 @@ public class MooreMachineTest {
                 "\', states=" + states + ", inputPins=" + inputPins + ", outputPins=" + outputPins +
                 ", transitions=" + transitions + ", outputs=" + outputs + '}');
     }
+
+    @Test
+    public void mooreMachineIdsFollowBuilderOrder() {
+        MooreMachine machine = new MooreMachine.Builder(defaultBuilder).build();
+        Assert.assertEquals(2, machine.getStateCount());
+        Assert.assertEquals(0, machine.getStateId("q0"));
+        Assert.assertEquals("q1", machine.getStateOfId(1));
+        Assert.assertEquals(-1, machine.getStateId("q2"));
+        Assert.assertEquals(2, machine.getInputPinCount());
+        Assert.assertEquals(Pin.ofValue("button", 2), machine.getInputPinOfId(1));
+        Assert.assertEquals(2, machine.getOutputPinCount());
+        Assert.assertEquals(0, machine.getOutputPinId(Pin.ofValue("led", 3)));
+        Assert.assertEquals(-1, machine.getOutputPinId(Pin.ofValue("clock", 1)));
+    }
+
+    @Test
+    public void mooreMachineIdsHaveNoGapsAfterRemoval() {
+        MooreMachine.Builder builder = new MooreMachine.Builder(defaultBuilder);
+        builder.addState("q2").addState("q3").removeState("q2");
+        builder.addInputPin(Pin.ofValue("switch", 5)).removeInputPin(Pin.ofValue("button", 2));
+        MooreMachine machine = builder.build();
+        Assert.assertEquals(3, machine.getStateCount());
+        Assert.assertEquals(2, machine.getStateId("q3"));
+        Assert.assertEquals(1, machine.getInputPinId(Pin.ofValue("switch", 5)));
+    }
+
+    @Test
+    public void mooreMachineBoolPinsAreInterned() {
+        Pin led = defaultBuilder.getOutputPinOfName("led");
+        BoolPin ledHigh = defaultBuilder.getBoolPinOfValue(led, true);
+        Assert.assertSame(ledHigh, defaultBuilder.getBoolPinOfValue(led, true));
+        MooreMachine machine = new MooreMachine.Builder(defaultBuilder).build();
+        Assert.assertSame(ledHigh, machine.getBoolPinOfValue(led, true));
+        Assert.assertFalse(machine.getBoolPinOfValue(Pin.ofValue("clock", 1), false).isHigh());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mooreMachineBoolPinOfPinNotOnMachineShouldThrowException() {
+        defaultBuilder.build().getBoolPinOfValue(Pin.ofValue("nope", 9), true);
+    }
+
+    @Test
+    public void mooreMachineTransitionsAndOutputOfState() {
+        MooreMachine machine = new MooreMachine.Builder(defaultBuilder).build();
+        int q0 = machine.getStateId("q0");
+        int q1 = machine.getStateId("q1");
+        Assert.assertEquals(machine.getTransitions().collect(Collectors.toList()),
+                machine.getTransitionsOfState(q0));
+        Assert.assertTrue(machine.getTransitionsOfState(q1).isEmpty());
+        Assert.assertEquals("q1", machine.getOutputOfState(q1).getState());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void mooreMachineTransitionsOfStateAreReadOnly() {
+        defaultBuilder.build().getTransitionsOfState(0).clear();
+    }
 }
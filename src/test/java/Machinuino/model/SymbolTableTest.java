@@ -0,0 +1,45 @@
+package Machinuino.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class SymbolTableTest {
+
+    @Test(expected = NullPointerException.class)
+    public void internNullShouldThrowException() {
+        new SymbolTable<String>().intern(null);
+    }
+
+    @Test
+    public void idsAreDenseInInternOrder() {
+        SymbolTable<String> table = new SymbolTable<>();
+        Assert.assertEquals(0, table.intern("q1"));
+        Assert.assertEquals(1, table.intern("q0"));
+        Assert.assertEquals(0, table.intern("q1"));
+        Assert.assertEquals(2, table.size());
+        Assert.assertEquals("q0", table.symbolOf(1));
+        Assert.assertEquals(Arrays.asList("q1", "q0"), table.getSymbols());
+    }
+
+    @Test
+    public void symbolNotInternedHasNoId() {
+        Assert.assertEquals(-1, new SymbolTable<String>().idOf("q0"));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        SymbolTable<String> table = new SymbolTable<>();
+        table.intern("q0");
+        SymbolTable<String> copy = new SymbolTable<>(table);
+        copy.intern("q1");
+        Assert.assertEquals(1, table.size());
+        Assert.assertEquals(1, copy.idOf("q1"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void symbolsAreReadOnly() {
+        new SymbolTable<String>().getSymbols().add("q0");
+    }
+}
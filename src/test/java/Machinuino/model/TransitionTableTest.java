@@ -0,0 +1,112 @@
+package Machinuino.model;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TransitionTableTest {
+
+    private MooreMachine.Builder builder;
+    private BoolPin a;
+    private BoolPin notA;
+    private BoolPin b;
+    private BoolPin clock;
+    private BoolPin notClock;
+
+    private static Set<BoolPin> setOf(BoolPin... boolPins) {
+        return Stream.of(boolPins).collect(Collectors.toSet());
+    }
+
+    @Before
+    public void setupBuilder() {
+        builder = new MooreMachine.Builder("M1");
+        builder.addState("q0").addState("q1").addState("q2").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2))
+                .addInputPin(Pin.ofValue("a", 3))
+                .addInputPin(Pin.ofValue("b", 4));
+        builder.addOutputPin(Pin.ofValue("x", 5)).addOutputPin(Pin.ofValue("y", 6));
+        a = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), true);
+        notA = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), false);
+        b = builder.getBoolPinOfValue(builder.getInputPinOfName("b"), true);
+        clock = builder.getBoolPinOfValue(builder.getInputPinOfName("clock"), true);
+        notClock = builder.getBoolPinOfValue(builder.getInputPinOfName("clock"), false);
+        Pin x = builder.getOutputPinOfName("x");
+        Pin y = builder.getOutputPinOfName("y");
+        builder.addOutput("q0", setOf(builder.getBoolPinOfValue(x, true)));
+        builder.addOutput("q1", setOf(builder.getBoolPinOfValue(x, false),
+                builder.getBoolPinOfValue(y, true)));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void ofNullMachineShouldThrowException() {
+        TransitionTable.ofMachine(null);
+    }
+
+    @Test
+    public void clockIsNotPacked() {
+        TransitionTable table = TransitionTable.ofMachine(builder.build());
+        Assert.assertEquals(2, table.getInputCount());
+        Assert.assertEquals(4, table.getWordCount());
+        Assert.assertEquals(Pin.ofValue("a", 3), table.getInputPin(0));
+        Assert.assertEquals(Pin.ofValue("b", 4), table.getInputPin(1));
+    }
+
+    @Test
+    public void transitionCoversEveryWordItAccepts() {
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(a)));
+        builder.addTransition(Transition.ofValue("q0", "q2", setOf(notA, b)));
+        TransitionTable table = TransitionTable.ofMachine(builder.build());
+        Assert.assertEquals(TransitionTable.NO_TRANSITION, table.getNext(0, 0b00));
+        Assert.assertEquals(1, table.getNext(0, 0b01));
+        Assert.assertEquals(2, table.getNext(0, 0b10));
+        Assert.assertEquals(1, table.getNext(0, 0b11));
+        Assert.assertEquals(0, table.getNextOrStay(0, 0b00));
+        Assert.assertEquals(2, table.getNextOrStay(2, 0b11));
+    }
+
+    @Test
+    public void clockGuards() {
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(clock, b)));
+        builder.addTransition(Transition.ofValue("q1", "q2", setOf(notClock)));
+        TransitionTable table = TransitionTable.ofMachine(builder.build());
+        Assert.assertEquals(1, table.getNext(0, 0b10));
+        Assert.assertEquals(TransitionTable.NO_TRANSITION, table.getNext(0, 0b01));
+        for (int word = 0; word < table.getWordCount(); word++) {
+            Assert.assertEquals(TransitionTable.NO_TRANSITION, table.getNext(1, word));
+        }
+    }
+
+    @Test
+    public void outputWords() {
+        TransitionTable table = TransitionTable.ofMachine(builder.build());
+        Assert.assertEquals(2, table.getOutputCount());
+        Assert.assertEquals(0b01, table.getOutputWord(0));
+        Assert.assertEquals(0b10, table.getOutputWord(1));
+        Assert.assertEquals(0, table.getOutputWord(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void wordOutOfTableShouldThrowException() {
+        TransitionTable.ofMachine(builder.build()).getNext(0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyInputsShouldThrowException() {
+        for (int i = 0; i <= TransitionTable.MAX_INPUT_BITS; i++) {
+            builder.addInputPin(Pin.ofValue("in" + i, 20 + i));
+        }
+        TransitionTable.ofMachine(builder.build());
+    }
+
+    @Test
+    public void equalMachinesEqualTables() {
+        TransitionTable first = TransitionTable.ofMachine(builder.build());
+        TransitionTable second = TransitionTable.ofMachine(builder.build());
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+    }
+}
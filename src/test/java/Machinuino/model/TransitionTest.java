@@ -127,4 +127,20 @@ public class TransitionTest {
                 Transition.ofValue(previousState, nextState, input).toString());
     }
 
+
+    @Test
+    public void getInputDoesNotCopy() {
+        Set<BoolPin> input = new HashSet<>();
+        input.add(BoolPin.ofValue(Pin.ofValue("a", 2), true));
+        Transition transition = Transition.ofValue("q0", "q1", input);
+        Assert.assertSame(transition.getInput(), transition.getInput());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getInputIsReadOnly() {
+        Set<BoolPin> input = new HashSet<>();
+        input.add(BoolPin.ofValue(Pin.ofValue("a", 2), true));
+        Transition transition = Transition.ofValue("q0", "q1", input);
+        transition.getInput().clear();
+    }
 }
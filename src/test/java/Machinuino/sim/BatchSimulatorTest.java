@@ -0,0 +1,94 @@
+package Machinuino.sim;
+
+import Machinuino.model.BoolPin;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+public class BatchSimulatorTest {
+
+    private Simulator simulator;
+
+    @Before
+    public void init() {
+        // A counter modulo 5 stepping while a is high, output is the count
+        MooreMachine.Builder builder = new MooreMachine.Builder("Counter");
+        for (int i = 0; i < 5; i++) builder.addState("c" + i);
+        builder.initialState("c0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("a", 3));
+        for (int bit = 0; bit < 3; bit++) builder.addOutputPin(Pin.ofValue("o" + bit, 4 + bit));
+        BoolPin a = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), true);
+        for (int i = 0; i < 5; i++) {
+            builder.addTransition(Transition.ofValue("c" + i, "c" + (i + 1) % 5,
+                    Collections.singleton(a)));
+            List<BoolPin> output = new ArrayList<>();
+            for (int bit = 0; bit < 3; bit++) {
+                output.add(builder.getBoolPinOfValue(builder.getOutputPinOfName("o" + bit),
+                        (i & 1 << bit) != 0));
+            }
+            builder.addOutput("c" + i, new HashSet<>(output));
+        }
+        simulator = Simulator.ofMachine(builder.build());
+    }
+
+    private static List<int[]> randomTraces(int count, int maxLength, long seed) {
+        Random random = new Random(seed);
+        List<int[]> traces = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int[] trace = new int[random.nextInt(maxLength + 1)];
+            for (int step = 0; step < trace.length; step++) trace[step] = random.nextInt(2);
+            traces.add(trace);
+        }
+        return traces;
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullSimulatorShouldThrowException() {
+        new BatchSimulator(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveParallelismShouldThrowException() {
+        new BatchSimulator(simulator, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWordShouldThrowException() {
+        new BatchSimulator(simulator, 2).replayAll(Arrays.asList(new int[]{0}, new int[]{2}));
+    }
+
+    @Test
+    public void emptyBatch() {
+        BatchReplay replay = new BatchSimulator(simulator).replayAll(new ArrayList<>());
+        Assert.assertEquals(0, replay.getTraceCount());
+        Assert.assertEquals(0, replay.getSteps());
+    }
+
+    @Test
+    public void parallelMatchesSerial() {
+        List<int[]> traces = randomTraces(300, 2000, 11);
+        BatchReplay serial = new BatchSimulator(simulator, 1).replayAll(traces);
+        BatchReplay parallel = new BatchSimulator(simulator, 4).replayAll(traces);
+        Assert.assertEquals(traces.size(), parallel.getTraceCount());
+        for (int i = 0; i < traces.size(); i++) {
+            TraceReplay single = TraceReplay.replay(simulator, traces.get(i));
+            Assert.assertArrayEquals(single.getOutputs(), serial.getOutputs(i));
+            Assert.assertArrayEquals(single.getOutputs(), parallel.getOutputs(i));
+            Assert.assertEquals(single.getFinalState(), parallel.getFinalState(i));
+        }
+        for (int state = 0; state < simulator.getStateCount(); state++) {
+            Assert.assertEquals(serial.getVisits(state), parallel.getVisits(state));
+        }
+        Assert.assertEquals(serial.getSteps(), parallel.getSteps());
+    }
+}
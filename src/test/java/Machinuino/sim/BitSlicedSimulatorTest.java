@@ -0,0 +1,113 @@
+package Machinuino.sim;
+
+import Machinuino.model.BoolPin;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class BitSlicedSimulatorTest {
+
+    private static final String[] INPUTS = {"clock", "a", "b", "c"};
+
+    /**
+     * Random guards over the inputs and the clock, overlapping ones included, so the first match
+     * order matters
+     */
+    private static MooreMachine randomMachine(int states, long seed) {
+        Random random = new Random(seed);
+        MooreMachine.Builder builder = new MooreMachine.Builder("Random");
+        for (int i = 0; i < states; i++) builder.addState("s" + i);
+        builder.initialState("s" + random.nextInt(states));
+        for (int i = 0; i < INPUTS.length; i++) builder.addInputPin(Pin.ofValue(INPUTS[i], i + 2));
+        builder.addOutputPin(Pin.ofValue("x", 8)).addOutputPin(Pin.ofValue("y", 9));
+
+        Set<Transition> transitions = new HashSet<>();
+        for (int i = 0; i < states * 3; i++) {
+            Set<BoolPin> guard = new HashSet<>();
+            for (String input : INPUTS) {
+                int literal = random.nextInt(3);
+                if (literal < 2) {
+                    guard.add(builder.getBoolPinOfValue(builder.getInputPinOfName(input),
+                            literal == 1));
+                }
+            }
+            transitions.add(Transition.ofValue("s" + random.nextInt(states),
+                    "s" + random.nextInt(states), guard));
+        }
+        builder.transitions(transitions);
+        for (int i = 0; i < states; i++) {
+            Set<BoolPin> output = new HashSet<>();
+            output.add(builder.getBoolPinOfValue(builder.getOutputPinOfName("x"),
+                    random.nextBoolean()));
+            output.add(builder.getBoolPinOfValue(builder.getOutputPinOfName("y"),
+                    random.nextBoolean()));
+            builder.addOutput("s" + i, output);
+        }
+        return builder.build();
+    }
+
+    private static List<int[]> randomTraces(int count, int maxLength, long seed) {
+        Random random = new Random(seed);
+        List<int[]> traces = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int[] trace = new int[random.nextInt(maxLength + 1)];
+            for (int step = 0; step < trace.length; step++) trace[step] = random.nextInt(8);
+            traces.add(trace);
+        }
+        return traces;
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void ofNullMachineShouldThrowException() {
+        BitSlicedSimulator.ofMachine(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWordShouldThrowException() {
+        BitSlicedSimulator.ofMachine(randomMachine(3, 1))
+                .replayAll(Collections.singletonList(new int[]{8}));
+    }
+
+    @Test
+    public void agreesWithScalarSimulator() {
+        for (int states : new int[]{1, 2, 5, 9}) {
+            MooreMachine machine = randomMachine(states, states);
+            List<int[]> traces = randomTraces(150, 300, states);
+            for (boolean clockHigh : new boolean[]{true, false}) {
+                Simulator simulator = Simulator.ofMachine(machine, clockHigh);
+                BatchReplay expected = new BatchSimulator(simulator, 1).replayAll(traces);
+                BatchReplay actual = BitSlicedSimulator.ofMachine(machine, clockHigh)
+                        .replayAll(traces);
+                Assert.assertEquals(traces.size(), actual.getTraceCount());
+                for (int i = 0; i < traces.size(); i++) {
+                    Assert.assertArrayEquals(expected.getOutputs(i), actual.getOutputs(i));
+                    Assert.assertEquals(expected.getFinalState(i), actual.getFinalState(i));
+                }
+                for (int state = 0; state < states; state++) {
+                    Assert.assertEquals(expected.getVisits(state), actual.getVisits(state));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyTraceEndsOnInitialState() {
+        MooreMachine machine = randomMachine(4, 3);
+        BatchReplay replay = BitSlicedSimulator.ofMachine(machine)
+                .replayAll(Arrays.asList(new int[0], new int[]{1, 2}));
+        Assert.assertEquals(machine.getStateId(machine.getInitialState()),
+                replay.getFinalState(0));
+        Assert.assertEquals(0, replay.getOutputs(0).length);
+        Assert.assertEquals(2, replay.getSteps());
+    }
+}
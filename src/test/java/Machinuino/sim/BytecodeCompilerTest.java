@@ -0,0 +1,146 @@
+package Machinuino.sim;
+
+import Machinuino.model.BoolPin;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class BytecodeCompilerTest {
+
+    private MooreMachine machine;
+
+    private static Set<BoolPin> setOf(BoolPin... boolPins) {
+        return Stream.of(boolPins).collect(Collectors.toSet());
+    }
+
+    @Before
+    public void init() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("M1");
+        builder.addState("q0").addState("q1").addState("q2").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("a", 3))
+                .addInputPin(Pin.ofValue("b", 4));
+        builder.addOutputPin(Pin.ofValue("x", 5)).addOutputPin(Pin.ofValue("y", 6));
+        BoolPin a = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), true);
+        BoolPin notA = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), false);
+        BoolPin b = builder.getBoolPinOfValue(builder.getInputPinOfName("b"), true);
+        BoolPin notClock = builder.getBoolPinOfValue(builder.getInputPinOfName("clock"), false);
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(a)))
+                .addTransition(Transition.ofValue("q0", "q2", setOf(notA, b)))
+                .addTransition(Transition.ofValue("q1", "q2", setOf(b)))
+                .addTransition(Transition.ofValue("q2", "q0", setOf()))
+                .addTransition(Transition.ofValue("q1", "q0", setOf(notClock)));
+        builder.addOutput("q1", setOf(builder.getBoolPinOfValue(
+                builder.getOutputPinOfName("x"), true)));
+        builder.addOutput("q2", setOf(builder.getBoolPinOfValue(
+                builder.getOutputPinOfName("y"), true)));
+        machine = builder.build();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void compileNullMachineShouldThrowException() {
+        BytecodeCompiler.compile(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wordBeyondInputsShouldThrowException() {
+        BytecodeCompiler.compile(machine).run(new int[]{4}, null, null);
+    }
+
+    @Test
+    public void compiledMachineStartsOnInitialState() {
+        CompiledMachine compiled = BytecodeCompiler.compile(machine);
+        Assert.assertEquals(machine.getStateId("q0"), compiled.getState());
+        Assert.assertEquals(0, compiled.getOutputWord());
+        Assert.assertEquals(machine.getStateId("q0"), compiled.step(0));
+        Assert.assertEquals(machine.getStateId("q1"), compiled.step(1));
+        Assert.assertEquals(1, compiled.getOutputWord());
+        compiled.reset();
+        Assert.assertEquals(machine.getStateId("q0"), compiled.getState());
+    }
+
+    @Test
+    public void classIsCachedByMachine() {
+        CompiledMachine first = BytecodeCompiler.compile(machine);
+        CompiledMachine second = BytecodeCompiler.compile(machine);
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(first.getClass(), second.getClass());
+        Assert.assertNotSame(first.getClass(), BytecodeCompiler.compile(machine, false).getClass());
+    }
+
+    @Test
+    public void agreesWithSimulatorOnBothEdges() {
+        Random random = new Random(7);
+        int[] trace = new int[10000];
+        for (int i = 0; i < trace.length; i++) trace[i] = random.nextInt(4);
+        for (boolean clockHigh : new boolean[]{true, false}) {
+            Simulator simulator = Simulator.ofMachine(machine, clockHigh);
+            TraceReplay expected = TraceReplay.replay(simulator, trace);
+            TraceReplay actual = TraceReplay.replay(
+                    BytecodeCompiler.compile(machine, clockHigh), trace);
+            Assert.assertArrayEquals(expected.getOutputs(), actual.getOutputs());
+            Assert.assertEquals(expected.getFinalState(), actual.getFinalState());
+            for (int state = 0; state < machine.getStateCount(); state++) {
+                Assert.assertEquals(expected.getVisits(state), actual.getVisits(state));
+            }
+        }
+    }
+
+    @Test
+    public void machineWithoutTransitionsStays() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("Idle");
+        builder.addState("q0").initialState("q0").addInputPin(Pin.ofValue("clock", 2));
+        CompiledMachine compiled = BytecodeCompiler.compile(builder.build());
+        Assert.assertEquals(0, compiled.run(new int[]{0, 0, 0}, null, null));
+        Assert.assertEquals(Collections.singletonList("q0"),
+                compiled.getMachine().getStates().collect(Collectors.toList()));
+    }
+
+    /**
+     * A machine far too large for a single method, split over the methods of its blocks
+     */
+    @Test
+    public void largeMachineAgreesWithSimulator() {
+        int states = 3000;
+        MooreMachine.Builder builder = new MooreMachine.Builder("Large");
+        for (int state = 0; state < states; state++) builder.addState("s" + state);
+        builder.initialState("s0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("a", 3))
+                .addInputPin(Pin.ofValue("b", 4));
+        builder.addOutputPin(Pin.ofValue("x", 5));
+        BoolPin[][] literals = new BoolPin[2][2];
+        for (int pin = 0; pin < 2; pin++) {
+            for (int value = 0; value < 2; value++) {
+                literals[pin][value] = builder.getBoolPinOfValue(
+                        builder.getInputPinOfName(pin == 0 ? "a" : "b"), value == 1);
+            }
+        }
+        Random random = new Random(11);
+        for (int state = 0; state < states; state++) {
+            for (int word = 0; word < 4; word++) {
+                builder.addTransition(Transition.ofValue("s" + state, "s" + random.nextInt(states),
+                        setOf(literals[0][word & 1], literals[1][word >> 1])));
+            }
+            if (random.nextBoolean()) {
+                builder.addOutput("s" + state, setOf(builder.getBoolPinOfValue(
+                        builder.getOutputPinOfName("x"), true)));
+            }
+        }
+        MooreMachine large = builder.build();
+
+        int[] trace = new int[20000];
+        for (int i = 0; i < trace.length; i++) trace[i] = random.nextInt(4);
+        TraceReplay expected = TraceReplay.replay(Simulator.ofMachine(large, true), trace);
+        TraceReplay actual = TraceReplay.replay(BytecodeCompiler.compile(large), trace);
+        Assert.assertArrayEquals(expected.getOutputs(), actual.getOutputs());
+        Assert.assertEquals(expected.getFinalState(), actual.getFinalState());
+    }
+}
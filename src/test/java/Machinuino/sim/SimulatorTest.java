@@ -0,0 +1,117 @@
+package Machinuino.sim;
+
+import Machinuino.model.BoolPin;
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.Transition;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class SimulatorTest {
+
+    private MooreMachine machine;
+
+    private static Set<BoolPin> setOf(BoolPin... boolPins) {
+        return Stream.of(boolPins).collect(Collectors.toSet());
+    }
+
+    @Before
+    public void init() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("M1");
+        builder.addState("q0").addState("q1").addState("q2").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("a", 3))
+                .addInputPin(Pin.ofValue("b", 4));
+        builder.addOutputPin(Pin.ofValue("x", 5));
+        BoolPin a = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), true);
+        BoolPin notA = builder.getBoolPinOfValue(builder.getInputPinOfName("a"), false);
+        BoolPin b = builder.getBoolPinOfValue(builder.getInputPinOfName("b"), true);
+        BoolPin notClock = builder.getBoolPinOfValue(builder.getInputPinOfName("clock"), false);
+        builder.addTransition(Transition.ofValue("q0", "q1", setOf(a)))
+                .addTransition(Transition.ofValue("q1", "q2", setOf(notA, b)))
+                .addTransition(Transition.ofValue("q2", "q0", setOf(b)))
+                .addTransition(Transition.ofValue("q2", "q1", setOf(notClock)));
+        builder.addOutput("q1", setOf(builder.getBoolPinOfValue(
+                builder.getOutputPinOfName("x"), true)));
+        machine = builder.build();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void ofNullMachineShouldThrowException() {
+        Simulator.ofMachine(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wordBeyondInputsShouldThrowException() {
+        Simulator simulator = Simulator.ofMachine(machine);
+        simulator.run(simulator.getInitialState(), new int[]{0, 4}, null, null);
+    }
+
+    @Test
+    public void stepStaysWithoutTransition() {
+        Simulator simulator = Simulator.ofMachine(machine);
+        int q0 = machine.getStateId("q0");
+        Assert.assertEquals(q0, simulator.getInitialState());
+        Assert.assertEquals(q0, simulator.step(q0, 0));
+        Assert.assertEquals(machine.getStateId("q1"), simulator.step(q0, 1));
+    }
+
+    @Test
+    public void runRecordsOutputsAndVisits() {
+        Simulator simulator = Simulator.ofMachine(machine);
+        int[] trace = {0, 1, 2, 2, 1};
+        int[] outputs = new int[trace.length];
+        long[] visits = new long[simulator.getStateCount()];
+        int last = simulator.run(simulator.getInitialState(), trace, outputs, visits);
+        Assert.assertEquals(machine.getStateId("q1"), last);
+        Assert.assertArrayEquals(new int[]{0, 1, 0, 0, 1}, outputs);
+        Assert.assertEquals(2, visits[machine.getStateId("q0")]);
+        Assert.assertEquals(2, visits[machine.getStateId("q1")]);
+        Assert.assertEquals(1, visits[machine.getStateId("q2")]);
+    }
+
+    @Test
+    public void fallingEdgeTakesLowClockTransitions() {
+        Simulator simulator = Simulator.ofMachine(machine, false);
+        int q2 = machine.getStateId("q2");
+        Assert.assertEquals(machine.getStateId("q0"), simulator.step(q2, 2));
+        Assert.assertEquals(machine.getStateId("q1"), simulator.step(q2, 0));
+    }
+
+    /**
+     * Checks the simulator against the switch the generated sketch runs: the first transition of
+     * the state whose guard matches, staying when none does
+     */
+    @Test
+    public void agreesWithGeneratedSwitch() {
+        Simulator simulator = Simulator.ofMachine(machine);
+        Random random = new Random(42);
+        int state = simulator.getInitialState();
+        for (int i = 0; i < 1000; i++) {
+            int word = random.nextInt(4);
+            int expected = state;
+            for (Transition transition : machine.getTransitionsOfState(state)) {
+                if (accepts(transition, word)) {
+                    expected = machine.getStateId(transition.getNextState());
+                    break;
+                }
+            }
+            state = simulator.step(state, word);
+            Assert.assertEquals(expected, state);
+        }
+    }
+
+    private boolean accepts(Transition transition, int word) {
+        for (BoolPin boolPin : transition.getInput()) {
+            String name = boolPin.getPin().getName();
+            boolean high = name.equals("clock") || (word & 1 << (name.equals("a") ? 0 : 1)) != 0;
+            if (high != boolPin.isHigh()) return false;
+        }
+        return true;
+    }
+}
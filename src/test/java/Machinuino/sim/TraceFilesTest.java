@@ -0,0 +1,107 @@
+package Machinuino.sim;
+
+import Machinuino.model.MooreMachine;
+import Machinuino.model.Pin;
+import Machinuino.model.TransitionTable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class TraceFilesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private TransitionTable table;
+
+    @Before
+    public void init() {
+        MooreMachine.Builder builder = new MooreMachine.Builder("M1");
+        builder.addState("q0").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 2)).addInputPin(Pin.ofValue("a", 3))
+                .addInputPin(Pin.ofValue("b", 4));
+        builder.addOutputPin(Pin.ofValue("x", 5)).addOutputPin(Pin.ofValue("y", 6));
+        table = TransitionTable.ofMachine(builder.build());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void readCsvInAnyColumnOrder() throws IOException {
+        Path file = write("trace.csv", "b, a\n0,0\n1,0\n\n0,1\n1,1\n");
+        Assert.assertArrayEquals(new int[]{0, 2, 1, 3}, TraceFiles.read(file, table));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void csvWithoutAllInputsShouldThrowException() throws IOException {
+        TraceFiles.readCsv(write("trace.csv", "a\n1\n"), table);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void csvWithUnknownValueShouldThrowException() throws IOException {
+        TraceFiles.readCsv(write("trace.csv", "a,b\n1,2\n"), table);
+    }
+
+    @Test
+    public void readBinary() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("trace.bin");
+        try (DataOutputStream stream = new DataOutputStream(Files.newOutputStream(file))) {
+            for (int word = 0; word < 4; word++) stream.writeInt(word);
+        }
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3}, TraceFiles.read(file, table));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void binaryWithPartialWordShouldThrowException() throws IOException {
+        TraceFiles.readBinary(write("trace.bin", "abcde"));
+    }
+
+    @Test
+    public void writeCsv() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("outputs.csv");
+        TraceFiles.writeCsv(file, table, new int[]{0, 1, 2, 3});
+        Assert.assertEquals(Arrays.asList("x,y", "0,0", "1,0", "0,1", "1,1"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * More inputs than a table holds, as the bytecode executor takes them
+     */
+    @Test
+    public void readCsvOfMachineBeyondTableInputs() throws IOException {
+        MooreMachine.Builder builder = new MooreMachine.Builder("Wide");
+        builder.addState("q0").initialState("q0");
+        builder.addInputPin(Pin.ofValue("clock", 0)).addOutputPin(Pin.ofValue("x", 1));
+        StringBuilder header = new StringBuilder();
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            builder.addInputPin(Pin.ofValue("i" + i, i + 2));
+            if (i > 0) {
+                header.append(',');
+                row.append(',');
+            }
+            header.append('i').append(i);
+            row.append(i == 19 ? '1' : '0');
+        }
+        MooreMachine machine = builder.build();
+        Path file = write("trace.csv", header + "\n" + row + "\n");
+        Assert.assertArrayEquals(new int[]{1 << 19}, TraceFiles.read(file, machine));
+
+        Path outputs = folder.getRoot().toPath().resolve("outputs.csv");
+        TraceFiles.writeCsv(outputs, machine, new int[]{1, 0});
+        Assert.assertEquals(Arrays.asList("x", "1", "0"),
+                Files.readAllLines(outputs, StandardCharsets.UTF_8));
+    }
+}